@@ -19,6 +19,7 @@ import lombok.Data;
 import school.management.system.data.DB;
 import school.management.system.data.DataService;
 import school.management.system.data.DataSource;
+import school.management.system.data.DataTable;
 import school.management.system.model.adm.Admin;
 import school.management.system.util.IconUtils;
 import school.management.system.model.student.Student;
@@ -198,8 +199,16 @@ public class App {
         JMenuItem exportTeachersItem = new JMenuItem("Export Teachers to CSV");
         exportTeachersItem.addActionListener(e -> fileService.exportModelToCsv(schoolPanel.getTchMod(), "teachers.csv"));
 
+        JMenu exportTableMenu = new JMenu("Export Table to CSV");
+        for (DataTable table : DataTable.values()) {
+            JMenuItem exportTableItem = new JMenuItem(table.getTitle() + "...");
+            exportTableItem.addActionListener(e -> fileService.exportTableToCsv(table));
+            exportTableMenu.add(exportTableItem);
+        }
+
         fileMenu.add(exportStudentsItem);
         fileMenu.add(exportTeachersItem);
+        fileMenu.add(exportTableMenu);
         fileMenu.addSeparator();
 
         JMenuItem importStudentsItem = new JMenuItem("Import Students from CSV");
@@ -208,6 +217,12 @@ public class App {
         JMenuItem importTeachersItem = new JMenuItem("Import Teachers from CSV");
         importTeachersItem.addActionListener(e -> fileService.importFromCsv("teacher"));
 
+        JMenuItem mergeStudentsItem = new JMenuItem("Update Students from CSV");
+        mergeStudentsItem.addActionListener(e -> fileService.mergeFromCsv("student"));
+
+        JMenuItem mergeTeachersItem = new JMenuItem("Update Teachers from CSV");
+        mergeTeachersItem.addActionListener(e -> fileService.mergeFromCsv("teacher"));
+
         fileMenu.addSeparator(); // Add a separator before backup
         JMenuItem backupItem = new JMenuItem("Backup Database...");
         backupItem.addActionListener(fileService::backupDatabase);
@@ -217,8 +232,18 @@ public class App {
         restoreItem.addActionListener(fileService::restoreDatabase);
         fileMenu.add(restoreItem);
 
+        JMenuItem exportSnapshotItem = new JMenuItem("Export Snapshot...");
+        exportSnapshotItem.addActionListener(fileService::exportSnapshot);
+        fileMenu.add(exportSnapshotItem);
+
+        JMenuItem importSnapshotItem = new JMenuItem("Load Snapshot...");
+        importSnapshotItem.addActionListener(fileService::importSnapshot);
+        fileMenu.add(importSnapshotItem);
+
         fileMenu.add(importStudentsItem);
         fileMenu.add(importTeachersItem);
+        fileMenu.add(mergeStudentsItem);
+        fileMenu.add(mergeTeachersItem);
 
         stdtItem = new JMenuItem("Student"); // Student menu item
         stdtItem.addActionListener(e -> showViewPanelForStudent(student));
@@ -0,0 +1,143 @@
+package school.management.system.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Delivers {@link ChangeEvent}s from the data layer to the panels, so a panel
+ * can apply just the rows that changed instead of reloading everything.
+ * <p>
+ * The {@link DB} write methods publish once their transaction has committed,
+ * from whatever thread ran the write. Events are queued and handed to the
+ * listeners on the Event Dispatch Thread; everything published before a
+ * delivery starts arrives in the same batch, so a burst of writes causes one
+ * round of UI updates.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class ChangeBus {
+
+    /** Receives committed changes on the Event Dispatch Thread. */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called with the changes committed since the previous call.
+         *
+         * @param events the changes, in the order they were published
+         */
+        void changesCommitted(List<ChangeEvent> events);
+    }
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(ChangeBus.class.getName());
+
+    /** The subscribed listeners. */
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    /** Guards {@link #pending} and {@link #scheduled}. */
+    private static final Object lock = new Object();
+    /** Events waiting for delivery. */
+    private static List<ChangeEvent> pending = new ArrayList<>();
+    /** Whether a delivery has been scheduled on the EDT. */
+    private static boolean scheduled;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ChangeBus() {
+    }
+
+    /**
+     * Registers a listener.
+     *
+     * @param listener the listener
+     */
+    public static void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public static void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Queues committed changes for delivery. Must only be called after the
+     * transaction that made them has committed. Inside a
+     * {@link UnitOfWork#inTransaction(SqlWork) unit of work} the changes are held
+     * back until the whole unit has committed.
+     *
+     * @param events the changes
+     */
+    public static void publish(ChangeEvent... events) {
+        if (UnitOfWork.defer(events)) {
+            return;
+        }
+        synchronized (lock) {
+            pending.addAll(List.of(events));
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        SwingUtilities.invokeLater(ChangeBus::deliver);
+    }
+
+    /**
+     * Convenience for publishing a single change.
+     *
+     * @param entity    the kind of record
+     * @param id        the row ID, or {@link ChangeEvent#ALL}
+     * @param operation what happened
+     */
+    public static void publish(ChangeEvent.Entity entity, int id, ChangeEvent.Operation operation) {
+        publish(new ChangeEvent(entity, id, operation));
+    }
+
+    /**
+     * Returns whether any of the events affects one of the given kinds of
+     * record.
+     *
+     * @param events   the events
+     * @param entities the kinds of record
+     * @return {@code true} if at least one event matches
+     */
+    public static boolean affects(List<ChangeEvent> events, ChangeEvent.Entity... entities) {
+        for (ChangeEvent event : events) {
+            for (ChangeEvent.Entity entity : entities) {
+                if (event.getEntity() == entity) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Hands the queued events to every listener; runs on the EDT. */
+    private static void deliver() {
+        List<ChangeEvent> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            scheduled = false;
+        }
+        List<ChangeEvent> events = List.copyOf(batch);
+        for (Listener listener : listeners) {
+            try {
+                listener.changesCommitted(events);
+            } catch (RuntimeException e) {
+                // One broken panel must not stop the others from updating.
+                LOGGER.log(Level.WARNING, "Change listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package school.management.system.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A committed change to one row, or to many rows of one kind, published by the
+ * {@link DB} write methods through {@link ChangeBus}.
+ *
+ * @author Ibn Issah
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ChangeEvent {
+
+    /** The kinds of record a change can affect. */
+    public enum Entity {
+        /** A row of {@code students}. */
+        STUDENT,
+        /** A row of {@code teachers}. */
+        TEACHER,
+        /** A row of {@code subjects}. */
+        SUBJECT,
+        /** A row of {@code class_levels}. */
+        CLASS,
+        /** A row of {@code teacher_assignments}. */
+        ASSIGNMENT,
+        /** A row of {@code student_attendance}. */
+        ATTENDANCE,
+        /** A row of {@code student_payments}. */
+        PAYMENT,
+        /** A row of {@code admin}. */
+        ADMIN
+    }
+
+    /** What happened to the row. */
+    public enum Operation {
+        /** The row was added. */
+        INSERT,
+        /** The row was changed. */
+        UPDATE,
+        /** The row was removed. */
+        DELETE
+    }
+
+    /** The ID used when a change affects many rows, or the row ID is unknown. */
+    public static final int ALL = -1;
+
+    /** The kind of record. */
+    private final Entity entity;
+    /** The ID of the row, or {@link #ALL}. */
+    private final int id;
+    /** What happened. */
+    private final Operation operation;
+
+    /**
+     * Returns whether this change affects a single, known row.
+     *
+     * @return {@code false} for {@link #ALL}
+     */
+    public boolean isSingleRow() {
+        return id != ALL;
+    }
+}
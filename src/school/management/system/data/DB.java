@@ -9,20 +9,33 @@ import school.management.system.model.student.Student;
 import school.management.system.model.subject.Subject;
 import school.management.system.model.teacher.Teacher;
 import school.management.system.model.teacher.TeacherAssignment;
+import school.management.system.util.CsvReader;
 import school.management.system.util.PasswordUtil;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 /**
  * Handles database operations such as connecting, querying, inserting, and
@@ -32,6 +45,57 @@ import java.util.Map;
  */
 public class DB {
 
+    /**
+     * Shared cache of the class and subject reference tables. It is static
+     * because several parts of the UI create their own {@code DB} instance.
+     */
+    private static final ReferenceDataCache REFERENCE_CACHE = new ReferenceDataCache(DB::queryAllClasses,
+            DB::queryAllSubjects);
+
+    /**
+     * Student columns read by list and search queries. The {@code profile_pic}
+     * blob is left out on purpose; use {@link #loadStudentProfilePicture(int)}.
+     */
+    private static final String STUDENT_COLUMNS = "std_id, std_fname, std_mname, std_lname, std_gender, std_dob, std_class";
+
+    /**
+     * Teacher columns read by list and search queries. The {@code profile_pic}
+     * blob is left out on purpose; use {@link #loadTeacherProfilePicture(int)}.
+     */
+    private static final String TEACHER_COLUMNS = "tch_id, tch_name, tch_contact, tch_gender, tch_email, tch_address";
+
+    /** Table expression for paged student queries; the join supplies the class name. */
+    private static final String STUDENT_FROM = "students s LEFT JOIN class_levels c ON c.class_id = s.std_class";
+
+    /**
+     * A table filter condition with its parameter values.
+     * 
+     * @param sql    The SQL condition.
+     * @param values The value of each parameter, in order.
+     */
+    private record Filter(String sql, List<String> values) {
+    }
+
+    /** Rows sent per batch when restoring tables. */
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    /**
+     * Supplies the exported rows of each table to
+     * {@link DB#replaceTables(TableSource, LongConsumer)}.
+     */
+    @FunctionalInterface
+    public interface TableSource {
+        /**
+         * Opens the rows of a table.
+         * 
+         * @param table The table.
+         * @return A reader positioned before the header line naming the columns,
+         *         closed by the caller; or null to leave the table empty.
+         * @throws IOException if the rows cannot be opened.
+         */
+        CsvReader open(DataTable table) throws IOException;
+    }
+
     /**
      * Establishes a connection to the SQLite database. If the database file does
      * not exist, it will be created.<br>
@@ -42,7 +106,33 @@ public class DB {
      */
     public static Connection connect() throws SQLException {
         // This method is now only for direct SQLite connection during migration
-        return DriverManager.getConnection("jdbc:sqlite:./libs/db/main.db");
+        return DriverManager.getConnection(DataSource.SQLITE_URL);
+    }
+
+    /**
+     * Writes a consistent copy of the SQLite database to a file with
+     * {@code VACUUM INTO}. Unlike copying {@code main.db}, the copy includes the
+     * transactions still held in the write-ahead log ({@code main.db-wal}).
+     * The copy is written under a temporary name and moved into place.
+     * 
+     * @param file the backup file; replaced if it exists
+     * @throws SQLException if the copy cannot be made
+     * @throws IOException  if the file cannot be moved into place
+     */
+    public void backupSqliteTo(Path file) throws SQLException, IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        // VACUUM INTO refuses to overwrite a file.
+        Files.deleteIfExists(partial);
+        try {
+            try (Connection con = DataSource.getConnection();
+                    PreparedStatement pstmt = con.prepareStatement("VACUUM INTO ?")) {
+                pstmt.setString(1, partial.toAbsolutePath().toString());
+                pstmt.execute();
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
     }
 
     /**
@@ -59,90 +149,109 @@ public class DB {
                 Statement stmt = conn.createStatement();
                 String studentSql = """
                         CREATE TABLE IF NOT EXISTS students (
-                          std_id integer PRIMARY KEY,
-                          std_fname text NOT NULL,
-                          std_mname text,
-                          std_lname text NOT NULL,
-                          std_gender text NOT NULL,
-                          std_dob text,
-                          std_class integer,
-                          profile_pic blob
-                        );
+                          std_id {id},
+                          std_fname {text} NOT NULL,
+                          std_mname {text},
+                          std_lname {text} NOT NULL,
+                          std_gender {text} NOT NULL,
+                          std_dob {text},
+                          std_class {int},
+                          profile_pic {blob}
+                        ){options};
                         """;
                 String adminSql = """
                         CREATE TABLE IF NOT EXISTS admin (
-                          adm_id integer PRIMARY KEY,
-                          adm_name text NOT NULL,
-                          adm_username text NOT NULL,
+                          adm_id {id},
+                          adm_name {text} NOT NULL,
+                          adm_username {text} NOT NULL,
                           password varchar(255) NOT NULL
-                        );
+                        ){options};
                         """;
                 String teacherSql = """
                         CREATE TABLE IF NOT EXISTS teachers (
-                          tch_id integer PRIMARY KEY,
-                          tch_name text NOT NULL,
-                          tch_contact text,
-                          tch_gender text NOT NULL,
-                          tch_email text,
-                          tch_address text,
-                          profile_pic blob
-                        );
+                          tch_id {id},
+                          tch_name {text} NOT NULL,
+                          tch_contact {text},
+                          tch_gender {text} NOT NULL,
+                          tch_email {text},
+                          tch_address {text},
+                          profile_pic {blob}
+                        ){options};
                         """;
                 String subjectsSql = """
                         CREATE TABLE IF NOT EXISTS subjects (
-                          subject_id integer PRIMARY KEY,
-                          subject_name text NOT NULL UNIQUE
-                        );
+                          subject_id {id},
+                          subject_name {name} NOT NULL UNIQUE
+                        ){options};
                         """;
                 String teacherAssignmentsSql = """
                         CREATE TABLE IF NOT EXISTS teacher_assignments (
-                          assignment_id integer PRIMARY KEY,
-                          teacher_id integer,
-                          subject_id integer,
-                          class_level integer,
+                          assignment_id {id},
+                          teacher_id {int},
+                          subject_id {int},
+                          class_level {int},
                           FOREIGN KEY(teacher_id) REFERENCES teachers(tch_id),
                           FOREIGN KEY(subject_id) REFERENCES subjects(subject_id)
-                        );
+                        ){options};
                         """;
                 String classLevelsSql = """
                         CREATE TABLE IF NOT EXISTS class_levels (
-                          class_id integer PRIMARY KEY,
-                          class_name text NOT NULL UNIQUE
-                        );
+                          class_id {id},
+                          class_name {name} NOT NULL UNIQUE
+                        ){options};
                         """;
                 String studentAttendanceSql = """
                         CREATE TABLE IF NOT EXISTS student_attendance (
-                          attendance_id integer PRIMARY KEY,
-                          student_id integer,
-                          attendance_date date NOT NULL,
-                          status text NOT NULL, -- Present, Absent, Late
+                          attendance_id {id},
+                          student_id {int},
+                          attendance_date {date} NOT NULL,
+                          status {text} NOT NULL, -- Present, Absent, Late
                           FOREIGN KEY(student_id) REFERENCES students(std_id)
-                        );
+                        ){options};
                         """;
                 String studentPaymentsSql = """
                         CREATE TABLE IF NOT EXISTS student_payments (
-                          payment_id integer PRIMARY KEY,
-                          student_id integer,
-                          amount_paid real NOT NULL,
-                          payment_date date NOT NULL,
-                          term text,
-                          academic_year integer,
+                          payment_id {id},
+                          student_id {int},
+                          amount_paid {real} NOT NULL,
+                          payment_date {date} NOT NULL,
+                          term {text},
+                          academic_year {int},
                           FOREIGN KEY(student_id) REFERENCES students(std_id)
-                        );
+                        ){options};
                         """;
-                stmt.execute(studentSql);
-                stmt.execute(adminSql);
-                stmt.execute(teacherSql);
-                stmt.execute(subjectsSql);
-                stmt.execute(teacherAssignmentsSql);
-                stmt.execute(classLevelsSql);
-                stmt.execute(studentAttendanceSql);
-                stmt.execute(studentPaymentsSql);
+                // The DDL is written with type placeholders; the dialect fills in each database's types
+                SqlDialect dialect = SqlDialect.current();
+                stmt.execute(dialect.ddl(studentSql));
+                stmt.execute(dialect.ddl(adminSql));
+                stmt.execute(dialect.ddl(teacherSql));
+                stmt.execute(dialect.ddl(subjectsSql));
+                stmt.execute(dialect.ddl(teacherAssignmentsSql));
+                stmt.execute(dialect.ddl(classLevelsSql));
+                stmt.execute(dialect.ddl(studentAttendanceSql));
+                stmt.execute(dialect.ddl(studentPaymentsSql));
+
+                migrateAttendanceKey(conn);
+                SortKeys.ensureSchema(conn);
+                SchemaIndexes.ensureIndexes(conn);
+                FullTextSearch.ensureSchema(conn);
+                FilterIndex.ensureSchema(conn);
+                DashboardSummary.ensureSchema(conn);
             }
             // After tables are ensured to exist, run migrations if needed.
             // Pass the connection to avoid creating a new one.
             migratePasswordsToHashes(conn);
         }
+        REFERENCE_CACHE.invalidateAll();
+    }
+
+    /**
+     * Returns the shared reference-data cache.
+     *
+     * @return the cache holding classes and subjects
+     */
+    public static ReferenceDataCache getReferenceCache() {
+        return REFERENCE_CACHE;
     }
 
     /**
@@ -179,13 +288,19 @@ public class DB {
      */
     public void signUp(Admin newAdmin) throws SQLException {
         String sql = "INSERT INTO admin(adm_name, adm_username, password) VALUES (?,?,?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement stmt = con.prepareStatement(sql)) {
-            stmt.setString(1, newAdmin.getName());
-            stmt.setString(2, newAdmin.getUserName());
-            stmt.setString(3, PasswordUtil.hashPassword(newAdmin.getPassword()));
-            stmt.executeUpdate();
-            System.out.println(newAdmin);
-        }
+        // Hash before queueing so the slow hash does not hold up the writer
+        String hashedPassword = PasswordUtil.hashPassword(newAdmin.getPassword());
+        int id = DataSource.write(con -> {
+            try (PreparedStatement stmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, newAdmin.getName());
+                stmt.setString(2, newAdmin.getUserName());
+                stmt.setString(3, hashedPassword);
+                stmt.executeUpdate();
+                return generatedKey(stmt);
+            }
+        });
+        ChangeBus.publish(ChangeEvent.Entity.ADMIN, id, ChangeEvent.Operation.INSERT);
+        System.out.println(newAdmin);
     }
 
     /**
@@ -196,17 +311,25 @@ public class DB {
      */
     public void addTeacher(Teacher newTeacher) throws SQLException {
         String sql = "INSERT INTO teachers(tch_name, tch_contact, tch_address, tch_email, tch_gender, profile_pic) VALUES (?,?,?,?,?,?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, newTeacher.getName());
-            pstmt.setString(2, newTeacher.getContact());
-            pstmt.setString(3, newTeacher.getAddress());
-            pstmt.setString(4, newTeacher.getEmail());
-            pstmt.setString(5, newTeacher.getGender());
-            pstmt.setBytes(6, newTeacher.getProfilePic());
-            pstmt.executeUpdate();
-            // Log the added teacher for debugging purposes
-            System.out.println(newTeacher);
-        }
+        int id = DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, newTeacher.getName());
+                pstmt.setString(2, newTeacher.getContact());
+                pstmt.setString(3, newTeacher.getAddress());
+                pstmt.setString(4, newTeacher.getEmail());
+                pstmt.setString(5, newTeacher.getGender());
+                pstmt.setBytes(6, newTeacher.getProfilePic());
+                pstmt.executeUpdate();
+                // Log the added teacher for debugging purposes
+                System.out.println(newTeacher);
+                int key = generatedKey(pstmt);
+                if (key != ChangeEvent.ALL) {
+                    SortKeys.setTeacherKey(con, key, newTeacher.getName());
+                }
+                return key;
+            }
+        });
+        ChangeBus.publish(ChangeEvent.Entity.TEACHER, id, ChangeEvent.Operation.INSERT);
     }
 
     /**
@@ -217,18 +340,26 @@ public class DB {
      */
     public void addStudent(Student newStudent) throws SQLException {
         String sql = "INSERT INTO students(std_fname, std_mname, std_lname, std_gender, std_dob, std_class, profile_pic) values (?,?,?,?,?,?,?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, newStudent.getFirstName());
-            pstmt.setString(2, newStudent.getMiddleName());
-            pstmt.setString(3, newStudent.getLastName());
-            pstmt.setString(4, newStudent.getGender());
-            pstmt.setString(5, newStudent.getDateOfBirth());
-            pstmt.setInt(6, newStudent.getLevel());
-            pstmt.setBytes(7, newStudent.getProfilePic());
-            pstmt.executeUpdate();
-            // Log the added student for debugging purposes
-            System.out.println(newStudent);
-        }
+        int id = DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, newStudent.getFirstName());
+                pstmt.setString(2, newStudent.getMiddleName());
+                pstmt.setString(3, newStudent.getLastName());
+                pstmt.setString(4, newStudent.getGender());
+                pstmt.setString(5, newStudent.getDateOfBirth());
+                pstmt.setInt(6, newStudent.getLevel());
+                pstmt.setBytes(7, newStudent.getProfilePic());
+                pstmt.executeUpdate();
+                // Log the added student for debugging purposes
+                System.out.println(newStudent);
+                int key = generatedKey(pstmt);
+                if (key != ChangeEvent.ALL) {
+                    SortKeys.setStudentKeys(con, key, newStudent.getFirstName(), newStudent.getLastName());
+                }
+                return key;
+            }
+        });
+        ChangeBus.publish(ChangeEvent.Entity.STUDENT, id, ChangeEvent.Operation.INSERT);
     }
 
     /**
@@ -239,20 +370,25 @@ public class DB {
      */
     public void addStudentsBatch(List<Student> newStudents) throws SQLException {
         String sql = "INSERT INTO students(std_id, std_fname, std_mname, std_lname, std_gender, std_dob, std_class, profile_pic) values (?,?,?,?,?,?,?,?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            for (Student newStudent : newStudents) {
-                pstmt.setInt(1, newStudent.getId());
-                pstmt.setString(2, newStudent.getFirstName());
-                pstmt.setString(3, newStudent.getMiddleName());
-                pstmt.setString(4, newStudent.getLastName());
-                pstmt.setString(5, newStudent.getGender());
-                pstmt.setString(6, newStudent.getDateOfBirth());
-                pstmt.setInt(7, newStudent.getLevel());
-                pstmt.setBytes(8, newStudent.getProfilePic());
-                pstmt.addBatch();
+        DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                for (Student newStudent : newStudents) {
+                    pstmt.setInt(1, newStudent.getId());
+                    pstmt.setString(2, newStudent.getFirstName());
+                    pstmt.setString(3, newStudent.getMiddleName());
+                    pstmt.setString(4, newStudent.getLastName());
+                    pstmt.setString(5, newStudent.getGender());
+                    pstmt.setString(6, newStudent.getDateOfBirth());
+                    pstmt.setInt(7, newStudent.getLevel());
+                    pstmt.setBytes(8, newStudent.getProfilePic());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
             }
-            pstmt.executeBatch();
-        }
+            SortKeys.setStudentKeys(con, newStudents);
+            return null;
+        });
+        ChangeBus.publish(ChangeEvent.Entity.STUDENT, ChangeEvent.ALL, ChangeEvent.Operation.INSERT);
     }
 
     /**
@@ -263,187 +399,1124 @@ public class DB {
      */
     public void addTeachersBatch(List<Teacher> newTeachers) throws SQLException {
         String sql = "INSERT INTO teachers(tch_id, tch_name, tch_contact, tch_gender, tch_address, tch_email, profile_pic) VALUES (?,?,?,?,?,?,?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            for (Teacher newTeacher : newTeachers) {
-                pstmt.setInt(1, newTeacher.getId());
-                pstmt.setString(2, newTeacher.getName());
-                pstmt.setString(3, newTeacher.getContact());
-                pstmt.setString(4, newTeacher.getGender());
-                pstmt.setString(5, newTeacher.getAddress());
-                pstmt.setString(6, newTeacher.getEmail());
-                pstmt.setBytes(7, newTeacher.getProfilePic());
-                pstmt.addBatch();
+        DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                for (Teacher newTeacher : newTeachers) {
+                    pstmt.setInt(1, newTeacher.getId());
+                    pstmt.setString(2, newTeacher.getName());
+                    pstmt.setString(3, newTeacher.getContact());
+                    pstmt.setString(4, newTeacher.getGender());
+                    pstmt.setString(5, newTeacher.getAddress());
+                    pstmt.setString(6, newTeacher.getEmail());
+                    pstmt.setBytes(7, newTeacher.getProfilePic());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
             }
-            pstmt.executeBatch();
+            SortKeys.setTeacherKeys(con, newTeachers);
+            return null;
+        });
+        ChangeBus.publish(ChangeEvent.Entity.TEACHER, ChangeEvent.ALL, ChangeEvent.Operation.INSERT);
+    }
+
+    /**
+     * Adds new students and updates existing ones, matched by ID, e.g. when a
+     * class list is imported again at the start of a term. The students are
+     * loaded into a temporary staging table and merged into {@code students}
+     * with one set-based upsert, so each existing ID costs no separate check.
+     * Rows that would not change are not rewritten, and profile pictures are
+     * kept.
+     * 
+     * @param students The students to merge; of two with the same ID the later one wins.
+     * @return How many students were added, changed and already up to date.
+     * @throws SQLException if a database error occurs.
+     */
+    public MergeCounts mergeStudents(List<Student> students) throws SQLException {
+        boolean keyed = SortKeys.isAvailable();
+        List<String> columns = new ArrayList<>(List.of("std_id", "std_fname", "std_mname", "std_lname", "std_gender", "std_dob", "std_class"));
+        if (keyed) {
+            columns.addAll(List.of("std_fname_key", "std_lname_key"));
+        }
+        List<Object[]> rows = new ArrayList<>(students.size());
+        for (Student student : students) {
+            Object[] row = { student.getId(), student.getFirstName(), student.getMiddleName(), student.getLastName(),
+                    student.getGender(), student.getDateOfBirth(), student.getLevel(), null, null };
+            if (keyed) {
+                row[7] = SortKeys.of(student.getFirstName());
+                row[8] = SortKeys.of(student.getLastName());
+            }
+            rows.add(row);
+        }
+        MergeCounts counts = DataSource.write(con -> merge(con, "students", columns.toArray(String[]::new), rows));
+        if (counts.getInserted() + counts.getUpdated() > 0) {
+            ChangeBus.publish(ChangeEvent.Entity.STUDENT, ChangeEvent.ALL, ChangeEvent.Operation.UPDATE);
+        }
+        return counts;
+    }
+
+    /**
+     * Adds new teachers and updates existing ones, matched by ID, through a
+     * staging table like {@link #mergeStudents(List)}. Profile pictures are
+     * kept.
+     * 
+     * @param teachers The teachers to merge; of two with the same ID the later one wins.
+     * @return How many teachers were added, changed and already up to date.
+     * @throws SQLException if a database error occurs.
+     */
+    public MergeCounts mergeTeachers(List<Teacher> teachers) throws SQLException {
+        boolean keyed = SortKeys.isAvailable();
+        List<String> columns = new ArrayList<>(List.of("tch_id", "tch_name", "tch_contact", "tch_gender", "tch_address", "tch_email"));
+        if (keyed) {
+            columns.add("tch_name_key");
+        }
+        List<Object[]> rows = new ArrayList<>(teachers.size());
+        for (Teacher teacher : teachers) {
+            Object[] row = { teacher.getId(), teacher.getName(), teacher.getContact(), teacher.getGender(),
+                    teacher.getAddress(), teacher.getEmail(), null };
+            if (keyed) {
+                row[6] = SortKeys.of(teacher.getName());
+            }
+            rows.add(row);
+        }
+        MergeCounts counts = DataSource.write(con -> merge(con, "teachers", columns.toArray(String[]::new), rows));
+        if (counts.getInserted() + counts.getUpdated() > 0) {
+            ChangeBus.publish(ChangeEvent.Entity.TEACHER, ChangeEvent.ALL, ChangeEvent.Operation.UPDATE);
+        }
+        return counts;
+    }
+
+    /**
+     * Merges rows into a table through a staging table: loads them in one
+     * batch, counts the new and unchanged ones with two set-based queries, then
+     * upserts them all with one statement.
+     * 
+     * @param con The writing connection.
+     * @param table The target table.
+     * @param columns The merged columns, the ID first; each row has a value per column, and may be longer.
+     * @param rows The rows.
+     * @return The counts.
+     * @throws SQLException if a database error occurs.
+     */
+    private static MergeCounts merge(Connection con, String table, String[] columns, List<Object[]> rows) throws SQLException {
+        SqlDialect dialect = SqlDialect.current();
+        String staging = table + "_staging";
+        String[] key = { columns[0] };
+        String[] update = Arrays.copyOfRange(columns, 1, columns.length);
+        try (Statement stmt = con.createStatement()) {
+            dialect.createStagingTable(stmt, staging, table, columns);
+            // Loading through an upsert keeps the last of several rows with one ID.
+            try (PreparedStatement pstmt = con.prepareStatement(dialect.upsert(staging, columns, key, update))) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < columns.length; i++) {
+                        pstmt.setObject(i + 1, row[i]);
+                    }
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            StringBuilder same = new StringBuilder();
+            for (String column : update) {
+                same.append(same.length() > 0 ? " AND " : "").append(dialect.sameValue("t." + column, "n." + column));
+            }
+            String join = " FROM " + staging + " n LEFT JOIN " + table + " t ON t." + key[0] + " = n." + key[0];
+            int staged;
+            int inserted;
+            int unchanged;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*), SUM(CASE WHEN t." + key[0] + " IS NULL THEN 1 ELSE 0 END),"
+                    + " SUM(CASE WHEN t." + key[0] + " IS NOT NULL AND " + same + " THEN 1 ELSE 0 END)" + join)) {
+                rs.next();
+                staged = rs.getInt(1);
+                inserted = rs.getInt(2);
+                unchanged = rs.getInt(3);
+            }
+            if (unchanged < staged) {
+                stmt.executeUpdate(dialect.upsertFrom(table, staging, columns, key, update));
+            }
+            dialect.dropStagingTable(stmt, staging);
+            return new MergeCounts(inserted, staged - inserted - unchanged, unchanged);
         }
     }
 
     /**
-     * Updates an existing student's record in the database.
+     * Updates an existing student's record in the database. The profile picture
+     * is only replaced when the student carries a new one; a null picture keeps the
+     * stored one, since list queries never load it.
      * 
      * @param student The student object with updated information.
      * @throws SQLException if a database access error occurs.
      */
     public void updateStudent(Student student) throws SQLException {
-        String sql = "UPDATE students SET std_fname = ?, std_mname = ?, std_lname = ?, std_gender = ?, std_dob = ?, std_class = ?, profile_pic = ? WHERE std_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, student.getFirstName());
-            pstmt.setString(2, student.getMiddleName());
-            pstmt.setString(3, student.getLastName());
-            pstmt.setString(4, student.getGender());
-            pstmt.setString(5, student.getDateOfBirth());
-            pstmt.setInt(6, student.getLevel());
-            pstmt.setBytes(7, student.getProfilePic());
-            pstmt.setInt(8, student.getId());
-            pstmt.executeUpdate();
-        }
+        String sql = "UPDATE students SET std_fname = ?, std_mname = ?, std_lname = ?, std_gender = ?, std_dob = ?, std_class = ?, profile_pic = COALESCE(?, profile_pic) WHERE std_id = ?";
+        DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                pstmt.setString(1, student.getFirstName());
+                pstmt.setString(2, student.getMiddleName());
+                pstmt.setString(3, student.getLastName());
+                pstmt.setString(4, student.getGender());
+                pstmt.setString(5, student.getDateOfBirth());
+                pstmt.setInt(6, student.getLevel());
+                pstmt.setBytes(7, student.getProfilePic());
+                pstmt.setInt(8, student.getId());
+                pstmt.executeUpdate();
+            }
+            SortKeys.setStudentKeys(con, student.getId(), student.getFirstName(), student.getLastName());
+            return null;
+        });
+        ChangeBus.publish(ChangeEvent.Entity.STUDENT, student.getId(), ChangeEvent.Operation.UPDATE);
     }
 
     /**
-     * Updates an existing teacher's record in the database.
+     * Updates an existing teacher's record in the database. The profile picture
+     * is only replaced when the teacher carries a new one; a null picture keeps the
+     * stored one, since list queries never load it.
      * 
      * @param teacher The teacher object with updated information.
      * @throws SQLException if a database access error occurs.
      */
     public void updateTeacher(Teacher teacher) throws SQLException {
-        String sql = "UPDATE teachers SET tch_name = ?, tch_contact = ?, tch_address = ?, tch_email = ?, tch_gender = ?, profile_pic = ? WHERE tch_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, teacher.getName());
-            pstmt.setString(2, teacher.getContact());
-            pstmt.setString(3, teacher.getAddress());
-            pstmt.setString(4, teacher.getEmail());
-            pstmt.setString(5, teacher.getGender());
-            pstmt.setBytes(6, teacher.getProfilePic());
-            pstmt.setInt(7, teacher.getId());
-            pstmt.executeUpdate();
-        }
+        String sql = "UPDATE teachers SET tch_name = ?, tch_contact = ?, tch_address = ?, tch_email = ?, tch_gender = ?, profile_pic = COALESCE(?, profile_pic) WHERE tch_id = ?";
+        DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                pstmt.setString(1, teacher.getName());
+                pstmt.setString(2, teacher.getContact());
+                pstmt.setString(3, teacher.getAddress());
+                pstmt.setString(4, teacher.getEmail());
+                pstmt.setString(5, teacher.getGender());
+                pstmt.setBytes(6, teacher.getProfilePic());
+                pstmt.setInt(7, teacher.getId());
+                pstmt.executeUpdate();
+            }
+            SortKeys.setTeacherKey(con, teacher.getId(), teacher.getName());
+            return null;
+        });
+        ChangeBus.publish(ChangeEvent.Entity.TEACHER, teacher.getId(), ChangeEvent.Operation.UPDATE);
     }
 
     /**
-     * searches through the database for a particular student
+     * searches through the database for a particular student. An Id search is an
+     * exact primary-key lookup; a name search matches names starting with the
+     * term, ignoring case, using the NOCASE name indexes.
      * 
      * @param searchTerm the term to search for
      * @param option     the search option index
+     * @param limit      the maximum number of results
      * @return a List of matching Student objects.
      * @throws SQLException if a database error occurs.
      */
-    public List<Student> searchStudent(String searchTerm, int option) throws SQLException {
+    public List<Student> searchStudent(String searchTerm, int option, int limit) throws SQLException {
         List<Student> results = new ArrayList<>();
+        if (option == 0) {
+            Integer id = parseId(searchTerm);
+            Student student = id == null ? null : findStudentById(id);
+            if (student != null) {
+                results.add(student);
+            }
+            return results;
+        }
 
-        // Use LIKE for string searches to allow partial matches
-        var sql = "SELECT * FROM students WHERE " + getColumnNameForStudent(option) + " LIKE ?";
+        var sql = "SELECT " + STUDENT_COLUMNS + " FROM students WHERE " + getColumnNameForStudent(option)
+                + " LIKE ? ESCAPE '!' ORDER BY std_fname, std_lname, std_id LIMIT ?";
 
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + searchTerm + "%");
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = QueryLane.prepare(con, sql)) {
+            pstmt.setString(1, prefixPattern(searchTerm.trim()));
+            pstmt.setInt(2, limit);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 results.add(mapToStudent(rs));
             }
         }
-        return results;
+        return results;
+    }
+
+    /**
+     * Finds a student by primary key.
+     * 
+     * @param studentId the student ID
+     * @return the student, or {@code null} if there is none with that ID
+     * @throws SQLException if a database error occurs.
+     */
+    public Student findStudentById(int studentId) throws SQLException {
+        String sql = "SELECT " + STUDENT_COLUMNS + " FROM students WHERE std_id = ?";
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapToStudent(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Maps the search option to the corresponding database column name for
+     * students.
+     * 
+     * @param option The search option index.
+     * @return The corresponding column name.
+     */
+    private String getColumnNameForStudent(int option) {
+        return switch (option) {
+        case 0 -> "std_id";
+        case 1 -> "std_fname";
+        case 2 -> "std_lname";
+        default -> throw new IllegalArgumentException("Invalid search option for student: " + option);
+        };
+    }
+
+    /**
+     * searches through the database for a particular teacher. An Id search is an
+     * exact primary-key lookup, a name search matches names starting with the
+     * term (ignoring case), and contact, email and address match anywhere.
+     * 
+     * @param searchTerm the term to search for
+     * @param option     the search option index
+     * @param limit      the maximum number of results
+     * @return a List of matching Teacher objects.
+     * @throws SQLException if a database error occurs.
+     */
+    public List<Teacher> searchTeacher(String searchTerm, int option, int limit) throws SQLException {
+        List<Teacher> results = new ArrayList<>();
+        if (option == 0) {
+            Integer id = parseId(searchTerm);
+            Teacher teacher = id == null ? null : findTeacherById(id);
+            if (teacher != null) {
+                results.add(teacher);
+            }
+            return results;
+        }
+
+        String sql = "SELECT " + TEACHER_COLUMNS + " FROM teachers WHERE " + getColumnNameForTeacher(option)
+                + " LIKE ? ESCAPE '!' ORDER BY tch_name, tch_id LIMIT ?";
+        String term = searchTerm.trim();
+
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = QueryLane.prepare(con, sql)) {
+            pstmt.setString(1, option == 1 ? prefixPattern(term) : likePattern(term));
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                results.add(mapToTeacher(rs));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds a teacher by primary key.
+     * 
+     * @param teacherId the teacher ID
+     * @return the teacher, or {@code null} if there is none with that ID
+     * @throws SQLException if a database error occurs.
+     */
+    public Teacher findTeacherById(int teacherId) throws SQLException {
+        String sql = "SELECT " + TEACHER_COLUMNS + " FROM teachers WHERE tch_id = ?";
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, teacherId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapToTeacher(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Maps the search option to the corresponding database column name for
+     * teachers.
+     * 
+     * @param option The search option index.
+     * @return The corresponding column name.
+     */
+    private String getColumnNameForTeacher(int option) {
+        return switch (option) {
+        case 0 -> "tch_id";
+        case 1 -> "tch_name";
+        case 2 -> "tch_contact";
+        case 3 -> "tch_email";
+        case 4 -> "tch_address";
+        default -> throw new IllegalArgumentException("Invalid search option for teacher: " + option);
+        };
+    }
+
+    /**
+     * Parses an ID typed into a search box.
+     * 
+     * @param text The text.
+     * @return The ID, or {@code null} if the text is not a whole number.
+     */
+    private static Integer parseId(String text) {
+        try {
+            return Integer.valueOf(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Searches students by name with the full-text index: every word in the text
+     * must start a word in the first, middle or last name, in any order. Results
+     * are ranked best match first.
+     * 
+     * @param text  the search text
+     * @param limit the maximum number of results
+     * @return the matching students, best first
+     * @throws SQLException if a database error occurs.
+     */
+    public List<Student> fullTextSearchStudents(String text, int limit) throws SQLException {
+        String columns = "s." + STUDENT_COLUMNS.replace(", ", ", s.");
+        return fullTextSearch(FullTextSearch.studentSearchSql(columns), "SELECT " + columns + " FROM students s",
+                "s", FullTextSearch.STUDENT_COLUMNS, "s.std_id", text, limit, this::mapToStudent);
+    }
+
+    /**
+     * Searches teachers by name, contact, email and address with the full-text
+     * index: every word in the text must start a word in one of those fields.
+     * Results are ranked best match first, with name matches weighted highest.
+     * 
+     * @param text  the search text
+     * @param limit the maximum number of results
+     * @return the matching teachers, best first
+     * @throws SQLException if a database error occurs.
+     */
+    public List<Teacher> fullTextSearchTeachers(String text, int limit) throws SQLException {
+        String columns = "t." + TEACHER_COLUMNS.replace(", ", ", t.");
+        return fullTextSearch(FullTextSearch.teacherSearchSql(columns), "SELECT " + columns + " FROM teachers t",
+                "t", FullTextSearch.TEACHER_COLUMNS, "t.tch_id", text, limit, this::mapToTeacher);
+    }
+
+    /**
+     * Runs a full-text search, or the LIKE fallback when the index cannot answer
+     * it.
+     * 
+     * @param <T>          The row type.
+     * @param indexedSql   The ranked full-text query.
+     * @param fallbackBase The SELECT ... FROM of the fallback query.
+     * @param alias        The alias of the searched table.
+     * @param columns      The searched columns.
+     * @param orderBy      The fallback order.
+     * @param text         The search text.
+     * @param limit        The maximum number of results.
+     * @param mapper       Maps a result row.
+     * @return The matching rows.
+     * @throws SQLException if a database error occurs.
+     */
+    private static <T> List<T> fullTextSearch(String indexedSql, String fallbackBase, String alias,
+            String[] columns, String orderBy, String text, int limit, RowMapper<T> mapper) throws SQLException {
+        List<String> tokens = FullTextSearch.tokens(text);
+        List<T> results = new ArrayList<>();
+        if (tokens.isEmpty()) {
+            return results;
+        }
+        boolean indexed = FullTextSearch.canUseIndex(tokens);
+        String sql = indexed ? indexedSql
+                : fallbackBase + " WHERE " + FullTextSearch.likeCondition(alias, columns, tokens.size()) + " ORDER BY "
+                        + orderBy + " LIMIT ?";
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = QueryLane.prepare(con, sql)) {
+            if (indexed) {
+                FullTextSearch.bindSearch(pstmt, tokens, limit);
+            } else {
+                int index = 1;
+                for (String token : tokens) {
+                    for (int i = 0; i < columns.length; i++) {
+                        pstmt.setString(index++, likePattern(token));
+                    }
+                }
+                pstmt.setInt(index, limit);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Fetches all students from the database.
+     * 
+     * @return A list of all Student objects.
+     * @throws SQLException if a database error occurs.
+     */
+    public List<Student> fetchAllStudents() throws SQLException {
+        List<Student> students = new ArrayList<>();
+        String sql = "SELECT " + STUDENT_COLUMNS + " FROM students ORDER BY std_fname, std_lname";
+        try (Connection con = DataSource.getConnection();
+                Statement stmt = con.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                students.add(mapToStudent(rs));
+            }
+        }
+        return students;
+    }
+
+    /**
+     * Fetches all teachers from the database.
+     * 
+     * @return A list of all Teacher objects.
+     * @throws SQLException if a database error occurs.
+     */
+    public List<Teacher> fetchAllTeachers() throws SQLException {
+        List<Teacher> teachers = new ArrayList<>();
+        String sql = "SELECT " + TEACHER_COLUMNS + " FROM teachers ORDER BY tch_name";
+        try (Connection con = DataSource.getConnection();
+                Statement stmt = con.createStatement(); 
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                teachers.add(mapToTeacher(rs));
+            }
+        }
+        return teachers;
+    }
+
+    /**
+     * Counts the students matching the table filter.
+     * 
+     * @param filter The filter text, or null/empty for all students.
+     * @return The number of matching students.
+     * @throws SQLException if a database error occurs.
+     */
+    public int countStudents(String filter) throws SQLException {
+        Filter condition = studentFilter(filter);
+        String sql = condition != null ? "SELECT COUNT(*) FROM " + STUDENT_FROM + " WHERE " + condition.sql()
+                : "SELECT COUNT(*) FROM students";
+        return count(sql, condition);
+    }
+
+    /**
+     * Fetches one page of students in the requested order using keyset
+     * pagination.
+     * 
+     * @param sortColumn The column to sort by, or null for the default order
+     *                   (first name, last name, id).
+     * @param ascending  Whether to sort ascending.
+     * @param after      The sort key of the row before the page, or null to start
+     *                   from the beginning.
+     * @param offset     Rows to skip after the anchor; used when jumping ahead.
+     * @param limit      The maximum number of rows to return.
+     * @param filter     The filter text, or null/empty for all students.
+     * @return The page of students with the key of its last row.
+     * @throws SQLException if a database error occurs.
+     */
+    public Page<Student> fetchStudentPage(String sortColumn, boolean ascending, Object[] after, int offset, int limit,
+            String filter) throws SQLException {
+        KeysetQuery query = new KeysetQuery(STUDENT_COLUMNS, STUDENT_FROM, ascending, studentSortKeys(sortColumn));
+        return fetchPage(query, studentFilter(filter), after, offset, limit, this::mapToStudent);
+    }
+
+    /**
+     * Maps a sortable student column to its keyset sort key. Nullable columns are
+     * wrapped in COALESCE so the keyset comparison stays total.
+     * 
+     * @param sortColumn The column name.
+     * @return The sort key expressions, ending with the primary key.
+     */
+    private String[] studentSortKeys(String sortColumn) {
+        return switch (sortColumn == null ? "" : sortColumn) {
+        case "std_id" -> new String[] { "s.std_id" };
+        case "std_fname" -> new String[] { SortKeys.column("s.std_fname_key", "s.std_fname"), "s.std_id" };
+        case "std_mname" -> new String[] { "COALESCE(s.std_mname, '')", "s.std_id" };
+        case "std_lname" -> new String[] { SortKeys.column("s.std_lname_key", "s.std_lname"), "s.std_id" };
+        case "std_gender" -> new String[] { "s.std_gender", "s.std_id" };
+        case "std_dob" -> new String[] { "COALESCE(s.std_dob, '')", "s.std_id" };
+        // The table shows the class name, so sort by it rather than by std_class
+        case "class_name" -> new String[] { "COALESCE(c.class_name, '')", "s.std_id" };
+        default -> new String[] { SortKeys.column("s.std_fname_key", "s.std_fname"),
+                SortKeys.column("s.std_lname_key", "s.std_lname"), "s.std_id" };
+        };
+    }
+
+    /**
+     * Streams every student matching the table filter in the requested order,
+     * reading them from an open cursor as the stream is consumed. The stream
+     * holds a pooled connection and must be closed.
+     * 
+     * @param sortColumn The column to sort by, or null for the default order.
+     * @param ascending  Whether to sort ascending.
+     * @param filter     The filter text, or null/empty for all students.
+     * @return The students.
+     * @throws SQLException if the query cannot be started.
+     * @see ResultSetStream
+     */
+    public Stream<Student> streamStudents(String sortColumn, boolean ascending, String filter) throws SQLException {
+        KeysetQuery query = new KeysetQuery(STUDENT_COLUMNS, STUDENT_FROM, ascending, studentSortKeys(sortColumn));
+        return stream(query, studentFilter(filter), this::mapToStudent);
+    }
+
+    /**
+     * Fetches the given students, in no particular order.
+     * 
+     * @param ids The student IDs.
+     * @return The students that exist.
+     * @throws SQLException if a database error occurs.
+     */
+    public List<Student> fetchStudentsByIds(List<Integer> ids) throws SQLException {
+        return fetchByIds("SELECT " + STUDENT_COLUMNS + " FROM students WHERE std_id IN ", ids, this::mapToStudent);
+    }
+
+    /**
+     * Counts the teachers matching the table filter.
+     * 
+     * @param filter The filter text, or null/empty for all teachers.
+     * @return The number of matching teachers.
+     * @throws SQLException if a database error occurs.
+     */
+    public int countTeachers(String filter) throws SQLException {
+        Filter condition = teacherFilter(filter);
+        String sql = "SELECT COUNT(*) FROM teachers" + (condition != null ? " WHERE " + condition.sql() : "");
+        return count(sql, condition);
+    }
+
+    /**
+     * Fetches one page of teachers in the requested order using keyset
+     * pagination.
+     * 
+     * @param sortColumn The column to sort by, or null for the default order
+     *                   (name, id).
+     * @param ascending  Whether to sort ascending.
+     * @param after      The sort key of the row before the page, or null to start
+     *                   from the beginning.
+     * @param offset     Rows to skip after the anchor; used when jumping ahead.
+     * @param limit      The maximum number of rows to return.
+     * @param filter     The filter text, or null/empty for all teachers.
+     * @return The page of teachers with the key of its last row.
+     * @throws SQLException if a database error occurs.
+     */
+    public Page<Teacher> fetchTeacherPage(String sortColumn, boolean ascending, Object[] after, int offset, int limit,
+            String filter) throws SQLException {
+        KeysetQuery query = new KeysetQuery(TEACHER_COLUMNS, "teachers", ascending, teacherSortKeys(sortColumn));
+        return fetchPage(query, teacherFilter(filter), after, offset, limit, this::mapToTeacher);
+    }
+
+    /**
+     * Maps a sortable teacher column to its keyset sort key.
+     * 
+     * @param sortColumn The column name.
+     * @return The sort key expressions, ending with the primary key.
+     */
+    private String[] teacherSortKeys(String sortColumn) {
+        return switch (sortColumn == null ? "" : sortColumn) {
+        case "tch_id" -> new String[] { "tch_id" };
+        case "tch_contact" -> new String[] { "COALESCE(tch_contact, '')", "tch_id" };
+        case "tch_gender" -> new String[] { "tch_gender", "tch_id" };
+        case "tch_address" -> new String[] { "COALESCE(tch_address, '')", "tch_id" };
+        case "tch_email" -> new String[] { "COALESCE(tch_email, '')", "tch_id" };
+        default -> new String[] { SortKeys.column("tch_name_key", "tch_name"), "tch_id" };
+        };
+    }
+
+    /**
+     * Streams every teacher matching the table filter in the requested order,
+     * reading them from an open cursor as the stream is consumed. The stream
+     * holds a pooled connection and must be closed.
+     * 
+     * @param sortColumn The column to sort by, or null for the default order.
+     * @param ascending  Whether to sort ascending.
+     * @param filter     The filter text, or null/empty for all teachers.
+     * @return The teachers.
+     * @throws SQLException if the query cannot be started.
+     * @see ResultSetStream
+     */
+    public Stream<Teacher> streamTeachers(String sortColumn, boolean ascending, String filter) throws SQLException {
+        KeysetQuery query = new KeysetQuery(TEACHER_COLUMNS, "teachers", ascending, teacherSortKeys(sortColumn));
+        return stream(query, teacherFilter(filter), this::mapToTeacher);
+    }
+
+    /**
+     * Fetches the given teachers, in no particular order.
+     * 
+     * @param ids The teacher IDs.
+     * @return The teachers that exist.
+     * @throws SQLException if a database error occurs.
+     */
+    public List<Teacher> fetchTeachersByIds(List<Integer> ids) throws SQLException {
+        return fetchByIds("SELECT " + TEACHER_COLUMNS + " FROM teachers WHERE tch_id IN ", ids, this::mapToTeacher);
+    }
+
+    /**
+     * Counts the rows of a table, e.g. to report export progress.
+     * 
+     * @param table The table.
+     * @return The number of rows.
+     * @throws SQLException if a database error occurs.
+     */
+    public int countRows(DataTable table) throws SQLException {
+        return count("SELECT COUNT(*) FROM " + table.getTable(), null);
+    }
+
+    /**
+     * Streams some columns of a whole table in ID order, straight from an
+     * open cursor, so a table of any size can be exported in constant memory.
+     * Dates are given as {@code yyyy-MM-dd} and every other value as text, or
+     * null. The stream holds a pooled connection until it is closed.
+     * 
+     * @param table The table.
+     * @param columns The columns to read, from {@link DataTable#getColumns()}.
+     * @return The rows, each holding the values of the columns in order.
+     * @throws SQLException if a database error occurs.
+     */
+    public Stream<String[]> streamTable(DataTable table, List<String> columns) throws SQLException {
+        boolean[] dates = new boolean[columns.size()];
+        for (int i = 0; i < dates.length; i++) {
+            if (!table.getColumns().contains(columns.get(i))) {
+                throw new IllegalArgumentException("Unknown column of " + table.getTable() + ": " + columns.get(i));
+            }
+            dates[i] = table.isDate(columns.get(i));
+        }
+        String sql = "SELECT " + String.join(", ", columns) + " FROM " + table.getTable() + " ORDER BY "
+                + table.getIdColumn();
+        Connection con = DataSource.getConnection();
+        PreparedStatement pstmt;
+        try {
+            pstmt = con.prepareStatement(sql);
+        } catch (SQLException e) {
+            con.close();
+            throw e;
+        }
+        return ResultSetStream.of(con, pstmt, rs -> {
+            String[] values = new String[dates.length];
+            for (int i = 0; i < values.length; i++) {
+                if (dates[i]) {
+                    // SQLite holds dates written through setDate as epoch milliseconds.
+                    Object date = rs.getObject(i + 1);
+                    values[i] = date instanceof Number millis ? new Date(millis.longValue()).toString()
+                            : date != null ? date.toString() : null;
+                } else {
+                    values[i] = rs.getString(i + 1);
+                }
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Replaces the rows of every {@link DataTable} with rows read back from an
+     * export, e.g. a snapshot of another installation. It runs as one
+     * transaction: the tables are emptied in reverse dependency order and
+     * refilled in dependency order with batched inserts that keep the original
+     * IDs, so either the whole snapshot is loaded or nothing changes. Admin
+     * accounts are not touched.
+     * <p>
+     * An empty field is stored as NULL, or as empty text in a NOT NULL column.
+     * Name sort keys are computed as the rows are inserted.
+     * </p>
+     * 
+     * @param source Opens the rows of each table.
+     * @param progress Receives the number of rows inserted so far, after each batch.
+     * @return The number of rows inserted.
+     * @throws SQLException if a database error occurs or the rows cannot be read;
+     *                      the tables are then left as they were.
+     */
+    public long replaceTables(TableSource source, LongConsumer progress) throws SQLException {
+        DataTable[] tables = DataTable.values();
+        long inserted;
+        try {
+            inserted = DataSource.write(con -> {
+                try (Statement stmt = con.createStatement()) {
+                    for (int i = tables.length - 1; i >= 0; i--) {
+                        stmt.executeUpdate("DELETE FROM " + tables[i].getTable());
+                    }
+                }
+                long rows = 0;
+                for (DataTable table : tables) {
+                    try (CsvReader csv = source.open(table)) {
+                        if (csv != null) {
+                            rows = insertRows(con, table, csv, rows, progress);
+                        }
+                    } catch (IOException e) {
+                        throw new SQLException("Cannot read the rows of " + table.getTable() + ": " + e.getMessage(), e);
+                    }
+                }
+                return rows;
+            });
+        } finally {
+            invalidateReferenceData(REFERENCE_CACHE::invalidateAll);
+        }
+        reloadReferenceData();
+        List<ChangeEvent> events = new ArrayList<>();
+        for (ChangeEvent.Entity entity : List.of(ChangeEvent.Entity.CLASS, ChangeEvent.Entity.SUBJECT,
+                ChangeEvent.Entity.STUDENT, ChangeEvent.Entity.TEACHER, ChangeEvent.Entity.ASSIGNMENT,
+                ChangeEvent.Entity.ATTENDANCE, ChangeEvent.Entity.PAYMENT)) {
+            events.add(new ChangeEvent(entity, ChangeEvent.ALL, ChangeEvent.Operation.UPDATE));
+        }
+        ChangeBus.publish(events.toArray(ChangeEvent[]::new));
+        return inserted;
+    }
+
+    /**
+     * Inserts the rows of one exported table, in batches.
+     * 
+     * @param con The writing connection.
+     * @param table The table.
+     * @param csv The rows, positioned before the header line naming the columns.
+     * @param done Rows inserted before this table, for progress.
+     * @param progress Receives the running total after each batch.
+     * @return The running total after this table.
+     * @throws SQLException if a database error occurs.
+     * @throws IOException if the rows cannot be read or name an unknown column.
+     */
+    private static long insertRows(Connection con, DataTable table, CsvReader csv, long done, LongConsumer progress)
+            throws SQLException, IOException {
+        if (!csv.next()) {
+            return done;
+        }
+        String[] header = csv.toArray();
+        for (String column : header) {
+            if (!table.getColumns().contains(column)) {
+                throw new IOException("unknown column " + column);
+            }
+        }
+        boolean[] notNull = new boolean[header.length];
+        try (Statement stmt = con.createStatement();
+                ResultSet rs = stmt.executeQuery(
+                        "SELECT " + String.join(", ", header) + " FROM " + table.getTable() + " WHERE 1 = 0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 0; i < header.length; i++) {
+                notNull[i] = meta.isNullable(i + 1) == ResultSetMetaData.columnNoNulls;
+            }
+        }
+        // Sort keys go in the same insert, computed from the name column they belong to.
+        String[][] keys = SortKeys.keyColumns(table.getTable());
+        int[] keySources = new int[keys.length];
+        String[] columns = Arrays.copyOf(header, header.length + keys.length);
+        for (int k = 0; k < keys.length; k++) {
+            columns[header.length + k] = keys[k][0];
+            keySources[k] = Arrays.asList(header).indexOf(keys[k][1]);
+        }
+
+        long rows = done;
+        try (PreparedStatement pstmt = con.prepareStatement(SqlDialect.insert(table.getTable(), columns))) {
+            int pending = 0;
+            while (csv.next()) {
+                for (int i = 0; i < header.length; i++) {
+                    String value = i < csv.size() ? csv.get(i) : "";
+                    if (value.isEmpty() && !notNull[i]) {
+                        pstmt.setNull(i + 1, Types.NULL);
+                    } else if (table.isDate(header[i]) && !value.isEmpty()) {
+                        pstmt.setObject(i + 1, exportedDate(value));
+                    } else {
+                        pstmt.setString(i + 1, value);
+                    }
+                }
+                for (int k = 0; k < keys.length; k++) {
+                    String name = keySources[k] >= 0 && keySources[k] < csv.size() ? csv.get(keySources[k]) : null;
+                    pstmt.setBytes(header.length + k + 1, SortKeys.of(name));
+                }
+                pstmt.addBatch();
+                rows++;
+                if (++pending == INSERT_BATCH_SIZE) {
+                    pstmt.executeBatch();
+                    pending = 0;
+                    progress.accept(rows);
+                }
+            }
+            if (pending > 0) {
+                pstmt.executeBatch();
+                progress.accept(rows);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Converts an exported date back to the value the application writes, so
+     * date queries match restored rows.
+     * 
+     * @param value The date as exported, normally {@code yyyy-MM-dd}.
+     * @return A {@link Date}, or the text itself if it is not a plain date.
+     */
+    private static Object exportedDate(String value) {
+        try {
+            return Date.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    /**
+     * Builds the student table filter condition, using the trigram index when it
+     * can answer the text.
+     * 
+     * @param filter The filter text, or null/empty for all students.
+     * @return The condition, or null if there is no filter.
+     * @see FilterIndex
+     */
+    private static Filter studentFilter(String filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        if (FilterIndex.canUseIndex(filter)) {
+            return new Filter(FilterIndex.STUDENT_INDEXED,
+                    List.of(FilterIndex.matchPhrase(filter), likePattern(filter)));
+        }
+        return likeFilter(FilterIndex.STUDENT_LIKE, filter);
+    }
+
+    /**
+     * Builds the teacher table filter condition, using the trigram index when it
+     * can answer the text.
+     * 
+     * @param filter The filter text, or null/empty for all teachers.
+     * @return The condition, or null if there is no filter.
+     * @see FilterIndex
+     */
+    private static Filter teacherFilter(String filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        if (FilterIndex.canUseIndex(filter)) {
+            return new Filter(FilterIndex.TEACHER_INDEXED, List.of(FilterIndex.matchPhrase(filter)));
+        }
+        return likeFilter(FilterIndex.TEACHER_LIKE, filter);
+    }
+
+    /**
+     * Builds a filter condition whose parameters all take the same "contains"
+     * LIKE pattern.
+     * 
+     * @param sql    The SQL condition.
+     * @param filter The filter text.
+     * @return The condition.
+     */
+    private static Filter likeFilter(String sql, String filter) {
+        int params = (int) sql.chars().filter(ch -> ch == '?').count();
+        return new Filter(sql, Collections.nCopies(params, likePattern(filter)));
+    }
+
+    /**
+     * Runs a COUNT query.
+     * 
+     * @param sql    The query.
+     * @param filter The filter condition in its WHERE clause, or null if there is
+     *               none.
+     * @return The count.
+     * @throws SQLException if a database error occurs.
+     */
+    private int count(String sql, Filter filter) throws SQLException {
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = QueryLane.prepare(con, sql)) {
+            if (filter != null) {
+                bind(pstmt, 1, filter.values());
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Runs one keyset page query.
+     * 
+     * @param query  The keyset query.
+     * @param filter The filter condition, or null.
+     * @param after  The anchor key, or null.
+     * @param offset Rows to skip after the anchor.
+     * @param limit  The page size.
+     * @param mapper Maps each row.
+     * @return The page.
+     * @throws SQLException if a database error occurs.
+     */
+    private <T> Page<T> fetchPage(KeysetQuery query, Filter filter, Object[] after, int offset, int limit,
+            RowMapper<T> mapper) throws SQLException {
+        String sql = query.toSql(filter != null ? filter.sql() : null, after != null);
+        List<T> rows = new ArrayList<>(limit);
+        Object[] lastKey = null;
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = QueryLane.prepare(con, sql)) {
+            int index = 1;
+            if (filter != null) {
+                index = bind(pstmt, index, filter.values());
+            }
+            if (after != null) {
+                index = query.bindAnchor(pstmt, index, after);
+            }
+            pstmt.setInt(index++, limit);
+            pstmt.setInt(index, offset);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                    lastKey = query.readKey(rs);
+                }
+            }
+        }
+        return new Page<>(rows, lastKey);
+    }
+
+    /**
+     * Opens a stream over every row of a keyset query, in sort order.
+     * 
+     * @param query  The keyset query.
+     * @param filter The filter condition, or null.
+     * @param mapper Maps each row.
+     * @return The rows; the stream owns the connection.
+     * @throws SQLException if the query cannot be started.
+     */
+    private <T> Stream<T> stream(KeysetQuery query, Filter filter, RowMapper<T> mapper) throws SQLException {
+        String sql = query.toStreamSql(filter != null ? filter.sql() : null);
+        Connection con = DataSource.getConnection();
+        PreparedStatement pstmt;
+        try {
+            pstmt = con.prepareStatement(sql);
+            if (filter != null) {
+                bind(pstmt, 1, filter.values());
+            }
+        } catch (SQLException e) {
+            con.close();
+            throw e;
+        }
+        return ResultSetStream.of(con, pstmt, mapper);
+    }
+
+    /**
+     * Runs an {@code IN (...)} lookup for a list of IDs.
+     * 
+     * @param sqlPrefix The query up to and including {@code IN }.
+     * @param ids       The IDs.
+     * @param mapper    Maps each row.
+     * @return The rows found.
+     * @throws SQLException if a database error occurs.
+     */
+    private <T> List<T> fetchByIds(String sqlPrefix, List<Integer> ids, RowMapper<T> mapper) throws SQLException {
+        List<T> results = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return results;
+        }
+        String sql = sqlPrefix + "(" + "?,".repeat(ids.size() - 1) + "?)";
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Binds string values to consecutive parameters.
+     * 
+     * @param pstmt  The statement.
+     * @param index  The first parameter index.
+     * @param values The values.
+     * @return The next free parameter index.
+     * @throws SQLException if a parameter cannot be set.
+     */
+    private static int bind(PreparedStatement pstmt, int index, List<String> values) throws SQLException {
+        for (String value : values) {
+            pstmt.setString(index++, value);
+        }
+        return index;
+    }
+
+    /**
+     * Reads the key generated by the INSERT a statement just ran.
+     * 
+     * @param pstmt The statement, prepared with
+     *              {@link Statement#RETURN_GENERATED_KEYS}.
+     * @return The new row ID, or {@link ChangeEvent#ALL} if the driver did not
+     *         report one.
+     * @throws SQLException if a database error occurs.
+     */
+    private static int generatedKey(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            return keys.next() ? keys.getInt(1) : ChangeEvent.ALL;
+        }
     }
 
     /**
-     * Maps the search option to the corresponding database column name for
-     * students.
+     * Turns free text into a "contains" LIKE pattern, escaping wildcards with
+     * {@code !}.
      * 
-     * @param option The search option index.
-     * @return The corresponding column name.
+     * @param text The text to match.
+     * @return The LIKE pattern.
      */
-    private String getColumnNameForStudent(int option) {
-        return switch (option) {
-        case 0 -> "std_id";
-        case 1 -> "std_fname";
-        case 2 -> "std_lname";
-        default -> throw new IllegalArgumentException("Invalid search option for student: " + option);
-        };
+    private static String likePattern(String text) {
+        return "%" + escapeLike(text) + "%";
     }
 
     /**
-     * searches through the database for a particular teacher
+     * Turns free text into a "starts with" LIKE pattern, escaping wildcards
+     * with {@code !}. With no leading wildcard the match can use an index.
      * 
-     * @param searchTerm the term to search for
-     * @param option     the search option index
-     * @return a List of matching Teacher objects.
-     * @throws SQLException if a database error occurs.
+     * @param text The prefix to match.
+     * @return The LIKE pattern.
      */
-    public List<Teacher> searchTeacher(String searchTerm, int option) throws SQLException {
-        List<Teacher> results = new ArrayList<>();
-        String sql = "SELECT * FROM teachers WHERE " + getColumnNameForTeacher(option) + " LIKE ?";
-
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + searchTerm + "%");
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                results.add(mapToTeacher(rs));
-            }
-        }
-        return results;
+    private static String prefixPattern(String text) {
+        return escapeLike(text) + "%";
     }
 
     /**
-     * Maps the search option to the corresponding database column name for
-     * teachers.
+     * Escapes LIKE wildcards with {@code !}.
      * 
-     * @param option The search option index.
-     * @return The corresponding column name.
+     * @param text The literal text.
+     * @return The escaped text.
      */
-    private String getColumnNameForTeacher(int option) {
-        return switch (option) {
-        case 0 -> "tch_id";
-        case 1 -> "tch_name";
-        case 2 -> "tch_contact";
-        case 3 -> "tch_email";
-        case 4 -> "tch_address";
-        default -> throw new IllegalArgumentException("Invalid search option for teacher: " + option);
-        };
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 
     /**
-     * Fetches all students from the database.
+     * Fetches all subjects, served from the reference-data cache.
      * 
-     * @return A list of all Student objects.
+     * @return An unmodifiable list of all Subject objects.
      * @throws SQLException if a database error occurs.
      */
-    public List<Student> fetchAllStudents() throws SQLException {
-        List<Student> students = new ArrayList<>();
-        String sql = "SELECT * FROM students ORDER BY std_fname, std_lname";
-        try (Connection con = DataSource.getConnection();
-                Statement stmt = con.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                students.add(mapToStudent(rs));
-            }
-        }
-        return students;
+    public List<Subject> fetchAllSubjects() throws SQLException {
+        return REFERENCE_CACHE.getSubjects();
     }
 
     /**
-     * Fetches all teachers from the database.
-     * 
-     * @return A list of all Teacher objects.
+     * Fetches the name of a subject by its ID, served from the reference-data
+     * cache.
+     *
+     * @param subjectId The ID of the subject.
+     * @return The name of the subject, or null if not found.
      * @throws SQLException if a database error occurs.
      */
-    public List<Teacher> fetchAllTeachers() throws SQLException {
-        List<Teacher> teachers = new ArrayList<>();
-        String sql = "SELECT * FROM teachers ORDER BY tch_name";
-        try (Connection con = DataSource.getConnection();
-                Statement stmt = con.createStatement(); 
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                teachers.add(mapToTeacher(rs));
+    public String getSubjectNameById(int subjectId) throws SQLException {
+        return REFERENCE_CACHE.getSubjectName(subjectId);
+    }
+
+    /**
+     * Invalidates cached reference data after a write. Inside a
+     * {@link UnitOfWork} transaction this waits for the commit: until then the
+     * cache keeps the committed rows, and a rollback leaves it untouched.
+     *
+     * @param invalidate the invalidation to run
+     */
+    private static void invalidateReferenceData(Runnable invalidate) {
+        if (!UnitOfWork.afterCommit(invalidate)) {
+            invalidate.run();
+        }
+    }
+
+    /**
+     * Reloads invalidated reference data right after a write, on the writing
+     * (background) thread, so the listeners of the change event that follows
+     * read class and subject names from the cache instead of querying on the
+     * Event Dispatch Thread. Inside a {@link UnitOfWork} transaction the reload
+     * waits for the commit, since until then it would read and install the
+     * transaction's uncommitted rows. A failure is only logged; the next reader
+     * retries.
+     */
+    private static void reloadReferenceData() {
+        Runnable reload = () -> {
+            try {
+                REFERENCE_CACHE.getClasses();
+                REFERENCE_CACHE.getSubjects();
+            } catch (SQLException e) {
+                System.err.println("Could not reload classes and subjects: " + e.getMessage());
             }
+        };
+        if (!UnitOfWork.afterCommit(reload)) {
+            reload.run();
         }
-        return teachers;
     }
 
     /**
-     * Fetches all subjects from the database.
+     * Loads all subjects from the database, bypassing the cache.
      * 
-     * @return A list of all Subject objects.
+     * @return A list of all Subject objects ordered by name.
      * @throws SQLException if a database error occurs.
      */
-    public List<Subject> fetchAllSubjects() throws SQLException {
+    private static List<Subject> queryAllSubjects() throws SQLException {
         List<Subject> subjects = new ArrayList<>();
         String sql = "SELECT * FROM subjects ORDER BY subject_name";
         try (Connection con = DataSource.getConnection();
@@ -464,10 +1537,20 @@ public class DB {
      */
     public void addSubject(String subjectName) throws SQLException {
         String sql = "INSERT INTO subjects(subject_name) VALUES (?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, subjectName);
-            pstmt.executeUpdate();
+        int id;
+        try {
+            id = DataSource.write(con -> {
+                try (PreparedStatement pstmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, subjectName);
+                    pstmt.executeUpdate();
+                    return generatedKey(pstmt);
+                }
+            });
+        } finally {
+            invalidateReferenceData(REFERENCE_CACHE::invalidateSubjects);
         }
+        reloadReferenceData();
+        ChangeBus.publish(ChangeEvent.Entity.SUBJECT, id, ChangeEvent.Operation.INSERT);
     }
 
     /**
@@ -478,11 +1561,20 @@ public class DB {
      */
     public void updateSubject(Subject subject) throws SQLException {
         String sql = "UPDATE subjects SET subject_name = ? WHERE subject_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, subject.getName());
-            pstmt.setInt(2, subject.getId());
-            pstmt.executeUpdate();
+        try {
+            DataSource.write(con -> {
+                try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                    pstmt.setString(1, subject.getName());
+                    pstmt.setInt(2, subject.getId());
+                    pstmt.executeUpdate();
+                }
+                return null;
+            });
+        } finally {
+            invalidateReferenceData(REFERENCE_CACHE::invalidateSubjects);
         }
+        reloadReferenceData();
+        ChangeBus.publish(ChangeEvent.Entity.SUBJECT, subject.getId(), ChangeEvent.Operation.UPDATE);
     }
 
     /**
@@ -493,19 +1585,38 @@ public class DB {
      */
     public void deleteSubject(int subjectId) throws SQLException {
         String sql = "DELETE FROM subjects WHERE subject_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setInt(1, subjectId);
-            pstmt.executeUpdate();
+        try {
+            DataSource.write(con -> {
+                try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                    pstmt.setInt(1, subjectId);
+                    pstmt.executeUpdate();
+                }
+                return null;
+            });
+        } finally {
+            invalidateReferenceData(REFERENCE_CACHE::invalidateSubjects);
         }
+        reloadReferenceData();
+        ChangeBus.publish(ChangeEvent.Entity.SUBJECT, subjectId, ChangeEvent.Operation.DELETE);
     }
 
     /**
-     * Fetches all class levels from the database.
+     * Fetches all class levels, served from the reference-data cache.
      *
-     * @return A list of all SchoolClass objects.
+     * @return An unmodifiable list of all SchoolClass objects.
      * @throws SQLException if a database error occurs.
      */
     public List<SchoolClass> fetchAllClasses() throws SQLException {
+        return REFERENCE_CACHE.getClasses();
+    }
+
+    /**
+     * Loads all class levels from the database, bypassing the cache.
+     *
+     * @return A list of all SchoolClass objects ordered by name.
+     * @throws SQLException if a database error occurs.
+     */
+    private static List<SchoolClass> queryAllClasses() throws SQLException {
         List<SchoolClass> classes = new ArrayList<>();
         String sql = "SELECT * FROM class_levels ORDER BY class_name";
         try (Connection con = DataSource.getConnection();
@@ -526,10 +1637,20 @@ public class DB {
      */
     public void addClass(String className) throws SQLException {
         String sql = "INSERT INTO class_levels(class_name) VALUES (?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, className);
-            pstmt.executeUpdate();
+        int id;
+        try {
+            id = DataSource.write(con -> {
+                try (PreparedStatement pstmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, className);
+                    pstmt.executeUpdate();
+                    return generatedKey(pstmt);
+                }
+            });
+        } finally {
+            invalidateReferenceData(REFERENCE_CACHE::invalidateClasses);
         }
+        reloadReferenceData();
+        ChangeBus.publish(ChangeEvent.Entity.CLASS, id, ChangeEvent.Operation.INSERT);
     }
 
     /**
@@ -540,11 +1661,20 @@ public class DB {
      */
     public void updateClass(SchoolClass schoolClass) throws SQLException {
         String sql = "UPDATE class_levels SET class_name = ? WHERE class_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, schoolClass.getName());
-            pstmt.setInt(2, schoolClass.getId());
-            pstmt.executeUpdate();
+        try {
+            DataSource.write(con -> {
+                try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                    pstmt.setString(1, schoolClass.getName());
+                    pstmt.setInt(2, schoolClass.getId());
+                    pstmt.executeUpdate();
+                }
+                return null;
+            });
+        } finally {
+            invalidateReferenceData(REFERENCE_CACHE::invalidateClasses);
         }
+        reloadReferenceData();
+        ChangeBus.publish(ChangeEvent.Entity.CLASS, schoolClass.getId(), ChangeEvent.Operation.UPDATE);
     }
 
     /**
@@ -555,27 +1685,41 @@ public class DB {
      */
     public void deleteClass(int classId) throws SQLException {
         String sql = "DELETE FROM class_levels WHERE class_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setInt(1, classId);
-            pstmt.executeUpdate();
+        try {
+            DataSource.write(con -> {
+                try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                    pstmt.setInt(1, classId);
+                    pstmt.executeUpdate();
+                }
+                return null;
+            });
+        } finally {
+            invalidateReferenceData(REFERENCE_CACHE::invalidateClasses);
         }
+        reloadReferenceData();
+        ChangeBus.publish(ChangeEvent.Entity.CLASS, classId, ChangeEvent.Operation.DELETE);
     }
 
     /**
-     * Fetches the name of a class by its ID.
+     * Fetches the name of a class by its ID, served from the reference-data
+     * cache.
      *
      * @param classId The ID of the class.
      * @return The name of the class, or null if not found.
      * @throws SQLException if a database error occurs.
      */
     public String getClassNameById(int classId) throws SQLException {
-        String sql = "SELECT class_name FROM class_levels WHERE class_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setInt(1, classId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getString("class_name") : null;
-            }
-        }
+        return REFERENCE_CACHE.getClassName(classId);
+    }
+
+    /**
+     * Fetches the names of all classes, served from the reference-data cache.
+     *
+     * @return The class names keyed by class ID.
+     * @throws SQLException if a database error occurs.
+     */
+    public Map<Integer, String> getClassNames() throws SQLException {
+        return REFERENCE_CACHE.getClassNames();
     }
 
     /**
@@ -595,6 +1739,40 @@ public class DB {
         }
     }
 
+    /**
+     * Counts the payment records of a student.
+     *
+     * @param studentId The ID of the student.
+     * @return The number of payments recorded for that student.
+     * @throws SQLException if a database error occurs.
+     */
+    public int countPaymentsForStudent(int studentId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM student_payments WHERE student_id = ?";
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Counts the number of teacher assignments for a specific subject.
+     *
+     * @param subjectId The ID of the subject.
+     * @return The number of assignments for that subject.
+     * @throws SQLException if a database error occurs.
+     */
+    public int countAssignmentsForSubject(int subjectId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM teacher_assignments WHERE subject_id = ?";
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, subjectId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
     /**
      * Counts the number of teacher assignments for a specific class.
      *
@@ -666,12 +1844,16 @@ public class DB {
      */
     public void addTeacherAssignment(int teacherId, int subjectId, int classLevel) throws SQLException {
         String sql = "INSERT INTO teacher_assignments(teacher_id, subject_id, class_level) VALUES (?, ?, ?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setInt(1, teacherId);
-            pstmt.setInt(2, subjectId);
-            pstmt.setInt(3, classLevel);
-            pstmt.executeUpdate();
-        }
+        int id = DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, teacherId);
+                pstmt.setInt(2, subjectId);
+                pstmt.setInt(3, classLevel);
+                pstmt.executeUpdate();
+                return generatedKey(pstmt);
+            }
+        });
+        ChangeBus.publish(ChangeEvent.Entity.ASSIGNMENT, id, ChangeEvent.Operation.INSERT);
     }
 
     /**
@@ -682,10 +1864,14 @@ public class DB {
      */
     public void deleteTeacherAssignment(int assignmentId) throws SQLException {
         String sql = "DELETE FROM teacher_assignments WHERE assignment_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setInt(1, assignmentId);
-            pstmt.executeUpdate();
-        }
+        DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                pstmt.setInt(1, assignmentId);
+                pstmt.executeUpdate();
+            }
+            return null;
+        });
+        ChangeBus.publish(ChangeEvent.Entity.ASSIGNMENT, assignmentId, ChangeEvent.Operation.DELETE);
     }
 
     /**
@@ -769,7 +1955,8 @@ public class DB {
     }
 
     /**
-     * Maps a row from a ResultSet to a Student object.
+     * Maps a row from a ResultSet to a Student object. The profile picture is
+     * not read; it is left {@code null}.
      * 
      * @param rs The ResultSet to map from.
      * @return A new Student object.
@@ -784,12 +1971,12 @@ public class DB {
         student.setGender(rs.getString("std_gender"));
         student.setDateOfBirth(rs.getString("std_dob"));
         student.setLevel(rs.getInt("std_class"));
-        student.setProfilePic(rs.getBytes("profile_pic"));
         return student;
     }
 
     /**
-     * Maps a row from a ResultSet to a Teacher object.
+     * Maps a row from a ResultSet to a Teacher object. The profile picture is
+     * not read; it is left {@code null}.
      * 
      * @param rs The ResultSet to map from.
      * @return A new Teacher object.
@@ -803,10 +1990,48 @@ public class DB {
         teacher.setGender(rs.getString("tch_gender"));
         teacher.setAddress(rs.getString("tch_address"));
         teacher.setEmail(rs.getString("tch_email"));
-        teacher.setProfilePic(rs.getBytes("profile_pic"));
         return teacher;
     }
 
+    /**
+     * Loads the profile picture of a single student.
+     * 
+     * @param studentId The ID of the student.
+     * @return The image bytes, or null if the student has no picture.
+     * @throws SQLException if a database error occurs.
+     */
+    public byte[] loadStudentProfilePicture(int studentId) throws SQLException {
+        return loadProfilePicture("SELECT profile_pic FROM students WHERE std_id = ?", studentId);
+    }
+
+    /**
+     * Loads the profile picture of a single teacher.
+     * 
+     * @param teacherId The ID of the teacher.
+     * @return The image bytes, or null if the teacher has no picture.
+     * @throws SQLException if a database error occurs.
+     */
+    public byte[] loadTeacherProfilePicture(int teacherId) throws SQLException {
+        return loadProfilePicture("SELECT profile_pic FROM teachers WHERE tch_id = ?", teacherId);
+    }
+
+    /**
+     * Runs a single-row picture query.
+     * 
+     * @param sql The query selecting {@code profile_pic} by id.
+     * @param id  The row id.
+     * @return The image bytes, or null if there is no picture or no row.
+     * @throws SQLException if a database error occurs.
+     */
+    private byte[] loadProfilePicture(String sql, int id) throws SQLException {
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getBytes("profile_pic") : null;
+            }
+        }
+    }
+
     /**
      * Maps a row from a ResultSet to a TeacherAssignment object.
      * 
@@ -826,31 +2051,57 @@ public class DB {
     }
 
     /**
-     * Deletes a teacher
+     * Deletes a teacher together with their subject assignments, which the
+     * foreign key on {@code teacher_assignments} would otherwise reject.
      * 
      * @param teacher the teacher to delete
      * @throws SQLException if a database access error occurs.
      */
     public void deleteTch(Teacher teacher) throws SQLException {
-        try (Connection con = DataSource.getConnection();
-                PreparedStatement stmt = con.prepareStatement("DELETE FROM teachers Where tch_id = ?")) {
-            stmt.setInt(1, teacher.getId());
-            stmt.executeUpdate();
-        }
+        deleteWithDependents(teacher.getId(),
+                "DELETE FROM teacher_assignments WHERE teacher_id = ?",
+                "DELETE FROM teachers WHERE tch_id = ?");
+        ChangeBus.publish(new ChangeEvent(ChangeEvent.Entity.TEACHER, teacher.getId(), ChangeEvent.Operation.DELETE),
+                new ChangeEvent(ChangeEvent.Entity.ASSIGNMENT, ChangeEvent.ALL, ChangeEvent.Operation.DELETE));
     }
 
     /**
-     * Deletes a student
+     * Deletes a student together with their attendance records, which the
+     * foreign key on {@code student_attendance} would otherwise reject. Payment
+     * records are never deleted: a student who has any is rejected by the
+     * foreign key on {@code student_payments} (see
+     * {@link #countPaymentsForStudent(int)}).
      * 
      * @param student the student to delete
-     * @throws SQLException if a database access error occurs.
+     * @throws SQLException if a database access error occurs, or the student
+     *                      has payment records.
      */
     public void deleteStd(Student student) throws SQLException {
-        try (Connection con = DataSource.getConnection();
-                PreparedStatement stmt = con.prepareStatement("DELETE FROM students WHERE std_id = ?")) {
-            stmt.setInt(1, student.getId());
-            stmt.executeUpdate();
-        }
+        deleteWithDependents(student.getId(),
+                "DELETE FROM student_attendance WHERE student_id = ?",
+                "DELETE FROM students WHERE std_id = ?");
+        ChangeBus.publish(new ChangeEvent(ChangeEvent.Entity.STUDENT, student.getId(), ChangeEvent.Operation.DELETE),
+                new ChangeEvent(ChangeEvent.Entity.ATTENDANCE, ChangeEvent.ALL, ChangeEvent.Operation.DELETE));
+    }
+
+    /**
+     * Runs a series of single-parameter DELETE statements in one transaction,
+     * children first.
+     * 
+     * @param id         the id bound to every statement
+     * @param statements the DELETE statements, in order
+     * @throws SQLException if a database access error occurs.
+     */
+    private void deleteWithDependents(int id, String... statements) throws SQLException {
+        DataSource.write(con -> {
+            for (String sql : statements) {
+                try (PreparedStatement stmt = con.prepareStatement(sql)) {
+                    stmt.setInt(1, id);
+                    stmt.executeUpdate();
+                }
+            }
+            return null;
+        });
     }
 
     /**
@@ -862,7 +2113,7 @@ public class DB {
      */
     public List<Student> getStudentsByClass(int classLevel) throws SQLException {
         List<Student> results = new ArrayList<>();
-        String sql = "SELECT * FROM students WHERE std_class = ?";
+        String sql = "SELECT " + STUDENT_COLUMNS + " FROM students WHERE std_class = ?";
         try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
             pstmt.setInt(1, classLevel);
             ResultSet rs = pstmt.executeQuery();
@@ -874,44 +2125,74 @@ public class DB {
     }
 
     /**
-     * Saves a list of student attendance records to the database. It first deletes
-     * any existing records for that day to prevent duplicates.
+     * Saves attendance records, inserting a row for a student and day that has
+     * none and updating the status of one that does. Records are matched on the
+     * unique (student, day) key, so saving the same day twice never creates
+     * duplicates; rows whose status is unchanged are not rewritten.
      * 
-     * @param records The list of attendance records to save.
+     * @param records The attendance records to save; callers should pass only
+     *                new or changed records.
      * @throws SQLException if a database error occurs.
      */
     public void saveAttendance(List<AttendanceRecord> records) throws SQLException {
         if (records.isEmpty()) {
             return;
         }
-        String deleteSql = "DELETE FROM student_attendance WHERE student_id = ? AND attendance_date = ?";
-        String insertSql = "INSERT INTO student_attendance(student_id, attendance_date, status) VALUES(?, ?, ?)";
-
-        try (Connection con = DataSource.getConnection()) {
-            con.setAutoCommit(false); // Start transaction
-            try (PreparedStatement deletePstmt = con.prepareStatement(deleteSql);
-                    PreparedStatement insertPstmt = con.prepareStatement(insertSql)) {
+        String upsertSql = SqlDialect.current().upsert("student_attendance",
+                new String[] { "student_id", "attendance_date", "status" },
+                new String[] { "student_id", "attendance_date" }, new String[] { "status" });
 
+        // One write transaction: either every record is saved or none is
+        DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(upsertSql)) {
                 for (AttendanceRecord record : records) {
-                    // Delete existing record for the student on the same day
-                    deletePstmt.setInt(1, record.getStudentId());
-                    deletePstmt.setDate(2, new Date(record.getAttendanceDate().getTime()));
-                    deletePstmt.addBatch();
-
-                    // Insert new record
-                    insertPstmt.setInt(1, record.getStudentId());
-                    insertPstmt.setDate(2, new Date(record.getAttendanceDate().getTime()));
-                    insertPstmt.setString(3, record.getStatus());
-                    insertPstmt.addBatch();
+                    pstmt.setInt(1, record.getStudentId());
+                    pstmt.setDate(2, attendanceDay(record.getAttendanceDate()));
+                    pstmt.setString(3, record.getStatus());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            return null;
+        });
+        ChangeBus.publish(ChangeEvent.Entity.ATTENDANCE, ChangeEvent.ALL, ChangeEvent.Operation.UPDATE);
+    }
+
+    /**
+     * Loads the saved attendance of a class for one day.
+     * 
+     * @param classLevel The class ID.
+     * @param date       Any time on the day.
+     * @return The saved status of each student who has one, by student ID.
+     * @throws SQLException if a database error occurs.
+     */
+    public Map<Integer, String> getAttendanceForClass(int classLevel, java.util.Date date) throws SQLException {
+        Map<Integer, String> statuses = new HashMap<>();
+        String sql = "SELECT a.student_id, a.status FROM students s"
+                + " JOIN student_attendance a ON a.student_id = s.std_id AND a.attendance_date = ?"
+                + " WHERE s.std_class = ?";
+        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setDate(1, attendanceDay(date));
+            pstmt.setInt(2, classLevel);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    statuses.put(rs.getInt("student_id"), rs.getString("status"));
                 }
-                deletePstmt.executeBatch();
-                insertPstmt.executeBatch();
-                con.commit(); // Commit transaction
-            } catch (SQLException e) {
-                con.rollback(); // Rollback on error
-                throw e;
             }
         }
+        return statuses;
+    }
+
+    /**
+     * Converts a point in time to the attendance day it falls on: local midnight.
+     * Attendance is keyed by day, so the time of day the date picker happened to
+     * carry must not be stored.
+     * 
+     * @param date Any time on the day.
+     * @return Midnight at the start of that day, in the local time zone.
+     */
+    private static Date attendanceDay(java.util.Date date) {
+        return Date.valueOf(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate());
     }
 
     /**
@@ -949,46 +2230,36 @@ public class DB {
      */
     public void addStudentPayment(Payment payment) throws SQLException {
         String sql = "INSERT INTO student_payments(student_id, amount_paid, payment_date, term, academic_year) VALUES (?, ?, ?, ?, ?)";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setInt(1, payment.getStudentId());
-            pstmt.setDouble(2, payment.getAmountPaid());
-            pstmt.setDate(3, new java.sql.Date(payment.getPaymentDate().getTime()));
-            pstmt.setString(4, payment.getTerm());
-            pstmt.setInt(5, payment.getAcademicYear());
-            pstmt.executeUpdate();
-        }
+        int id = DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, payment.getStudentId());
+                pstmt.setDouble(2, payment.getAmountPaid());
+                pstmt.setDate(3, new java.sql.Date(payment.getPaymentDate().getTime()));
+                pstmt.setString(4, payment.getTerm());
+                pstmt.setInt(5, payment.getAcademicYear());
+                pstmt.executeUpdate();
+                return generatedKey(pstmt);
+            }
+        });
+        ChangeBus.publish(ChangeEvent.Entity.PAYMENT, id, ChangeEvent.Operation.INSERT);
     }
 
     /**
-     * Retrieves key statistics for the dashboard from the database.
+     * Retrieves key statistics for the dashboard from the database. The totals
+     * come from the trigger-maintained summary row in a single lookup.
      * 
      * @return A DashboardStats object containing the calculated statistics.
      * @throws SQLException if a database access error occurs.
      */
     public DashboardStats getDashboardStats() throws SQLException {
         DashboardStats stats = new DashboardStats();
-        String studentCountSql = "SELECT COUNT(*) FROM students";
-        String teacherCountSql = "SELECT COUNT(*) FROM teachers";
-        String feesSumSql = "SELECT SUM(amount_paid) FROM student_payments";
 
-        try (Connection con = DataSource.getConnection(); Statement stmt = con.createStatement()) {
-
-            try (ResultSet rs = stmt.executeQuery(studentCountSql)) {
-                if (rs.next()) {
-                    stats.setTotalStudents(rs.getInt(1));
-                }
-            }
-
-            try (ResultSet rs = stmt.executeQuery(teacherCountSql)) {
-                if (rs.next()) {
-                    stats.setTotalTeachers(rs.getInt(1));
-                }
-            }
-
-            try (ResultSet rs = stmt.executeQuery(feesSumSql)) {
-                if (rs.next()) {
-                    stats.setTotalFeesCollected(rs.getDouble(1));
-                }
+        try (Connection con = DataSource.getConnection(); Statement stmt = con.createStatement();
+                ResultSet rs = stmt.executeQuery(DashboardSummary.query())) {
+            if (rs.next()) {
+                stats.setTotalStudents(rs.getInt("total_students"));
+                stats.setTotalTeachers(rs.getInt("total_teachers"));
+                stats.setTotalFeesCollected(rs.getDouble("total_fees"));
             }
         }
         return stats;
@@ -1054,7 +2325,8 @@ public class DB {
      */
     public Map<String, Double> getFeesCollectedPerMonth() throws SQLException {
         Map<String, Double> monthlyFees = new LinkedHashMap<>(); // Use LinkedHashMap to maintain order
-        String sql = "SELECT strftime('%Y-%m', payment_date) as month, SUM(amount_paid) as total_fees FROM student_payments GROUP BY month ORDER BY month";
+        String sql = "SELECT " + SqlDialect.current().monthBucket("payment_date")
+                + " as month, SUM(amount_paid) as total_fees FROM student_payments GROUP BY month ORDER BY month";
         try (Connection con = DataSource.getConnection();
                 Statement stmt = con.createStatement();
                 ResultSet rs = stmt.executeQuery(sql)) {
@@ -1099,21 +2371,30 @@ public class DB {
         // If password is provided, update it. Otherwise, only update name and username.
         if (admin.getPassword() != null && !admin.getPassword().isEmpty()) {
             String sql = "UPDATE admin SET adm_name = ?, adm_username = ?, password = ? WHERE adm_id = ?";
-            try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-                pstmt.setString(1, admin.getName());
-                pstmt.setString(2, admin.getUserName());
-                pstmt.setString(3, PasswordUtil.hashPassword(admin.getPassword()));
-                pstmt.setInt(4, admin.getId());
-                pstmt.executeUpdate();
-            }
+            String hashedPassword = PasswordUtil.hashPassword(admin.getPassword());
+            DataSource.write(con -> {
+                try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                    pstmt.setString(1, admin.getName());
+                    pstmt.setString(2, admin.getUserName());
+                    pstmt.setString(3, hashedPassword);
+                    pstmt.setInt(4, admin.getId());
+                    pstmt.executeUpdate();
+                }
+                return null;
+            });
+            ChangeBus.publish(ChangeEvent.Entity.ADMIN, admin.getId(), ChangeEvent.Operation.UPDATE);
         } else {
             String sql = "UPDATE admin SET adm_name = ?, adm_username = ? WHERE adm_id = ?";
-            try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-                pstmt.setString(1, admin.getName());
-                pstmt.setString(2, admin.getUserName());
-                pstmt.setInt(3, admin.getId());
-                pstmt.executeUpdate();
-            }
+            DataSource.write(con -> {
+                try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                    pstmt.setString(1, admin.getName());
+                    pstmt.setString(2, admin.getUserName());
+                    pstmt.setInt(3, admin.getId());
+                    pstmt.executeUpdate();
+                }
+                return null;
+            });
+            ChangeBus.publish(ChangeEvent.Entity.ADMIN, admin.getId(), ChangeEvent.Operation.UPDATE);
         }
     }
 
@@ -1127,19 +2408,21 @@ public class DB {
     public void deleteAdmin(int adminId) throws SQLException, IllegalStateException {
         // As a safeguard, don't allow deleting the last admin.
         String countSql = "SELECT COUNT(*) FROM admin";
-        try (Connection con = DataSource.getConnection();
-                Statement stmt = con.createStatement();
-                ResultSet rs = stmt.executeQuery(countSql)) {
-            if (rs.next() && rs.getInt(1) <= 1) {
-                throw new IllegalStateException("Cannot delete the last administrator.");
-            }
-        }
-
         String sql = "DELETE FROM admin WHERE adm_id = ?";
-        try (Connection con = DataSource.getConnection(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setInt(1, adminId);
-            pstmt.executeUpdate();
-        }
+        // Count and delete in the same write so two deletes cannot both pass the check
+        DataSource.write(con -> {
+            try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(countSql)) {
+                if (rs.next() && rs.getInt(1) <= 1) {
+                    throw new IllegalStateException("Cannot delete the last administrator.");
+                }
+            }
+            try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+                pstmt.setInt(1, adminId);
+                pstmt.executeUpdate();
+            }
+            return null;
+        });
+        ChangeBus.publish(ChangeEvent.Entity.ADMIN, adminId, ChangeEvent.Operation.DELETE);
     }
 
     /**
@@ -1182,6 +2465,72 @@ public class DB {
         }
     }
 
+    /**
+     * Prepares existing attendance data for the unique (student, day) key.
+     * Older versions stored the time of day with each date and re-inserted a row
+     * on every save, so a student could have several rows for one day. This
+     * keeps the newest row for each student and day, moves every date to local
+     * midnight and drops the old non-unique index; {@link SchemaIndexes} then
+     * creates the unique key. Runs only while that key is missing.
+     * 
+     * @param con The database connection.
+     * @throws SQLException if a database error occurs.
+     */
+    private static void migrateAttendanceKey(Connection con) throws SQLException {
+        if (SchemaIndexes.indexExists(con, "student_attendance", SchemaIndexes.ATTENDANCE_KEY)) {
+            return;
+        }
+        Map<String, Integer> newest = new HashMap<>();
+        List<Integer> duplicates = new ArrayList<>();
+        Map<Integer, Date> moved = new HashMap<>();
+        String selectSql = "SELECT attendance_id, student_id, attendance_date FROM student_attendance"
+                + " ORDER BY attendance_id DESC";
+        try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(selectSql)) {
+            while (rs.next()) {
+                int id = rs.getInt("attendance_id");
+                Date stored = rs.getDate("attendance_date");
+                Date day = attendanceDay(stored);
+                if (newest.putIfAbsent(rs.getInt("student_id") + ":" + day, id) != null) {
+                    duplicates.add(id);
+                } else if (stored.getTime() != day.getTime()) {
+                    moved.put(id, day);
+                }
+            }
+        }
+
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try (PreparedStatement deletePstmt = con.prepareStatement("DELETE FROM student_attendance WHERE attendance_id = ?");
+                PreparedStatement updatePstmt = con
+                        .prepareStatement("UPDATE student_attendance SET attendance_date = ? WHERE attendance_id = ?");
+                Statement stmt = con.createStatement()) {
+            for (int id : duplicates) {
+                deletePstmt.setInt(1, id);
+                deletePstmt.addBatch();
+            }
+            deletePstmt.executeBatch();
+            for (Map.Entry<Integer, Date> entry : moved.entrySet()) {
+                updatePstmt.setDate(1, entry.getValue());
+                updatePstmt.setInt(2, entry.getKey());
+                updatePstmt.addBatch();
+            }
+            updatePstmt.executeBatch();
+            if (SchemaIndexes.indexExists(con, "student_attendance", "idx_attendance_student_date")) {
+                stmt.execute(SqlDialect.current().dropIndex("student_attendance", "idx_attendance_student_date"));
+            }
+            con.commit();
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+        if (!duplicates.isEmpty() || !moved.isEmpty()) {
+            System.out.println("Attendance migration: removed " + duplicates.size() + " duplicate row(s), normalised "
+                    + moved.size() + " date(s).");
+        }
+    }
+
     /**
      * Migrates any plain-text passwords in the admin table to BCrypt hashes. This
      * is a one-time operation. It identifies plain-text passwords by checking if
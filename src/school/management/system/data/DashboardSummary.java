@@ -0,0 +1,167 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The one-row {@code dashboard_summary} table holding the dashboard headline
+ * numbers: total students, total teachers and total fees collected.
+ * {@link DB#setup()} calls {@link #ensureSchema(Connection)} after the tables
+ * exist.
+ * <p>
+ * The row is kept current by triggers on {@code students}, {@code teachers}
+ * and {@code student_payments}, which run in the same transaction as the write
+ * that fires them. Every write path (forms, imports, deletes, the MySQL
+ * migration) is therefore covered, and reading the dashboard is a single
+ * primary-key lookup however many payments there are. The row is filled from
+ * full aggregates only when it is first created.
+ * </p>
+ * <p>
+ * If the triggers cannot be created (for example a MySQL account without the
+ * TRIGGER privilege), {@link #SELECT_SQL} is replaced by {@link #FALLBACK_SQL},
+ * which computes the same three numbers in one query. Whenever a trigger had
+ * to be created, the row is rebuilt from full aggregates, since writes made
+ * while it was missing were not counted.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class DashboardSummary {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(DashboardSummary.class.getName());
+
+    /** Reads the summary row. */
+    static final String SELECT_SQL = "SELECT total_students, total_teachers, total_fees FROM dashboard_summary"
+            + " WHERE id = 1";
+
+    /** Computes the same columns from the base tables. */
+    static final String FALLBACK_SQL = "SELECT (SELECT COUNT(*) FROM students) AS total_students,"
+            + " (SELECT COUNT(*) FROM teachers) AS total_teachers,"
+            + " (SELECT COALESCE(SUM(amount_paid), 0) FROM student_payments) AS total_fees";
+
+    /** The summary table; the CHECK keeps it to a single row. */
+    private static final String TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS dashboard_summary (
+              id integer PRIMARY KEY CHECK (id = 1),
+              total_students integer NOT NULL,
+              total_teachers integer NOT NULL,
+              total_fees real NOT NULL
+            );
+            """;
+
+    /** Trigger name, table, event and the summary update it performs. */
+    private static final String[][] TRIGGERS = {
+            { "summary_students_ai", "students", "AFTER INSERT", "total_students = total_students + 1" },
+            { "summary_students_ad", "students", "AFTER DELETE", "total_students = total_students - 1" },
+            { "summary_teachers_ai", "teachers", "AFTER INSERT", "total_teachers = total_teachers + 1" },
+            { "summary_teachers_ad", "teachers", "AFTER DELETE", "total_teachers = total_teachers - 1" },
+            { "summary_payments_ai", "student_payments", "AFTER INSERT",
+                    "total_fees = total_fees + COALESCE(NEW.amount_paid, 0)" },
+            { "summary_payments_ad", "student_payments", "AFTER DELETE",
+                    "total_fees = total_fees - COALESCE(OLD.amount_paid, 0)" },
+            { "summary_payments_au", "student_payments", "AFTER UPDATE",
+                    "total_fees = total_fees - COALESCE(OLD.amount_paid, 0) + COALESCE(NEW.amount_paid, 0)" } };
+
+    /** Whether the summary row is maintained; set by {@link #ensureSchema(Connection)}. */
+    private static volatile boolean available;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private DashboardSummary() {
+    }
+
+    /**
+     * Creates the summary table and its triggers if they are missing, and fills
+     * the row the first time or whenever a trigger was missing. A failure is
+     * logged and leaves the dashboard on {@link #FALLBACK_SQL}.
+     *
+     * @param con an open connection, in auto-commit mode
+     */
+    public static void ensureSchema(Connection con) {
+        List<String> created = new ArrayList<>();
+        try {
+            con.setAutoCommit(false);
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute(TABLE_SQL);
+                // On SQLite the triggers and the row commit together, so no write can fall in between. On MySQL
+                // each CREATE TRIGGER commits on its own and the rollback below cannot undo it.
+                for (String[] trigger : TRIGGERS) {
+                    if (SqlDialect.current().createTrigger(con, stmt, trigger[0], trigger[2], trigger[1],
+                            "UPDATE dashboard_summary SET " + trigger[3] + " WHERE id = 1")) {
+                        created.add(trigger[0]);
+                    }
+                }
+                if (!created.isEmpty()) {
+                    // Writes made while a trigger was missing are not in the row; rebuild it.
+                    stmt.executeUpdate("DELETE FROM dashboard_summary");
+                }
+                if (!rowExists(stmt)) {
+                    stmt.executeUpdate("INSERT INTO dashboard_summary (id, total_students, total_teachers, total_fees)"
+                            + " SELECT 1, total_students, total_teachers, total_fees FROM (" + FALLBACK_SQL + ") t");
+                    LOGGER.log(Level.INFO, "Initialised the dashboard summary");
+                }
+                con.commit();
+                available = true;
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            available = false;
+            dropTriggers(con, created);
+            LOGGER.log(Level.WARNING, "Dashboard summary unavailable; computing totals on demand", e);
+        }
+    }
+
+    /**
+     * Drops the triggers a failed {@link #ensureSchema(Connection)} created,
+     * which MySQL has already committed, so the next start creates them again
+     * and rebuilds the row. On SQLite they were rolled back and this does
+     * nothing.
+     *
+     * @param con   the connection, in auto-commit mode
+     * @param names the triggers to drop
+     */
+    private static void dropTriggers(Connection con, List<String> names) {
+        try (Statement stmt = con.createStatement()) {
+            for (String name : names) {
+                stmt.execute("DROP TRIGGER IF EXISTS " + name);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not drop the dashboard summary triggers", e);
+        }
+    }
+
+    /**
+     * Returns the query that reads the dashboard totals.
+     *
+     * @return {@link #SELECT_SQL} if the summary is maintained, otherwise
+     *         {@link #FALLBACK_SQL}
+     */
+    static String query() {
+        return available ? SELECT_SQL : FALLBACK_SQL;
+    }
+
+    /**
+     * Checks whether the summary row exists.
+     *
+     * @param stmt a statement on the connection
+     * @return {@code true} if it does
+     * @throws SQLException if the query fails
+     */
+    private static boolean rowExists(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM dashboard_summary WHERE id = 1")) {
+            return rs.next();
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package school.management.system.data;
 
+import java.awt.Cursor;
 import java.awt.event.ActionEvent;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 
 import school.management.system.util.IconUtils;
 import school.management.system.util.StringUtils;
 import school.management.system.App;
 import school.management.system.ui.DashboardPanel;
+import school.management.system.ui.PagedTableModel;
 import school.management.system.model.DashboardStats;
 import school.management.system.model.SchoolClass;
 import school.management.system.model.student.AttendanceRecord;
@@ -27,16 +39,67 @@ import school.management.system.ui.UIManager;
 /**
  * Handles business logic for data operations like searching, deleting, and
  * fetching.
+ * <p>
+ * The blocking methods must not be called on the Event Dispatch Thread. UI code
+ * goes through {@link #supplyAsync(DbCall)}, which runs a call on a virtual
+ * thread, or {@link #callAsync(DbCall, Consumer, Consumer)} and
+ * {@link #runAsync(DbAction, Consumer)}, which also hand the result or the
+ * failure back to the Event Dispatch Thread.
+ * </p>
  * @author Ibn Issah
  */
 public class DataService {
 
+    /** The most results a search returns. */
+    private static final int SEARCH_LIMIT = 500;
+    /** Seconds a search query may run before the database abandons it. */
+    private static final int SEARCH_TIMEOUT_SECONDS = 15;
+
+    /**
+     * Runs database calls in the background, one virtual thread per call. A call
+     * blocked on JDBC parks its virtual thread instead of holding a platform
+     * thread, so independent queries can simply be started together.
+     */
+    private static final ExecutorService DB_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Runs completion handlers on the Event Dispatch Thread. */
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    /**
+     * A database call that may throw a checked exception.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface DbCall<T> {
+        /**
+         * Performs the call.
+         *
+         * @return the result
+         * @throws Exception if the call fails
+         */
+        T call() throws Exception;
+    }
+
+    /** A database call without a result, typically a write. */
+    @FunctionalInterface
+    public interface DbAction {
+        /**
+         * Performs the call.
+         *
+         * @throws Exception if the call fails
+         */
+        void run() throws Exception;
+    }
+
     /** The main application instance. */
     private final App app;
     /** The database access object. */
     private final DB db;
     /** The UI manager for handling dialogs and progress. */
     private final UIManager uiManager;
+    /** Searches; starting one cancels the query of the previous one. */
+    private final QueryLane searchLane = new QueryLane(SEARCH_TIMEOUT_SECONDS);
 
     /**
      * Constructor for DataService.
@@ -52,54 +115,143 @@ public class DataService {
     }
 
     /**
-     * Fetches all data and refreshes the UI tables.
+     * runs a database call on a virtual thread
+     * @param <T> the type of the result
+     * @param call the call; it must not touch Swing components
+     * @return a future completed, off the EDT, with the result or the failure
      */
-    public void fetchData() {
-        app.getSchoolPanel().getTchMod().setNumRows(0);
-        app.getSchoolPanel().getStdMod().setNumRows(0);
-
-        try {
-            List<Student> students = db.fetchAllStudents();
-            List<Teacher> teachers = db.fetchAllTeachers();
-
-            int studentRowNum = 1;
-            for (Student s : students) {
-                // Fetch the class name using the ID from the student object
-                String className = getClassName(s.getLevel());
-                app.getSchoolPanel().getStdMod()
-                        .addRow(new Object[] { studentRowNum++, s.getId(), s.getFirstName(), s.getMiddleName(),
-                                s.getLastName(), s.getGender(), s.getDateOfBirth(), className, s.getProfilePic() });
+    public <T> CompletableFuture<T> supplyAsync(DbCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
             }
+        }, DB_EXECUTOR);
+    }
 
-            if (students.isEmpty()) {
-                app.getSchoolPanel().getStdMod().setRowCount(0);
+    /**
+     * runs a database call on a virtual thread and hands the outcome to the EDT
+     * @param <T> the type of the result
+     * @param call the call; it must not touch Swing components
+     * @param onSuccess receives the result on the EDT
+     * @param onError receives the failure on the EDT
+     * @return a future completed after the handler has run
+     */
+    public <T> CompletableFuture<T> callAsync(DbCall<T> call, Consumer<? super T> onSuccess,
+            Consumer<Exception> onError) {
+        return supplyAsync(call).whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onError.accept(unwrap(error));
             }
+        }, EDT);
+    }
 
-            int teacherRowNum = 1;
-            for (Teacher t : teachers) {
-                app.getSchoolPanel().getTchMod().addRow(new Object[] { teacherRowNum++, t.getId(), t.getName(),
-                        t.getContact(), t.getGender(), t.getAddress(), t.getEmail(), t.getProfilePic() });
-            }
+    /**
+     * runs a database write on a virtual thread and reports a failure on the EDT;
+     * panels pick up the change itself from its {@link ChangeBus} event
+     * @param action the write; it must not touch Swing components
+     * @param onError receives the failure on the EDT
+     * @return a future completed after the write and any error handler
+     */
+    public CompletableFuture<Void> runAsync(DbAction action, Consumer<Exception> onError) {
+        return callAsync(() -> {
+            action.run();
+            return null;
+        }, ignored -> {
+        }, onError);
+    }
 
-            if (teachers.isEmpty()) {
-                app.getSchoolPanel().getTchMod().setRowCount(0);
-            }
+    /**
+     * Returns the exception behind a future's failure.
+     *
+     * @param error the failure as seen by a completion handler
+     * @return the original exception
+     */
+    public static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception e ? e : new Exception(cause);
+    }
+
+    /**
+     * runs several database calls as one transaction on one connection; their
+     * writes commit together and their change events are published after the
+     * commit. see {@link UnitOfWork#inTransaction(SqlWork)}
+     * @param <T> the type of the result
+     * @param call the calls, made on the calling thread
+     * @return the result of the call
+     * @throws Exception if a call or the commit fails
+     */
+    public <T> T inTransaction(DbCall<T> call) throws Exception {
+        return UnitOfWork.inTransaction(con -> callAsSql(call));
+    }
 
-            // Refresh other panels that depend on this data
-            app.getSchoolPanel().getSubjectsPanel().refreshSubjects();
-            app.getSchoolPanel().getAssignmentsPanel().refreshPanel();
-            app.getSchoolPanel().getClassesPanel().refreshClasses();
+    /**
+     * runs several reads against one consistent snapshot on one connection. see
+     * {@link UnitOfWork#readConsistent(SqlWork)}
+     * @param <T> the type of the result
+     * @param call the reads, made on the calling thread
+     * @return the result of the call
+     * @throws Exception if a read fails
+     */
+    public <T> T readConsistent(DbCall<T> call) throws Exception {
+        return UnitOfWork.readConsistent(con -> callAsSql(call));
+    }
 
-            if (app.getSchoolPanel().getTabPane().getSelectedComponent() instanceof DashboardPanel) {
-                ((DashboardPanel) app.getSchoolPanel().getTabPane().getSelectedComponent()).refreshCharts();
+    /**
+     * Makes a call inside {@link SqlWork}, which may only throw SQLException;
+     * other checked exceptions are wrapped.
+     *
+     * @param <T>  the type of the result
+     * @param call the call
+     * @return its result
+     * @throws SQLException if the call fails
+     */
+    private static <T> T callAsSql(DbCall<T> call) throws SQLException {
+        try {
+            return call.call();
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fetches all data and refreshes the UI tables.
+     */
+    public void fetchData() {
+        // The student and teacher tables load their rows page by page on demand;
+        // when already showing everything, only the differences are applied.
+        for (PagedTableModel<?> model : List.of(app.getSchoolPanel().getStdMod(), app.getSchoolPanel().getTchMod())) {
+            if (model.isShowingIds()) {
+                model.reload();
+            } else {
+                model.refresh();
             }
-        } catch (SQLException e) {
-            uiManager.showErrorDialog("Data Fetch Error", "Could not load data from the database.", e);
+        }
+
+        // Refresh other panels that depend on this data
+        app.getSchoolPanel().getSubjectsPanel().refreshSubjects();
+        app.getSchoolPanel().getAssignmentsPanel().refreshPanel();
+        app.getSchoolPanel().getClassesPanel().refreshClasses();
+
+        if (app.getSchoolPanel().getTabPane().getSelectedComponent() instanceof DashboardPanel) {
+            ((DashboardPanel) app.getSchoolPanel().getTabPane().getSelectedComponent()).refreshCharts();
         }
     }
 
     /**
-     * Generic method to show a search dialog and display results.
+     * Generic method to show a search dialog and display results. The search
+     * runs in the background with a result limit and a query timeout, and
+     * starting another search cancels it.
      * 
      * @param itemType        The type of item being searched (e.g., "Student", "Teacher").
      * @param searchOptions   The search options to present to the user.
@@ -118,29 +270,31 @@ public class DataService {
             return; // User cancelled or entered nothing
         }
 
-        SwingWorker<List<T>, Integer> worker = new SwingWorker<>() {
-            @Override
-            protected List<T> doInBackground() throws Exception {
-                return dbSearchFunction.apply(searchTerm, options.getSelectedIndex());
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    List<T> results = get();
-                    if (results.isEmpty()) {
+        // No modal progress dialog: the window stays usable, and a new search
+        // cancels this one's query if it is still running.
+        int option = options.getSelectedIndex();
+        QueryLane.Ticket ticket = searchLane.next();
+        app.getWin().setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        supplyAsync(() -> ticket.run(() -> dbSearchFunction.apply(searchTerm, option))).whenCompleteAsync(
+                (results, error) -> {
+                    if (ticket.isCancelled()) {
+                        return; // Superseded; the newer search reports instead
+                    }
+                    app.getWin().setCursor(null);
+                    if (error != null) {
+                        Exception ex = unwrap(error);
+                        boolean timedOut = ex instanceof SQLTimeoutException
+                                || ex.getCause() instanceof SQLTimeoutException;
+                        uiManager.showErrorDialog("Search Error", timedOut
+                                ? "The search took too long. Try a longer or more specific term."
+                                : "An error occurred while searching for the " + itemType + ".", ex);
+                    } else if (results.isEmpty()) {
                         JOptionPane.showMessageDialog(app.getWin(), itemType.toUpperCase() + " NOT FOUND",
                                 "Search " + itemType, JOptionPane.ERROR_MESSAGE);
                     } else {
                         uiUpdater.accept(results);
                     }
-                } catch (Exception ex) {
-                    uiManager.showErrorDialog("Search Error",
-                            "An error occurred while searching for the " + itemType + ".", ex);
-                }
-            }
-        };
-        uiManager.startProgress(worker, "Searching", "Searching through " + itemType.toLowerCase() + "s");
+                }, EDT);
     }
 
     /**
@@ -148,27 +302,20 @@ public class DataService {
      * @param e the ActionEvent triggering the search
      */
     public void searchStudent(ActionEvent e) {
-        String[] searchOptions = { "Id", "First Name", "Last Name" };
+        String[] searchOptions = { "Any Field", "Id", "First Name", "Last Name" };
 
+        // "Any Field" uses the full-text index; the others map to DB.searchStudent options.
         BiFunction<String, Integer, List<Student>> dbSearchFunction = (term, option) -> {
             try {
-                return db.searchStudent(term, option);
+                return option == 0 ? db.fullTextSearchStudents(term, SEARCH_LIMIT)
+                        : db.searchStudent(term, option - 1, SEARCH_LIMIT);
             } catch (SQLException ex) {
                 throw new RuntimeException(ex);
             }
         };
 
-        Consumer<List<Student>> uiUpdater = students -> {
-            app.getSchoolPanel().getStdMod().setNumRows(0);
-            int rowNum = 1;
-
-            for (Student s : students) {
-                String className = getClassName(s.getLevel());
-                app.getSchoolPanel().getStdMod()
-                        .addRow(new Object[] { rowNum++, s.getId(), s.getFirstName(), s.getMiddleName(),
-                                s.getLastName(), s.getGender(), s.getDateOfBirth(), className, s.getProfilePic() });
-            }
-        };
+        Consumer<List<Student>> uiUpdater = students -> app.getSchoolPanel().getStdMod()
+                .showIds(students.stream().map(Student::getId).toList());
 
         searchAndDisplay("Student", searchOptions, dbSearchFunction, uiUpdater);
     }
@@ -178,24 +325,20 @@ public class DataService {
      * @param e the ActionEvent triggering the search
      */
     public void searchTeacher(ActionEvent e) {
-        String[] searchOptions = { "Id", "Name", "Contact", "Email", "Address" };
+        String[] searchOptions = { "Any Field", "Id", "Name", "Contact", "Email", "Address" };
 
+        // "Any Field" uses the full-text index; the others map to DB.searchTeacher options.
         BiFunction<String, Integer, List<Teacher>> dbSearchFunction = (term, option) -> {
             try {
-                return db.searchTeacher(term, option);
+                return option == 0 ? db.fullTextSearchTeachers(term, SEARCH_LIMIT)
+                        : db.searchTeacher(term, option - 1, SEARCH_LIMIT);
             } catch (SQLException ex) {
                 throw new RuntimeException(ex);
             }
         };
 
-        Consumer<List<Teacher>> uiUpdater = teachers -> {
-            app.getSchoolPanel().getTchMod().setNumRows(0);
-            int rowNum = 1;
-            for (Teacher t : teachers) {
-                app.getSchoolPanel().getTchMod().addRow(new Object[] { rowNum++, t.getId(), t.getName(), t.getContact(),
-                        t.getGender(), t.getAddress(), t.getEmail(), t.getProfilePic() });
-            }
-        };
+        Consumer<List<Teacher>> uiUpdater = teachers -> app.getSchoolPanel().getTchMod()
+                .showIds(teachers.stream().map(Teacher::getId).toList());
 
         searchAndDisplay("Teacher", searchOptions, dbSearchFunction, uiUpdater);
     }
@@ -207,8 +350,10 @@ public class DataService {
         SwingWorker<Void, Void> worker = new SwingWorker<>() {
             @Override
             protected Void doInBackground() throws Exception {
-                // The main work is fetching data, which is done on the EDT in `done()`.
-                // This part is just for showing the progress dialog.
+                // Reload the reference data in parallel so the panels refreshed in done() read it from the cache.
+                invalidateReferenceData();
+                CompletableFuture.allOf(supplyAsync(DataService.this::fetchAllClasses),
+                        supplyAsync(DataService.this::fetchAllSubjects)).join();
                 return null;
             }
 
@@ -244,11 +389,19 @@ public class DataService {
                 protected void done() {
                     try {
                         get(); // This will throw an exception if doInBackground failed
+                        // Panels remove the row themselves when the delete's change event arrives.
                         JOptionPane.showMessageDialog(app.getWin(), capitalizedType + " deleted successfully.",
                                 "Delete " + capitalizedType, JOptionPane.INFORMATION_MESSAGE);
-                        fetchData();
                     } catch (Exception ex) {
                         Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        // A refused delete (the record is still in use) explains itself.
+                        for (Throwable t = cause; t != null; t = t.getCause()) {
+                            if (t instanceof IllegalStateException refused) {
+                                JOptionPane.showMessageDialog(app.getWin(), refused.getMessage(),
+                                        "Delete " + capitalizedType, JOptionPane.WARNING_MESSAGE);
+                                return;
+                            }
+                        }
                         uiManager.showErrorDialog("Delete Error", "Could not delete the " + itemType + ".",
                                 (Exception) cause);
                     }
@@ -259,13 +412,25 @@ public class DataService {
     }
 
     /**
-     * A specific search method that returns results directly instead of updating a
-     * UI component. Useful for cases like finding a student for fee payment.
-     * @return List<Student>
-     * @throws Exception if an error occurs
+     * finds a student by ID
+     * 
+     * @param studentId the student ID
+     * @return the student, or {@code null} if there is none with that ID
+     * @throws Exception if a database error occurs
+     */
+    public Student findStudentById(int studentId) throws Exception {
+        return db.findStudentById(studentId);
+    }
+
+    /**
+     * finds a teacher by ID
+     * 
+     * @param teacherId the teacher ID
+     * @return the teacher, or {@code null} if there is none with that ID
+     * @throws Exception if a database error occurs
      */
-    public List<Student> searchAndReturn(String searchTerm, int option) throws Exception {
-        return db.searchStudent(searchTerm, option);
+    public Teacher findTeacherById(int teacherId) throws Exception {
+        return db.findTeacherById(teacherId);
     }
 
     /** 
@@ -297,12 +462,25 @@ public class DataService {
     }
 
     /** 
-     * deletes the specified student from the database
+     * deletes the specified student and their attendance from the database.
+     * A student with fee payments on record is not deleted, so financial
+     * history is never lost.
      * @param student the student to delete
+     * @throws IllegalStateException if the student has payment records
      * @throws Exception if an error occurs
      */
     public void deleteStudent(Student student) throws Exception {
-        db.deleteStd(student);
+        // Check and delete in one transaction on one connection, so no payment can be recorded in between.
+        inTransaction(() -> {
+            int paymentCount = db.countPaymentsForStudent(student.getId());
+            if (paymentCount > 0) {
+                throw new IllegalStateException("Cannot delete student. They have " + paymentCount
+                        + " fee payment" + (paymentCount > 1 ? "s" : "") + " on record.");
+            }
+
+            db.deleteStd(student);
+            return null;
+        });
     }
 
     /** 
@@ -332,6 +510,104 @@ public class DataService {
         return db.fetchAllTeachers();
     }
 
+    /**
+     * counts the students matching the table filter
+     * @param filter the filter text, or empty for all students
+     * @return the number of matching students
+     * @throws Exception if an error occurs
+     */
+    public int countStudents(String filter) throws Exception {
+        return db.countStudents(filter);
+    }
+
+    /**
+     * fetches one keyset page of students
+     * @param sortColumn the column to sort by, or null for the default order
+     * @param ascending whether to sort ascending
+     * @param after the sort key to continue after, or null
+     * @param offset rows to skip after the key
+     * @param limit the page size
+     * @param filter the filter text, or empty
+     * @return the page of students
+     * @throws Exception if an error occurs
+     */
+    public Page<Student> fetchStudentPage(String sortColumn, boolean ascending, Object[] after, int offset, int limit,
+            String filter) throws Exception {
+        return db.fetchStudentPage(sortColumn, ascending, after, offset, limit, filter);
+    }
+
+    /**
+     * fetches the students with the given IDs
+     * @param ids the student IDs
+     * @return the students found, in no particular order
+     * @throws Exception if an error occurs
+     */
+    public List<Student> fetchStudentsByIds(List<Integer> ids) throws Exception {
+        return db.fetchStudentsByIds(ids);
+    }
+
+    /**
+     * streams every student matching the table filter, in table order; the
+     * stream must be closed
+     * @param sortColumn the column to sort by, or null for the default order
+     * @param ascending whether to sort ascending
+     * @param filter the filter text, or empty
+     * @return the students, read as the stream is consumed
+     * @throws Exception if an error occurs
+     */
+    public Stream<Student> streamStudents(String sortColumn, boolean ascending, String filter) throws Exception {
+        return db.streamStudents(sortColumn, ascending, filter);
+    }
+
+    /**
+     * counts the teachers matching the table filter
+     * @param filter the filter text, or empty for all teachers
+     * @return the number of matching teachers
+     * @throws Exception if an error occurs
+     */
+    public int countTeachers(String filter) throws Exception {
+        return db.countTeachers(filter);
+    }
+
+    /**
+     * fetches one keyset page of teachers
+     * @param sortColumn the column to sort by, or null for the default order
+     * @param ascending whether to sort ascending
+     * @param after the sort key to continue after, or null
+     * @param offset rows to skip after the key
+     * @param limit the page size
+     * @param filter the filter text, or empty
+     * @return the page of teachers
+     * @throws Exception if an error occurs
+     */
+    public Page<Teacher> fetchTeacherPage(String sortColumn, boolean ascending, Object[] after, int offset, int limit,
+            String filter) throws Exception {
+        return db.fetchTeacherPage(sortColumn, ascending, after, offset, limit, filter);
+    }
+
+    /**
+     * fetches the teachers with the given IDs
+     * @param ids the teacher IDs
+     * @return the teachers found, in no particular order
+     * @throws Exception if an error occurs
+     */
+    public List<Teacher> fetchTeachersByIds(List<Integer> ids) throws Exception {
+        return db.fetchTeachersByIds(ids);
+    }
+
+    /**
+     * streams every teacher matching the table filter, in table order; the
+     * stream must be closed
+     * @param sortColumn the column to sort by, or null for the default order
+     * @param ascending whether to sort ascending
+     * @param filter the filter text, or empty
+     * @return the teachers, read as the stream is consumed
+     * @throws Exception if an error occurs
+     */
+    public Stream<Teacher> streamTeachers(String sortColumn, boolean ascending, String filter) throws Exception {
+        return db.streamTeachers(sortColumn, ascending, filter);
+    }
+
     /** 
      * adds a new subject to the database
      * @param subjectName the name of the subject to add
@@ -351,12 +627,23 @@ public class DataService {
     }
 
     /** 
-     * deletes a subject from the database
+     * deletes a subject from the database, unless teachers are still assigned to it
      * @param subjectId the ID of the subject to delete
+     * @throws IllegalStateException if the subject is used in teacher assignments
      * @throws Exception if an error occurs
      */
     public void deleteSubject(int subjectId) throws Exception {
-        db.deleteSubject(subjectId);
+        // Check and delete in one transaction on one connection, so no assignment can be added in between.
+        inTransaction(() -> {
+            int assignmentCount = db.countAssignmentsForSubject(subjectId);
+            if (assignmentCount > 0) {
+                throw new IllegalStateException("Cannot delete subject. It is used in " + assignmentCount
+                        + " teacher assignment" + (assignmentCount > 1 ? "s" : "") + ". Please remove the assignments first.");
+            }
+
+            db.deleteSubject(subjectId);
+            return null;
+        });
     }
 
     /** 
@@ -378,6 +665,17 @@ public class DataService {
         db.saveAttendance(records);
     }
 
+    /**
+     * loads the saved attendance of a class for one day
+     * @param classLevel the class ID
+     * @param date any time on the day
+     * @return the saved status of each student who has one, by student ID
+     * @throws Exception if a database error occurs
+     */
+    public Map<Integer, String> getAttendanceForClass(int classLevel, Date date) throws Exception {
+        return db.getAttendanceForClass(classLevel, date);
+    }
+
     /** 
      * returns a list of teacher assignments for the specified class level
      * @param classLevel the class level to filter assignments by
@@ -479,20 +777,24 @@ public class DataService {
      * @throws Exception if an error occurs
      */
     public void deleteClass(int classId) throws Exception {
-        // Check for dependencies before deleting.
-        int studentCount = db.countStudentsInClass(classId);
-        if (studentCount > 0) {
-            throw new IllegalStateException("Cannot delete class. It is assigned to " + studentCount
-                    + " student" + (studentCount > 1 ? "s" : "") + ". Please reassign them first.");
-        }
+        // Check and delete in one transaction on one connection, so nothing can be added to the class in between.
+        inTransaction(() -> {
+            // Check for dependencies before deleting.
+            int studentCount = db.countStudentsInClass(classId);
+            if (studentCount > 0) {
+                throw new IllegalStateException("Cannot delete class. It is assigned to " + studentCount
+                        + " student" + (studentCount > 1 ? "s" : "") + ". Please reassign them first.");
+            }
 
-        int assignmentCount = db.countAssignmentsForClass(classId);
-        if (assignmentCount > 0) {
-            throw new IllegalStateException("Cannot delete class. It is used in " + assignmentCount
-                    + " teacher assignment" + (assignmentCount > 1 ? "s" : "") + ". Please remove the assignments first.");
-        }
+            int assignmentCount = db.countAssignmentsForClass(classId);
+            if (assignmentCount > 0) {
+                throw new IllegalStateException("Cannot delete class. It is used in " + assignmentCount
+                        + " teacher assignment" + (assignmentCount > 1 ? "s" : "") + ". Please remove the assignments first.");
+            }
 
-        db.deleteClass(classId);
+            db.deleteClass(classId);
+            return null;
+        });
     }
 
     /**
@@ -546,6 +848,61 @@ public class DataService {
         return db.getClassNameById(classId);
     }
 
+    /** 
+     * returns the names of all classes; call it off the EDT, since a stale
+     * cache is reloaded from the database
+     * @return the class names keyed by class ID
+     * @throws Exception if an error occurs
+     */
+    public Map<Integer, String> getClassNames() throws Exception {
+        return db.getClassNames();
+    }
+
+    /** 
+     * loads the profile picture of a student on demand
+     * @param studentId the ID of the student
+     * @return the image bytes, or null if there is none
+     * @throws Exception if an error occurs
+     */
+    public byte[] loadStudentProfilePicture(int studentId) throws Exception {
+        return db.loadStudentProfilePicture(studentId);
+    }
+
+    /** 
+     * loads the profile picture of a teacher on demand
+     * @param teacherId the ID of the teacher
+     * @return the image bytes, or null if there is none
+     * @throws Exception if an error occurs
+     */
+    public byte[] loadTeacherProfilePicture(int teacherId) throws Exception {
+        return db.loadTeacherProfilePicture(teacherId);
+    }
+
+    /** 
+     * returns the subject name by its ID
+     * @param subjectId the ID of the subject
+     * @return a String of the subject name, or null if not found
+     * @throws Exception if an error occurs
+     */
+    public String getSubjectNameById(int subjectId) throws Exception {
+        return db.getSubjectNameById(subjectId);
+    }
+
+    /** 
+     * discards the cached classes and subjects so they are reloaded on next use
+     */
+    public void invalidateReferenceData() {
+        DB.getReferenceCache().invalidateAll();
+    }
+
+    /** 
+     * returns the hit/miss counters of the reference-data cache
+     * @return a one-line summary of the cache statistics
+     */
+    public String getReferenceCacheStats() {
+        return DB.getReferenceCache().getStats();
+    }
+
     /** 
      * returns dashboard statistics
      * 
@@ -21,10 +21,20 @@ import java.sql.Statement;
 @SuppressWarnings("unused")
 public class DataSource {
 
-    /** HikariCP connection pool */
+    /**
+     * The SQLite database file; the {@code school.sqlite.file} system property
+     * points it elsewhere, e.g. for {@link IndexBenchmark}
+     */
+    static final String SQLITE_URL = "jdbc:sqlite:" + System.getProperty("school.sqlite.file", "./libs/db/main.db");
+
+    /** HikariCP connection pool; used for reads, and for writes on MySQL */
     private static final HikariDataSource ds;
+    /** The single SQLite writer, or {@code null} when using MySQL */
+    private static final SerialWriter writer;
     /** Flag indicating whether MySQL is being used */
     private static boolean isMySql = false;
+    /** The SQLite connection profile in use, or {@code null} when using MySQL */
+    private static SqliteProfile sqliteProfile;
 
     // Static block to initialize the connection pool configuration once at
     // class loading time 
@@ -46,18 +56,33 @@ public class DataSource {
             // If MySQL fails, fall back to SQLite
             System.out.println("MySQL connection failed, falling back to SQLite. Reason: " + e.getMessage());
             config.setDriverClassName("org.sqlite.JDBC");
-            config.setJdbcUrl("jdbc:sqlite:./libs/db/main.db");
+            config.setJdbcUrl(SQLITE_URL);
             config.setUsername(null);
             config.setPassword(null);
         }
 
-        // Common pool settings
-        config.addDataSourceProperty("cachePrepStmts", "true");
-        config.addDataSourceProperty("prepStmtCacheSize", "250");
-        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        if (isMySql) {
+            SqlDialect.MYSQL.configurePool(config);
+        } else {
+            // WAL, busy timeout, cache sizes etc. for every pooled SQLite connection
+            sqliteProfile = SqliteProfile.fromName(App.prefs.get(SqliteProfile.PREF_KEY, null));
+            sqliteProfile.apply(config);
+            System.out.println("Using SQLite profile: " + sqliteProfile);
+        }
         config.setMaximumPoolSize(10); // Set pool size
 
         ds = new HikariDataSource(config);
+
+        if (isMySql) {
+            writer = null;
+        } else {
+            // SQLite has one write lock: give writes their own connection and thread
+            HikariConfig writerConfig = new HikariConfig();
+            config.copyStateTo(writerConfig);
+            writerConfig.setPoolName("SQLiteWriter");
+            writerConfig.setMaximumPoolSize(1);
+            writer = new SerialWriter(new HikariDataSource(writerConfig));
+        }
     }
 
     /**
@@ -67,21 +92,74 @@ public class DataSource {
     }
 
     /**
-     * Gets a connection from the connection pool.
+     * Gets a connection from the connection pool. Use it for reads; writes go
+     * through {@link #write(SqlWork)}. Inside a {@link UnitOfWork} this is the
+     * connection of the unit, and closing it does nothing.
      * @return a database connection
      * @throws SQLException if a database access error occurs
     */
     public static Connection getConnection() throws SQLException {
+        Connection shared = UnitOfWork.currentConnection();
+        if (shared != null) {
+            return shared;
+        }
         return ds.getConnection();
     }
 
+    /**
+     * Runs a write in its own transaction and waits for it to commit. On SQLite
+     * the work is queued to the single writer thread, which may commit it together
+     * with other pending writes; on MySQL it runs on a pooled connection. Inside a
+     * {@link UnitOfWork#inTransaction(SqlWork) unit of work} it runs directly in
+     * that transaction. The work must not commit, roll back or change auto-commit
+     * itself.
+     * @param <T> the type of the result
+     * @param work the write to run
+     * @return the result of the work
+     * @throws SQLException if the write or its commit fails
+     */
+    public static <T> T write(SqlWork<T> work) throws SQLException {
+        Connection transaction = UnitOfWork.currentTransaction();
+        if (transaction != null) {
+            return work.apply(transaction);
+        }
+        if (writer != null) {
+            return writer.execute(work);
+        }
+        try (Connection con = ds.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                T result = work.apply(con);
+                con.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the write counters of the SQLite writer.
+     * @return a one-line summary, or an empty string when using MySQL
+     */
+    public static String getWriterStats() {
+        return writer != null ? writer.getStats() : "";
+    }
+
     /**
      * Closes the connection pool and releases all resources.
+     * @return {@code true} if every connection is closed, {@code false} if the
+     *         SQLite writer is still finishing queued writes and holds its own
      */
-    public static void close() {
+    public static boolean close() {
+        boolean closed = writer == null || writer.shutdown();
         if (ds != null) {
             ds.close();
         }
+        return closed;
     }
 
     /**
@@ -92,6 +170,15 @@ public class DataSource {
         return isMySql;
     }
 
+    /**
+     * Returns the SQLite connection profile the pool was configured with.
+     * Changing the stored preference takes effect on the next start.
+     * @return the active profile, or {@code null} if using MySQL
+     */
+    public static SqliteProfile getSqliteProfile() {
+        return sqliteProfile;
+    }
+
     /**
      * Migrates data from the local SQLite database to the MySQL database. This
      * method is intended to be called once upon application startup if MySQL is
@@ -125,8 +212,12 @@ public class DataSource {
             migrateTable(sqliteCon, mysqlCon, "student_attendance", 4);
             migrateTable(sqliteCon, mysqlCon, "student_payments", 6);
 
+            // The migrated rows arrive without the name sort keys.
+            SortKeys.fillMissing(mysqlCon);
+
             App.prefs.putBoolean("mysql_migrated", true);
             System.out.println("Data migration to MySQL completed successfully.");
+            DB.getReferenceCache().invalidateAll();
 
         } catch (Exception e) {
             System.err.println("Data migration failed: " + e.getMessage());
@@ -161,16 +252,25 @@ public class DataSource {
         String insertSql = insertSqlBuilder.toString();
 
         try (Statement sourceStmt = sourceCon.createStatement();
-                ResultSet rs = sourceStmt.executeQuery(selectSql);
                 PreparedStatement destPstmt = destCon.prepareStatement(insertSql)) {
-
-            while (rs.next()) {
-                for (int i = 1; i <= columnCount; i++) {
-                    destPstmt.setObject(i, rs.getObject(i));
+            sourceStmt.setFetchSize(ResultSetStream.FETCH_SIZE);
+            try (ResultSet rs = sourceStmt.executeQuery(selectSql)) {
+                // Send the rows in batches as they are read, so only one batch is held in memory
+                int pending = 0;
+                while (rs.next()) {
+                    for (int i = 1; i <= columnCount; i++) {
+                        destPstmt.setObject(i, rs.getObject(i));
+                    }
+                    destPstmt.addBatch();
+                    if (++pending == ResultSetStream.FETCH_SIZE) {
+                        destPstmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    destPstmt.executeBatch();
                 }
-                destPstmt.addBatch();
             }
-            destPstmt.executeBatch();
         }
     }
 }
\ No newline at end of file
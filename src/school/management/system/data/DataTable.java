@@ -0,0 +1,91 @@
+package school.management.system.data;
+
+import java.util.List;
+
+/**
+ * The tables whose rows can be exported as a whole, listed in dependency
+ * order: a table only refers to the tables before it. Each lists its plain
+ * data columns, its ID first; profile pictures, sort keys and the
+ * {@code admin} table (password hashes) are never exported.
+ *
+ * @author Ibn Issah
+ */
+public enum DataTable {
+    /** {@code class_levels}. */
+    CLASSES("class_levels", "Classes", "class_id", "class_name"),
+    /** {@code subjects}. */
+    SUBJECTS("subjects", "Subjects", "subject_id", "subject_name"),
+    /** {@code students}, without the profile picture. */
+    STUDENTS("students", "Students", "std_id", "std_fname", "std_mname", "std_lname", "std_gender", "std_dob",
+            "std_class"),
+    /** {@code teachers}, without the profile picture. */
+    TEACHERS("teachers", "Teachers", "tch_id", "tch_name", "tch_contact", "tch_gender", "tch_email", "tch_address"),
+    /** {@code teacher_assignments}. */
+    ASSIGNMENTS("teacher_assignments", "Teacher Assignments", "assignment_id", "teacher_id", "subject_id",
+            "class_level"),
+    /** {@code student_attendance}. */
+    ATTENDANCE("student_attendance", "Attendance", "attendance_id", "student_id", "attendance_date", "status"),
+    /** {@code student_payments}. */
+    PAYMENTS("student_payments", "Payments", "payment_id", "student_id", "amount_paid", "payment_date", "term",
+            "academic_year");
+
+    /** The SQL table name. */
+    private final String table;
+    /** The name shown to the user. */
+    private final String title;
+    /** The exported columns, the ID first. */
+    private final List<String> columns;
+
+    DataTable(String table, String title, String... columns) {
+        this.table = table;
+        this.title = title;
+        this.columns = List.of(columns);
+    }
+
+    /**
+     * Returns the SQL table name.
+     *
+     * @return the table name
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the name shown to the user.
+     *
+     * @return the title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the exported columns.
+     *
+     * @return the column names, the ID first
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the primary key column.
+     *
+     * @return the ID column
+     */
+    public String getIdColumn() {
+        return columns.get(0);
+    }
+
+    /**
+     * Tells whether a column holds dates, which SQLite may store as epoch
+     * milliseconds and must be converted when exported.
+     *
+     * @param column the column name
+     * @return {@code true} for a date column
+     */
+    public boolean isDate(String column) {
+        return column.endsWith("_date");
+    }
+}
@@ -0,0 +1,212 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The trigram indexes behind the Filter field of the student and teacher
+ * tables. {@link DB#setup()} calls {@link #ensureSchema(Connection)} after the
+ * tables exist.
+ * <p>
+ * The filter is a case-insensitive "contains" match over most columns of a
+ * row. Answered with one {@code LIKE '%text%'} per column it reads and compares
+ * every row of the table on each keystroke. Instead, on SQLite, each table gets
+ * an FTS5 table with the {@code trigram} tokenizer ({@code students_trigram},
+ * {@code teachers_trigram}) holding one precomputed search key per row: the ID
+ * and the filtered columns joined by newlines. A quoted phrase query against it
+ * finds the rows containing the text as a substring through the trigram index,
+ * and since the Filter field cannot contain a newline a match never spans two
+ * columns. The text is always quoted, so it is matched literally.
+ * </p>
+ * <p>
+ * Like {@link FullTextSearch} and {@link DashboardSummary}, the keys are kept
+ * current by insert, update and delete triggers, so every write path is
+ * covered, and a newly created index is filled once from the base table. The
+ * class name of a student is not part of the key (renaming a class would leave
+ * it stale); the student condition matches it through {@code class_levels}
+ * instead.
+ * </p>
+ * <p>
+ * The trigram tokenizer cannot look up text shorter than three characters,
+ * and MySQL has no equivalent, so those filters, and any database where the
+ * index could not be created, use the per-column LIKE conditions
+ * ({@link #STUDENT_LIKE}, {@link #TEACHER_LIKE}), which give the same answers.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class FilterIndex {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(FilterIndex.class.getName());
+
+    /** Shortest text the trigram tokenizer can look up. */
+    private static final int MIN_LENGTH = 3;
+
+    /** The student columns in the search key, after the ID. */
+    private static final String[] STUDENT_COLUMNS = { "std_fname", "std_mname", "std_lname", "std_gender",
+            "std_dob" };
+    /** The teacher columns in the search key, after the ID. */
+    private static final String[] TEACHER_COLUMNS = { "tch_name", "tch_contact", "tch_gender", "tch_email",
+            "tch_address" };
+
+    /**
+     * Indexed student condition, for {@code students s LEFT JOIN class_levels c}.
+     * The first parameter takes {@link #matchPhrase(String)}, the second a LIKE
+     * pattern for the class name.
+     */
+    static final String STUDENT_INDEXED = "s.std_id IN (SELECT rowid FROM students_trigram"
+            + " WHERE students_trigram MATCH ?)"
+            + " OR s.std_class IN (SELECT class_id FROM class_levels WHERE class_name LIKE ? ESCAPE '!')";
+
+    /** Indexed teacher condition; the parameter takes {@link #matchPhrase(String)}. */
+    static final String TEACHER_INDEXED = "tch_id IN (SELECT rowid FROM teachers_trigram"
+            + " WHERE teachers_trigram MATCH ?)";
+
+    /** Fallback student condition; every parameter takes the same LIKE pattern. */
+    static final String STUDENT_LIKE = "s.std_fname LIKE ? ESCAPE '!' OR s.std_mname LIKE ? ESCAPE '!'"
+            + " OR s.std_lname LIKE ? ESCAPE '!' OR s.std_gender LIKE ? ESCAPE '!' OR s.std_dob LIKE ? ESCAPE '!'"
+            + " OR c.class_name LIKE ? ESCAPE '!' OR CAST(s.std_id AS CHAR) LIKE ? ESCAPE '!'";
+
+    /** Fallback teacher condition; every parameter takes the same LIKE pattern. */
+    static final String TEACHER_LIKE = "tch_name LIKE ? ESCAPE '!' OR tch_contact LIKE ? ESCAPE '!'"
+            + " OR tch_gender LIKE ? ESCAPE '!' OR tch_email LIKE ? ESCAPE '!' OR tch_address LIKE ? ESCAPE '!'"
+            + " OR CAST(tch_id AS CHAR) LIKE ? ESCAPE '!'";
+
+    /** Whether the indexes exist and may be queried; set by {@link #ensureSchema(Connection)}. */
+    private static volatile boolean available;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private FilterIndex() {
+    }
+
+    /**
+     * Creates the trigram indexes and their triggers if they are missing, and
+     * fills a new index from its table. Does nothing on MySQL. A failure (for
+     * example an SQLite build older than 3.34, without the trigram tokenizer) is
+     * logged and leaves the LIKE conditions in use.
+     *
+     * @param con an open connection, in auto-commit mode
+     */
+    public static void ensureSchema(Connection con) {
+        if (DataSource.isUsingMySql()) {
+            available = false;
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            con.setAutoCommit(false);
+            try (Statement stmt = con.createStatement()) {
+                ensureIndex(con, stmt, "students_trigram", "students", "std_id", STUDENT_COLUMNS);
+                ensureIndex(con, stmt, "teachers_trigram", "teachers", "tch_id", TEACHER_COLUMNS);
+                con.commit();
+                available = true;
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            available = false;
+            LOGGER.log(Level.WARNING, "Filter index unavailable; filtering with LIKE instead", e);
+        }
+        LOGGER.log(Level.FINE, "Filter index checked in {0} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Returns whether a filter text can be answered by the index.
+     *
+     * @param text the filter text
+     * @return {@code true} if the indexed condition should be used
+     */
+    static boolean canUseIndex(String text) {
+        return available && text.codePointCount(0, text.length()) >= MIN_LENGTH;
+    }
+
+    /**
+     * Quotes filter text as an FTS5 phrase, so that it matches as a literal
+     * substring whatever characters it contains.
+     *
+     * @param text the filter text
+     * @return the value bound to the MATCH parameter
+     */
+    static String matchPhrase(String text) {
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Creates one trigram index with its sync triggers, filling it if it is new.
+     *
+     * @param con      the connection
+     * @param stmt     a statement on the connection
+     * @param index    the FTS5 table name
+     * @param table    the indexed table
+     * @param idColumn the integer primary key, used as the FTS rowid
+     * @param columns  the columns in the search key
+     * @throws SQLException if the index cannot be created
+     */
+    private static void ensureIndex(Connection con, Statement stmt, String index, String table, String idColumn,
+            String[] columns) throws SQLException {
+        boolean exists = tableExists(con, index);
+        stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS " + index
+                + " USING fts5(search_key, tokenize = 'trigram case_sensitive 0')");
+        String insertNew = "INSERT INTO " + index + " (rowid, search_key) VALUES (NEW." + idColumn + ", "
+                + keyExpression("NEW.", idColumn, columns) + ");";
+        String deleteOld = "DELETE FROM " + index + " WHERE rowid = OLD." + idColumn + ";";
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + index + "_ai AFTER INSERT ON " + table + " BEGIN " + insertNew
+                + " END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + index + "_ad AFTER DELETE ON " + table + " BEGIN " + deleteOld
+                + " END");
+        // Only edits to the keyed columns re-index the row, not e.g. a new profile picture.
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + index + "_au AFTER UPDATE OF " + idColumn + ", "
+                + String.join(", ", columns) + " ON " + table + " BEGIN " + deleteOld + " " + insertNew + " END");
+        if (!exists) {
+            int rows = stmt.executeUpdate("INSERT INTO " + index + " (rowid, search_key) SELECT " + idColumn + ", "
+                    + keyExpression("", idColumn, columns) + " FROM " + table);
+            LOGGER.log(Level.INFO, "Built filter index {0} ({1} rows)", new Object[] { index, rows });
+        }
+    }
+
+    /**
+     * Builds the SQL expression for a row's search key: the ID and the columns,
+     * separated by newlines, with nulls as empty text.
+     *
+     * @param prefix   {@code NEW.} inside a trigger, otherwise empty
+     * @param idColumn the ID column
+     * @param columns  the other columns
+     * @return the expression
+     */
+    private static String keyExpression(String prefix, String idColumn, String[] columns) {
+        StringBuilder expr = new StringBuilder("CAST(" + prefix + idColumn + " AS TEXT)");
+        for (String column : columns) {
+            expr.append(" || char(10) || COALESCE(").append(prefix).append(column).append(", '')");
+        }
+        return expr.toString();
+    }
+
+    /**
+     * Checks whether a table exists in the SQLite schema.
+     *
+     * @param con  an open connection
+     * @param name the table name
+     * @return {@code true} if it exists
+     * @throws SQLException if the catalog cannot be queried
+     */
+    private static boolean tableExists(Connection con, String name) throws SQLException {
+        try (PreparedStatement pstmt = con
+                .prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The full-text indexes behind the "Any Field" student and teacher search.
+ * {@link DB#setup()} calls {@link #ensureSchema(Connection)} after the tables
+ * exist.
+ * <p>
+ * On SQLite each table gets an external-content FTS5 table ({@code students_fts}
+ * over the three name columns, {@code teachers_fts} over name, contact, email
+ * and address). The FTS tables store only the index, not a copy of the rows,
+ * and are kept in step with their base table by insert, update and delete
+ * triggers, so every write path (including imports and the MySQL migration)
+ * stays covered without changes to the Java code. A newly created FTS table is
+ * filled once with the FTS5 {@code rebuild} command.
+ * </p>
+ * <p>
+ * On MySQL the same columns get an InnoDB {@code FULLTEXT} index searched with
+ * {@code MATCH ... AGAINST} in boolean mode.
+ * </p>
+ * <p>
+ * If the index cannot be used (an SQLite build without FTS5, or a term shorter
+ * than the InnoDB minimum token length) the search falls back to a LIKE scan
+ * across the same columns, which is slow but gives the same answers.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class FullTextSearch {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(FullTextSearch.class.getName());
+
+    /** Shortest word InnoDB indexes with its default {@code innodb_ft_min_token_size}. */
+    private static final int MYSQL_MIN_TOKEN = 3;
+
+    /** The student columns covered by the index. */
+    static final String[] STUDENT_COLUMNS = { "std_fname", "std_mname", "std_lname" };
+    /** bm25 weight of each student column; first and last names count most. */
+    private static final double[] STUDENT_WEIGHTS = { 4.0, 1.0, 4.0 };
+
+    /** The teacher columns covered by the index. */
+    static final String[] TEACHER_COLUMNS = { "tch_name", "tch_contact", "tch_email", "tch_address" };
+    /** bm25 weight of each teacher column; the name counts most. */
+    private static final double[] TEACHER_WEIGHTS = { 4.0, 1.0, 2.0, 1.0 };
+
+    /** Whether the index exists and may be queried; set by {@link #ensureSchema(Connection)}. */
+    private static volatile boolean available;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private FullTextSearch() {
+    }
+
+    /**
+     * Creates the full-text indexes (and, on SQLite, their sync triggers) if they
+     * do not exist yet. A failure is logged and leaves the LIKE fallback in use.
+     *
+     * @param con an open connection
+     */
+    public static void ensureSchema(Connection con) {
+        long start = System.nanoTime();
+        try {
+            if (DataSource.isUsingMySql()) {
+                ensureMySqlIndex(con, "ft_students", "students", STUDENT_COLUMNS);
+                ensureMySqlIndex(con, "ft_teachers", "teachers", TEACHER_COLUMNS);
+            } else {
+                ensureFts5Table(con, "students_fts", "students", "std_id", STUDENT_COLUMNS);
+                ensureFts5Table(con, "teachers_fts", "teachers", "tch_id", TEACHER_COLUMNS);
+            }
+            available = true;
+        } catch (SQLException e) {
+            available = false;
+            LOGGER.log(Level.WARNING, "Full-text index unavailable; searching with LIKE instead", e);
+        }
+        LOGGER.log(Level.FINE, "Full-text schema checked in {0} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Returns whether searches can use the full-text index.
+     *
+     * @return {@code true} once {@link #ensureSchema(Connection)} has succeeded
+     */
+    public static boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Splits search text into words the way the index tokenizer does: runs of
+     * letters and digits, lower-cased. Everything else (quotes, operators,
+     * {@code @}, {@code -}) is a separator, so user input can never be read as
+     * query syntax.
+     *
+     * @param text the raw search text
+     * @return the words, possibly empty
+     */
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                tokens.add(word.toString().toLowerCase(Locale.ROOT));
+                word.setLength(0);
+            }
+        }
+        if (word.length() > 0) {
+            tokens.add(word.toString().toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns whether the index can answer a search for these words. InnoDB does
+     * not index words shorter than its minimum token length, so such a search
+     * has to use the LIKE fallback on MySQL.
+     *
+     * @param tokens the search words
+     * @return {@code true} if the full-text query should be used
+     */
+    static boolean canUseIndex(List<String> tokens) {
+        if (!available || tokens.isEmpty()) {
+            return false;
+        }
+        if (DataSource.isUsingMySql()) {
+            return tokens.stream().allMatch(t -> t.length() >= MYSQL_MIN_TOKEN);
+        }
+        return true;
+    }
+
+    /**
+     * Builds the query text bound to the MATCH parameter: every word must occur,
+     * as a prefix of some word in any indexed column.
+     *
+     * @param tokens the search words, see {@link #tokens(String)}
+     * @return an FTS5 expression on SQLite, a boolean-mode query on MySQL
+     */
+    private static String matchExpression(List<String> tokens) {
+        StringBuilder expr = new StringBuilder();
+        for (String token : tokens) {
+            if (expr.length() > 0) {
+                expr.append(' ');
+            }
+            if (DataSource.isUsingMySql()) {
+                expr.append('+').append(token).append('*');
+            } else {
+                // A quoted string followed by * is an FTS5 prefix query.
+                expr.append('"').append(token).append("\"*");
+            }
+        }
+        return expr.toString();
+    }
+
+    /**
+     * Builds the ranked student search; bind it with
+     * {@link #bindSearch(PreparedStatement, List, int)}.
+     *
+     * @param selectColumns the student columns to return, qualified with {@code s.}
+     * @return the SQL
+     */
+    static String studentSearchSql(String selectColumns) {
+        return searchSql(selectColumns, "students", "s", "std_id", "students_fts", STUDENT_COLUMNS,
+                STUDENT_WEIGHTS);
+    }
+
+    /**
+     * Builds the ranked teacher search; bind it with
+     * {@link #bindSearch(PreparedStatement, List, int)}.
+     *
+     * @param selectColumns the teacher columns to return, qualified with {@code t.}
+     * @return the SQL
+     */
+    static String teacherSearchSql(String selectColumns) {
+        return searchSql(selectColumns, "teachers", "t", "tch_id", "teachers_fts", TEACHER_COLUMNS,
+                TEACHER_WEIGHTS);
+    }
+
+    /**
+     * Binds the parameters of a query built by {@link #studentSearchSql(String)}
+     * or {@link #teacherSearchSql(String)}.
+     *
+     * @param pstmt  the prepared search
+     * @param tokens the search words
+     * @param limit  the maximum number of rows
+     * @throws SQLException if binding fails
+     */
+    static void bindSearch(PreparedStatement pstmt, List<String> tokens, int limit) throws SQLException {
+        String expr = matchExpression(tokens);
+        int index = 1;
+        pstmt.setString(index++, expr);
+        if (DataSource.isUsingMySql()) {
+            pstmt.setString(index++, expr);
+        }
+        pstmt.setInt(index, limit);
+    }
+
+    /**
+     * Builds a ranked full-text query, best match first.
+     *
+     * @param selectColumns the columns to return
+     * @param table         the base table
+     * @param alias         the alias of the base table
+     * @param idColumn      the base table's integer key
+     * @param ftsTable      the FTS5 table (SQLite only)
+     * @param columns       the indexed columns
+     * @param weights       the bm25 weight of each column (SQLite only)
+     * @return the SQL
+     */
+    private static String searchSql(String selectColumns, String table, String alias, String idColumn,
+            String ftsTable, String[] columns, double[] weights) {
+        if (DataSource.isUsingMySql()) {
+            // The same MATCH appears twice; MySQL computes the relevance once per row.
+            String match = "MATCH(" + qualified(alias, columns) + ") AGAINST (? IN BOOLEAN MODE)";
+            return "SELECT " + selectColumns + " FROM " + table + " " + alias + " WHERE " + match + " ORDER BY "
+                    + match + " DESC, " + alias + "." + idColumn + " LIMIT ?";
+        }
+        StringBuilder bm25 = new StringBuilder("bm25(").append(ftsTable);
+        for (double weight : weights) {
+            bm25.append(", ").append(weight);
+        }
+        bm25.append(')');
+        return "SELECT " + selectColumns + " FROM " + ftsTable + " f JOIN " + table + " " + alias + " ON " + alias
+                + "." + idColumn + " = f.rowid WHERE " + ftsTable + " MATCH ? ORDER BY " + bm25 + ", " + alias + "."
+                + idColumn + " LIMIT ?";
+    }
+
+    /**
+     * Builds the fallback condition: every word occurs somewhere in one of the
+     * columns. Bind {@code %word%} once per column for each word, in order.
+     *
+     * @param alias   the alias of the base table
+     * @param columns the searched columns
+     * @param words   the number of search words
+     * @return the WHERE condition
+     */
+    static String likeCondition(String alias, String[] columns, int words) {
+        StringBuilder any = new StringBuilder("(");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                any.append(" OR ");
+            }
+            any.append(alias).append('.').append(columns[i]).append(" LIKE ? ESCAPE '!'");
+        }
+        any.append(')');
+        StringBuilder all = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                all.append(" AND ");
+            }
+            all.append(any);
+        }
+        return all.toString();
+    }
+
+    /**
+     * Joins column names qualified with a table alias.
+     *
+     * @param alias   the alias
+     * @param columns the columns
+     * @return e.g. {@code s.std_fname, s.std_mname}
+     */
+    private static String qualified(String alias, String[] columns) {
+        StringBuilder sb = new StringBuilder();
+        for (String column : columns) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(alias).append('.').append(column);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates an InnoDB FULLTEXT index unless it already exists.
+     *
+     * @param con     an open connection
+     * @param name    the index name
+     * @param table   the table
+     * @param columns the indexed columns
+     * @throws SQLException if the index cannot be created
+     */
+    private static void ensureMySqlIndex(Connection con, String name, String table, String[] columns)
+            throws SQLException {
+        if (SqlDialect.MYSQL.indexExists(con, table, name)) {
+            return;
+        }
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("CREATE FULLTEXT INDEX " + name + " ON " + table + " (" + String.join(", ", columns) + ")");
+        }
+    }
+
+    /**
+     * Creates an external-content FTS5 table and the triggers that keep it in
+     * step with its base table, then fills it if it was just created.
+     *
+     * @param con      an open connection
+     * @param ftsTable the FTS5 table name
+     * @param table    the base table
+     * @param idColumn the base table's integer primary key
+     * @param columns  the indexed columns
+     * @throws SQLException if FTS5 is not available or the DDL fails
+     */
+    private static void ensureFts5Table(Connection con, String ftsTable, String table, String idColumn,
+            String[] columns) throws SQLException {
+        boolean exists;
+        try (PreparedStatement pstmt = con
+                .prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            pstmt.setString(1, ftsTable);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                exists = rs.next();
+            }
+        }
+        String cols = String.join(", ", columns);
+        String newValues = "new." + String.join(", new.", columns);
+        String oldValues = "old." + String.join(", old.", columns);
+        String insertNew = "INSERT INTO " + ftsTable + "(rowid, " + cols + ") VALUES (new." + idColumn + ", "
+                + newValues + ");";
+        String deleteOld = "INSERT INTO " + ftsTable + "(" + ftsTable + ", rowid, " + cols + ") VALUES ('delete', old."
+                + idColumn + ", " + oldValues + ");";
+        try (Statement stmt = con.createStatement()) {
+            // prefix='2 3' keeps short prefix queries (the common case while typing) on the index.
+            stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS " + ftsTable + " USING fts5(" + cols + ", content='"
+                    + table + "', content_rowid='" + idColumn + "', tokenize='unicode61 remove_diacritics 2',"
+                    + " prefix='2 3')");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_ai AFTER INSERT ON " + table + " BEGIN "
+                    + insertNew + " END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_ad AFTER DELETE ON " + table + " BEGIN "
+                    + deleteOld + " END");
+            // Only changes to indexed columns touch the index; a new profile picture does not.
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_au AFTER UPDATE OF " + idColumn + ", " + cols
+                    + " ON " + table + " BEGIN " + deleteOld + " " + insertNew + " END");
+            if (!exists) {
+                stmt.execute("INSERT INTO " + ftsTable + "(" + ftsTable + ") VALUES ('rebuild')");
+                LOGGER.log(Level.INFO, "Built full-text index {0}", ftsTable);
+            }
+        }
+    }
+}
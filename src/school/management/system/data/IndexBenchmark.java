@@ -0,0 +1,262 @@
+package school.management.system.data;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import school.management.system.model.student.AttendanceRecord;
+import school.management.system.model.student.Student;
+
+/**
+ * Times the queries behind {@link SchemaIndexes} with and without the managed
+ * indexes, on a fresh SQLite database seeded with a school of
+ * {@value #STUDENTS} students: {@value #CLASSES} classes,
+ * {@value #PAYMENTS_PER_STUDENT} payments and {@value #DAYS} days of attendance
+ * per student. The database is a temporary file (see
+ * {@link DataSource#SQLITE_URL}); the application's own database is never
+ * touched.
+ * <p>
+ * Run it with the application classpath and the SQLite driver:
+ * </p>
+ *
+ * <pre>
+ * java -cp "bin:libs/*" school.management.system.data.IndexBenchmark
+ * </pre>
+ *
+ * <p>
+ * Each call is run a number of times after a warm-up and its median is
+ * reported. The attendance unique key stays in place for both runs, since the
+ * attendance upsert cannot work without it.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class IndexBenchmark {
+
+    /** Students seeded. */
+    private static final int STUDENTS = 50_000;
+    /** Classes the students are spread over. */
+    private static final int CLASSES = 40;
+    /** Payments seeded per student. */
+    private static final int PAYMENTS_PER_STUDENT = 4;
+    /** School days of attendance seeded per student. */
+    private static final int DAYS = 20;
+    /** Rows inserted per write transaction while seeding. */
+    private static final int SEED_BATCH = 10_000;
+
+    /** Runs before measuring starts. */
+    private static final int WARMUP = 2;
+
+    /** Fixed seed, so both runs make the same calls. */
+    private static final long SEED = 42;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private IndexBenchmark() {
+    }
+
+    /**
+     * Seeds a temporary database and prints the median time of each call
+     * without and with the managed indexes.
+     *
+     * @param args unused
+     * @throws Exception if the database cannot be created or queried
+     */
+    public static void main(String[] args) throws Exception {
+        Path file = Files.createTempFile("index-benchmark", ".db");
+        Files.delete(file);
+        System.setProperty("school.sqlite.file", file.toString());
+        try {
+            if (DataSource.isUsingMySql()) {
+                System.err.println("A MySQL server answered; the benchmark only runs on a SQLite database.");
+                return;
+            }
+            DB.setup();
+            DB db = new DB();
+            try (Connection con = DataSource.getConnection()) {
+                SchemaIndexes.dropIndexes(con);
+            }
+            long start = System.nanoTime();
+            seed(db);
+            System.out.printf("Seeded %,d students in %,d ms%n", STUDENTS, (System.nanoTime() - start) / 1_000_000);
+
+            double[] without = measure(db);
+            try (Connection con = DataSource.getConnection()) {
+                start = System.nanoTime();
+                SchemaIndexes.ensureIndexes(con);
+                System.out.printf("Created the indexes in %,d ms%n", (System.nanoTime() - start) / 1_000_000);
+            }
+            double[] with = measure(db);
+
+            String[] calls = { "getStudentsByClass", "getStudentPayments", "saveAttendance (one class)",
+                    "fetchAllStudents" };
+            System.out.printf("%n%-28s %14s %14s %9s%n", "median ms per call", "no indexes", "indexes", "speedup");
+            for (int i = 0; i < calls.length; i++) {
+                System.out.printf("%-28s %14.3f %14.3f %8.1fx%n", calls[i], without[i], with[i], without[i] / with[i]);
+            }
+        } finally {
+            DataSource.close();
+            for (String suffix : new String[] { "", "-wal", "-shm" }) {
+                Files.deleteIfExists(Path.of(file + suffix));
+            }
+            // Change events start the Event Dispatch Thread, which would keep the JVM alive.
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Fills the database: classes, students through
+     * {@link DB#addStudentsBatch(List)}, then payments and attendance with
+     * plain batched inserts.
+     *
+     * @param db the database access object
+     * @throws SQLException if a row cannot be inserted
+     */
+    private static void seed(DB db) throws SQLException {
+        DataSource.write(con -> {
+            try (PreparedStatement pstmt = con.prepareStatement("INSERT INTO class_levels(class_name) VALUES (?)")) {
+                for (int c = 1; c <= CLASSES; c++) {
+                    pstmt.setString(1, "Class " + c);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            return null;
+        });
+
+        Random random = new Random(SEED);
+        String[] names = { "Ama", "Kofi", "Yaw", "Esi", "Kwame", "Akosua", "Kojo", "Abena", "Kwesi", "Adwoa", "Fiifi",
+                "Efua", "Issah", "Zainab", "Ibrahim", "Amina" };
+        List<Student> students = new ArrayList<>(SEED_BATCH);
+        for (int id = 1; id <= STUDENTS; id++) {
+            Student student = new Student();
+            student.setId(id);
+            student.setFirstName(names[random.nextInt(names.length)] + id % 997);
+            student.setLastName(names[random.nextInt(names.length)] + "son");
+            student.setGender(random.nextBoolean() ? "Male" : "Female");
+            student.setDateOfBirth("2012/01/01");
+            student.setLevel(classOf(id));
+            students.add(student);
+            if (students.size() == SEED_BATCH || id == STUDENTS) {
+                db.addStudentsBatch(students);
+                students = new ArrayList<>(SEED_BATCH);
+            }
+        }
+
+        LocalDate firstDay = LocalDate.of(2025, 9, 1);
+        for (int from = 1; from <= STUDENTS; from += SEED_BATCH / DAYS) {
+            int to = Math.min(STUDENTS, from + SEED_BATCH / DAYS - 1);
+            int first = from;
+            DataSource.write(con -> {
+                try (PreparedStatement payments = con.prepareStatement(
+                        "INSERT INTO student_payments(student_id, amount_paid, payment_date, term, academic_year)"
+                                + " VALUES (?, ?, ?, ?, ?)");
+                        PreparedStatement attendance = con.prepareStatement(
+                                "INSERT INTO student_attendance(student_id, attendance_date, status) VALUES (?, ?, ?)")) {
+                    for (int id = first; id <= to; id++) {
+                        for (int p = 0; p < PAYMENTS_PER_STUDENT; p++) {
+                            payments.setInt(1, id);
+                            payments.setDouble(2, 100 + random.nextInt(400));
+                            payments.setDate(3, Date.valueOf(firstDay.plusDays(random.nextInt(300))));
+                            payments.setString(4, "Term " + (p % 3 + 1));
+                            payments.setInt(5, 2025);
+                            payments.addBatch();
+                        }
+                        for (int d = 0; d < DAYS; d++) {
+                            attendance.setInt(1, id);
+                            attendance.setDate(2, Date.valueOf(firstDay.plusDays(d)));
+                            attendance.setString(3, random.nextInt(10) == 0 ? "Absent" : "Present");
+                            attendance.addBatch();
+                        }
+                    }
+                    payments.executeBatch();
+                    attendance.executeBatch();
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Times the four calls.
+     *
+     * @param db the database access object
+     * @return the median milliseconds of getStudentsByClass,
+     *         getStudentPayments, saveAttendance and fetchAllStudents
+     * @throws SQLException if a call fails
+     */
+    private static double[] measure(DB db) throws SQLException {
+        Random random = new Random(SEED);
+        double byClass = median(30, () -> db.getStudentsByClass(1 + random.nextInt(CLASSES)));
+        double payments = median(500, () -> db.getStudentPayments(1 + random.nextInt(STUDENTS)));
+        int[] day = { 0 };
+        double attendance = median(10, () -> {
+            // A new day for one class: every record is an insert into the existing table.
+            int classLevel = 1 + random.nextInt(CLASSES);
+            java.util.Date date = Date.valueOf(LocalDate.of(2026, 1, 1).plusDays(day[0]++));
+            List<AttendanceRecord> records = new ArrayList<>();
+            for (int id = classLevel; id <= STUDENTS; id += CLASSES) {
+                AttendanceRecord record = new AttendanceRecord();
+                record.setStudentId(id);
+                record.setAttendanceDate(date);
+                record.setStatus("Present");
+                records.add(record);
+            }
+            db.saveAttendance(records);
+        });
+        double all = median(5, db::fetchAllStudents);
+        return new double[] { byClass, payments, attendance, all };
+    }
+
+    /**
+     * Runs a call repeatedly after a warm-up.
+     *
+     * @param runs the measured runs
+     * @param call the call
+     * @return the median time, in milliseconds
+     * @throws SQLException if the call fails
+     */
+    private static double median(int runs, Call call) throws SQLException {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            call.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[runs / 2] / 1_000_000.0;
+    }
+
+    /**
+     * Returns the class of a seeded student.
+     *
+     * @param id the student ID
+     * @return the class ID
+     */
+    private static int classOf(int id) {
+        return 1 + id % CLASSES;
+    }
+
+    /** A timed call. */
+    @FunctionalInterface
+    private interface Call {
+        /**
+         * Makes the call.
+         *
+         * @throws SQLException if it fails
+         */
+        void run() throws SQLException;
+    }
+}
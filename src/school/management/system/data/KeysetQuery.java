@@ -0,0 +1,164 @@
+package school.management.system.data;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds keyset ("seek") pagination queries. Instead of skipping rows with a
+ * growing {@code OFFSET}, each page continues strictly after the sort key of the
+ * last row of the previous page, so the database can walk the index from that
+ * point and the cost of a page does not depend on how deep it is.
+ * <p>
+ * The sort key is a list of SQL expressions whose last entry must be unique
+ * (the primary key) so the order is total. The expressions are also selected as
+ * {@code k0..kN} so the caller can read the key of the last row back as the
+ * anchor for the next page. The keyset predicate is written out as a chain of
+ * {@code OR} terms rather than a row-value comparison, which both SQLite and
+ * MySQL can turn into an index range scan.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class KeysetQuery {
+
+    /** The columns to select, without the key columns. */
+    private final String columns;
+    /** The FROM clause, including any joins. */
+    private final String from;
+    /** The sort key expressions; the last one is unique. */
+    private final String[] keys;
+    /** Whether the sort is ascending. */
+    private final boolean ascending;
+
+    /**
+     * Creates a keyset query.
+     *
+     * @param columns   the columns to select
+     * @param from      the table expression, e.g. {@code students s LEFT JOIN ...}
+     * @param ascending {@code true} for ascending order
+     * @param keys      the sort key expressions, ending with a unique column
+     */
+    public KeysetQuery(String columns, String from, boolean ascending, String... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("A keyset query needs at least one sort key");
+        }
+        this.columns = columns;
+        this.from = from;
+        this.ascending = ascending;
+        this.keys = keys.clone();
+    }
+
+    /**
+     * Builds the page query. The statement takes, in order: the filter
+     * parameters, the anchor parameters (see {@link #bindAnchor}), the limit and
+     * the offset.
+     *
+     * @param filter    an optional WHERE condition, or {@code null}
+     * @param hasAnchor whether the page starts after a known key
+     * @return the SQL text
+     */
+    public String toSql(String filter, boolean hasAnchor) {
+        return orderedSql(filter, hasAnchor) + " LIMIT ? OFFSET ?";
+    }
+
+    /**
+     * Builds a query for every row in sort order, without an anchor or limit,
+     * for reading a whole table in one pass. The statement takes only the filter
+     * parameters.
+     *
+     * @param filter an optional WHERE condition, or {@code null}
+     * @return the SQL text
+     */
+    public String toStreamSql(String filter) {
+        return orderedSql(filter, false);
+    }
+
+    /**
+     * Builds the SELECT ... ORDER BY part shared by {@link #toSql} and
+     * {@link #toStreamSql}.
+     *
+     * @param filter    an optional WHERE condition, or {@code null}
+     * @param hasAnchor whether to add the keyset predicate
+     * @return the SQL text
+     */
+    private String orderedSql(String filter, boolean hasAnchor) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns);
+        for (int i = 0; i < keys.length; i++) {
+            sql.append(", ").append(keys[i]).append(" AS k").append(i);
+        }
+        sql.append(" FROM ").append(from);
+
+        String where = filter;
+        if (hasAnchor) {
+            where = (where == null ? "" : "(" + where + ") AND ") + keysetPredicate();
+        }
+        if (where != null) {
+            sql.append(" WHERE ").append(where);
+        }
+
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(keys[i]).append(ascending ? " ASC" : " DESC");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Builds {@code (k0 > ?) OR (k0 = ? AND k1 > ?) OR ...}, with {@code <} for
+     * descending order.
+     *
+     * @return the predicate
+     */
+    private String keysetPredicate() {
+        String cmp = ascending ? " > ?" : " < ?";
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(" OR ");
+            }
+            sb.append('(');
+            for (int j = 0; j < i; j++) {
+                sb.append(keys[j]).append(" = ? AND ");
+            }
+            sb.append(keys[i]).append(cmp).append(')');
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Binds the anchor key in the order used by the keyset predicate.
+     *
+     * @param pstmt  the statement
+     * @param index  the first parameter index to use
+     * @param anchor the key of the last row of the previous page
+     * @return the next free parameter index
+     * @throws SQLException if a parameter cannot be set
+     */
+    public int bindAnchor(PreparedStatement pstmt, int index, Object[] anchor) throws SQLException {
+        for (int i = 0; i < keys.length; i++) {
+            for (int j = 0; j <= i; j++) {
+                pstmt.setObject(index++, anchor[j]);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads the sort key of the current row.
+     *
+     * @param rs a result set positioned on a row of this query
+     * @return the key values
+     * @throws SQLException if a column cannot be read
+     */
+    public Object[] readKey(ResultSet rs) throws SQLException {
+        Object[] key = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            key[i] = rs.getObject("k" + i);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,42 @@
+package school.management.system.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of merging imported rows into a table: how many were new, how
+ * many changed an existing row and how many matched one already.
+ *
+ * @author Ibn Issah
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MergeCounts {
+    /** Rows added. */
+    private final int inserted;
+    /** Existing rows changed. */
+    private final int updated;
+    /** Rows identical to an existing row, left untouched. */
+    private final int unchanged;
+
+    /**
+     * Adds the counts of another merge, e.g. the next chunk of one import.
+     *
+     * @param other the other counts
+     * @return the sums
+     */
+    public MergeCounts plus(MergeCounts other) {
+        return new MergeCounts(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged);
+    }
+
+    /**
+     * Returns the number of rows merged.
+     *
+     * @return inserted, updated and unchanged rows together
+     */
+    public int getTotal() {
+        return inserted + updated + unchanged;
+    }
+}
@@ -0,0 +1,22 @@
+package school.management.system.data;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One page of rows returned by a keyset query, together with the sort key of
+ * its last row so the next page can continue from there.
+ *
+ * @param <T> the type of the rows
+ * @author Ibn Issah
+ */
+@Getter
+@AllArgsConstructor
+public class Page<T> {
+    /** The rows of this page, in sort order. */
+    private final List<T> rows;
+    /** The sort key of the last row, or {@code null} if the page is empty. */
+    private final Object[] lastKey;
+}
@@ -0,0 +1,213 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A lane of read queries in which every new request supersedes the one before
+ * it, e.g. one lane per search box or per filtered table. Starting a request
+ * with {@link #next()} cancels the queries of the previous request that are
+ * still running, with {@link Statement#cancel()}, so typing quickly does not
+ * leave a queue of outdated queries holding pool connections.
+ * <p>
+ * The queries of a request run inside {@link Ticket#run(DataService.DbCall)}.
+ * {@link DB} prepares the statements of its interactive reads (search, table
+ * count and page queries) through {@link #prepare(Connection, String)}, which
+ * registers them with the ticket of the calling thread and applies the lane's
+ * query timeout. Outside a ticket it behaves like
+ * {@link Connection#prepareStatement(String)}.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class QueryLane {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(QueryLane.class.getName());
+
+    /** The ticket run by the current thread and the statements it prepared. */
+    private static final ThreadLocal<Run> ACTIVE = new ThreadLocal<>();
+
+    /**
+     * One call running under a ticket on one thread.
+     *
+     * @param ticket     the ticket
+     * @param statements the statements prepared by this call
+     */
+    private record Run(Ticket ticket, List<Statement> statements) {
+    }
+
+    /**
+     * The queries of one request. Several calls may run under the same ticket
+     * at once, e.g. the pages of one table generation.
+     */
+    public static final class Ticket {
+        /** Query timeout in seconds, or 0 for none. */
+        private final int timeoutSeconds;
+        /** Statements currently executing; guarded by {@code this}. */
+        private final Set<Statement> statements = new HashSet<>();
+        /** Set once superseded; guarded by {@code this}. */
+        private boolean cancelled;
+
+        private Ticket(int timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        /**
+         * Runs database calls as part of this request.
+         *
+         * @param <T>  the type of the result
+         * @param call the call
+         * @return its result
+         * @throws CancellationException if the request was superseded
+         * @throws Exception             if the call fails
+         */
+        public <T> T run(DataService.DbCall<T> call) throws Exception {
+            Run previous = ACTIVE.get();
+            Run run = new Run(this, new ArrayList<>());
+            ACTIVE.set(run);
+            try {
+                T result = call.call();
+                if (isCancelled()) {
+                    throw new CancellationException("Query superseded");
+                }
+                return result;
+            } catch (CancellationException e) {
+                throw e;
+            } catch (Exception e) {
+                if (isCancelled()) {
+                    // The driver reports a cancelled statement as an error, possibly wrapped.
+                    throw (CancellationException) new CancellationException("Query superseded").initCause(e);
+                }
+                throw e;
+            } finally {
+                forget(run.statements());
+                if (previous == null) {
+                    ACTIVE.remove();
+                } else {
+                    ACTIVE.set(previous);
+                }
+            }
+        }
+
+        /**
+         * Tells whether a newer request has superseded this one.
+         *
+         * @return {@code true} if cancelled
+         */
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Adds a statement to cancel if the request is superseded.
+         *
+         * @param statement the statement, about to execute
+         * @throws SQLException if the request is already cancelled
+         */
+        private synchronized void register(Statement statement) throws SQLException {
+            if (cancelled) {
+                throw new SQLException("Query superseded");
+            }
+            statements.add(statement);
+        }
+
+        /**
+         * Drops statements whose call has finished.
+         *
+         * @param finished the statements
+         */
+        private synchronized void forget(List<Statement> finished) {
+            finished.forEach(statements::remove);
+        }
+
+        /** Marks the request cancelled and cancels its running statements. */
+        private synchronized void cancel() {
+            cancelled = true;
+            for (Statement statement : statements) {
+                try {
+                    statement.cancel();
+                } catch (SQLException | RuntimeException e) {
+                    // Usually the statement finished in the meantime.
+                    LOGGER.log(Level.FINE, "Could not cancel a superseded query", e);
+                }
+            }
+            statements.clear();
+        }
+    }
+
+    /** Query timeout applied to every statement, in seconds. */
+    private final int timeoutSeconds;
+    /** The request whose queries may still run; guarded by {@code this}. */
+    private Ticket current;
+
+    /**
+     * Creates a lane.
+     *
+     * @param timeoutSeconds the query timeout in seconds, or 0 for none
+     */
+    public QueryLane(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Starts a new request, cancelling the previous one.
+     *
+     * @return the ticket of the new request
+     */
+    public synchronized Ticket next() {
+        if (current != null) {
+            current.cancel();
+        }
+        current = new Ticket(timeoutSeconds);
+        return current;
+    }
+
+    /**
+     * Cancels the current request, if any.
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.cancel();
+            current = null;
+        }
+    }
+
+    /**
+     * Prepares a statement, registering it with the ticket the current thread
+     * runs under, if any, and applying that lane's query timeout.
+     *
+     * @param con an open connection
+     * @param sql the SQL
+     * @return the statement
+     * @throws SQLException if it cannot be prepared, or the request was
+     *                      already superseded
+     */
+    static PreparedStatement prepare(Connection con, String sql) throws SQLException {
+        PreparedStatement pstmt = con.prepareStatement(sql);
+        Run run = ACTIVE.get();
+        if (run == null) {
+            return pstmt;
+        }
+        try {
+            if (run.ticket().timeoutSeconds > 0) {
+                pstmt.setQueryTimeout(run.ticket().timeoutSeconds);
+            }
+            run.ticket().register(pstmt);
+            run.statements().add(pstmt);
+            return pstmt;
+        } catch (SQLException e) {
+            pstmt.close();
+            throw e;
+        }
+    }
+}
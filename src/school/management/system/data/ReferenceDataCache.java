@@ -0,0 +1,270 @@
+package school.management.system.data;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import school.management.system.model.SchoolClass;
+import school.management.system.model.subject.Subject;
+
+/**
+ * An in-process cache for the small reference tables ({@code class_levels} and
+ * {@code subjects}). Each table is held as an immutable snapshot containing the
+ * ordered list used by the combo boxes and an id&rarr;name map used when
+ * rendering students and assignments.
+ * <p>
+ * Every snapshot is stamped with the version of its table at the time it was
+ * loaded. Write methods in {@link DB} bump the version, which makes the next
+ * read reload the table. A load that races with an invalidation is returned to
+ * its caller but never installed, so a stale snapshot cannot outlive a write.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public class ReferenceDataCache {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(ReferenceDataCache.class.getName());
+
+    /**
+     * Loads the full, ordered contents of a reference table.
+     *
+     * @param <T> the type of the rows
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        /**
+         * Loads all rows of the table.
+         *
+         * @return the rows, in display order
+         * @throws SQLException if a database error occurs
+         */
+        List<T> load() throws SQLException;
+    }
+
+    /**
+     * An immutable view of one reference table.
+     *
+     * @param <T> the type of the rows
+     */
+    private static final class Snapshot<T> {
+        /** The table version this snapshot was loaded at. */
+        private final long version;
+        /** The rows in display order. */
+        private final List<T> items;
+        /** Row names keyed by id. */
+        private final Map<Integer, String> names;
+
+        private Snapshot(long version, List<T> items, Map<Integer, String> names) {
+            this.version = version;
+            this.items = items;
+            this.names = names;
+        }
+    }
+
+    /**
+     * A single cached table with its version counter.
+     *
+     * @param <T> the type of the rows
+     */
+    private final class Table<T> {
+        /** Table name used in log messages. */
+        private final String name;
+        /** Loads the table from the database. */
+        private final Loader<T> loader;
+        /** Extracts the id of a row. */
+        private final Function<T, Integer> idOf;
+        /** Extracts the name of a row. */
+        private final Function<T, String> nameOf;
+        /** Incremented on every write to the table. */
+        private final AtomicLong version = new AtomicLong();
+        /** The most recently installed snapshot, or {@code null}. */
+        private volatile Snapshot<T> snapshot;
+
+        private Table(String name, Loader<T> loader, Function<T, Integer> idOf, Function<T, String> nameOf) {
+            this.name = name;
+            this.loader = loader;
+            this.idOf = idOf;
+            this.nameOf = nameOf;
+        }
+
+        /**
+         * Returns a snapshot that is current for this table, loading one if needed.
+         *
+         * @return the current snapshot
+         * @throws SQLException if the table has to be loaded and the load fails
+         */
+        private Snapshot<T> current() throws SQLException {
+            Snapshot<T> snap = snapshot;
+            long expected = version.get();
+            if (snap != null && snap.version == expected) {
+                hits.increment();
+                return snap;
+            }
+            misses.increment();
+
+            List<T> rows = loader.load();
+            Map<Integer, String> names = new HashMap<>(rows.size() * 2);
+            for (T row : rows) {
+                names.put(idOf.apply(row), nameOf.apply(row));
+            }
+            Snapshot<T> loaded = new Snapshot<>(expected, Collections.unmodifiableList(rows),
+                    Collections.unmodifiableMap(names));
+            // Only publish if no write happened while we were loading.
+            if (version.get() == expected) {
+                snapshot = loaded;
+            }
+            LOGGER.log(Level.FINE, "Loaded {0} (version {1}): {2} rows; {3}",
+                    new Object[] { name, expected, rows.size(), getStats() });
+            return loaded;
+        }
+
+        /** Marks the cached snapshot as stale. */
+        private void invalidate() {
+            version.incrementAndGet();
+        }
+    }
+
+    /** Number of reads answered from a cached snapshot. */
+    private final LongAdder hits = new LongAdder();
+    /** Number of reads that had to go to the database. */
+    private final LongAdder misses = new LongAdder();
+    /** The cached {@code class_levels} table. */
+    private final Table<SchoolClass> classes;
+    /** The cached {@code subjects} table. */
+    private final Table<Subject> subjects;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param classLoader   loads all class levels ordered by name
+     * @param subjectLoader loads all subjects ordered by name
+     */
+    public ReferenceDataCache(Loader<SchoolClass> classLoader, Loader<Subject> subjectLoader) {
+        this.classes = new Table<>("class_levels", classLoader, SchoolClass::getId, SchoolClass::getName);
+        this.subjects = new Table<>("subjects", subjectLoader, Subject::getId, Subject::getName);
+    }
+
+    /**
+     * Returns all class levels ordered by name.
+     *
+     * @return an unmodifiable list of classes
+     * @throws SQLException if the classes have to be loaded and the load fails
+     */
+    public List<SchoolClass> getClasses() throws SQLException {
+        return classes.current().items;
+    }
+
+    /**
+     * Returns the name of a class level.
+     *
+     * @param classId the class ID
+     * @return the class name, or {@code null} if no such class exists
+     * @throws SQLException if the classes have to be loaded and the load fails
+     */
+    public String getClassName(int classId) throws SQLException {
+        return classes.current().names.get(classId);
+    }
+
+    /**
+     * Returns the names of all class levels, for resolving many rows at once.
+     *
+     * @return an unmodifiable map of class names keyed by class ID
+     * @throws SQLException if the classes have to be loaded and the load fails
+     */
+    public Map<Integer, String> getClassNames() throws SQLException {
+        return classes.current().names;
+    }
+
+    /**
+     * Returns all subjects ordered by name.
+     *
+     * @return an unmodifiable list of subjects
+     * @throws SQLException if the subjects have to be loaded and the load fails
+     */
+    public List<Subject> getSubjects() throws SQLException {
+        return subjects.current().items;
+    }
+
+    /**
+     * Returns the name of a subject.
+     *
+     * @param subjectId the subject ID
+     * @return the subject name, or {@code null} if no such subject exists
+     * @throws SQLException if the subjects have to be loaded and the load fails
+     */
+    public String getSubjectName(int subjectId) throws SQLException {
+        return subjects.current().names.get(subjectId);
+    }
+
+    /** Invalidates the cached class levels. */
+    public void invalidateClasses() {
+        classes.invalidate();
+    }
+
+    /** Invalidates the cached subjects. */
+    public void invalidateSubjects() {
+        subjects.invalidate();
+    }
+
+    /** Invalidates every cached table. */
+    public void invalidateAll() {
+        classes.invalidate();
+        subjects.invalidate();
+    }
+
+    /**
+     * Returns the current version of the class levels table.
+     *
+     * @return the version counter
+     */
+    public long getClassVersion() {
+        return classes.version.get();
+    }
+
+    /**
+     * Returns the current version of the subjects table.
+     *
+     * @return the version counter
+     */
+    public long getSubjectVersion() {
+        return subjects.version.get();
+    }
+
+    /**
+     * Returns the number of reads served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of reads that went to the database.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns a one-line summary of the cache counters, for logs and diagnostics.
+     *
+     * @return the hit/miss summary
+     */
+    public String getStats() {
+        long h = getHits();
+        long m = getMisses();
+        long total = h + m;
+        return String.format("hits=%d, misses=%d, hitRate=%.1f%%", h, m, total == 0 ? 0.0 : 100.0 * h / total);
+    }
+}
@@ -0,0 +1,115 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns an open query into a lazy {@link Stream}, so whole-table passes
+ * (exports, migrations) map and hand on one row at a time instead of building
+ * a list of every row first. Peak memory is one fetch batch, whatever the table
+ * size.
+ * <p>
+ * The stream owns the connection, statement and result set, and must be closed,
+ * preferably with try-with-resources. Rows are read with a fetch size of
+ * {@link #FETCH_SIZE}: sqlite-jdbc steps through the result as it is consumed
+ * anyway, and on MySQL {@link DataSource} enables {@code useCursorFetch}, so
+ * the fetch size makes Connector/J read through a server-side cursor rather
+ * than load the whole result. A database error while the stream is consumed is
+ * thrown as an {@link UncheckedSQLException}.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+final class ResultSetStream {
+
+    /** Rows transferred per round trip. */
+    static final int FETCH_SIZE = 500;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ResultSetStream() {
+    }
+
+    /**
+     * Executes a prepared query and streams its rows. On success the stream
+     * takes over the connection and statement; on failure both are closed.
+     *
+     * @param <T>    the row type
+     * @param con    the connection, from {@link DataSource#getConnection()}
+     * @param pstmt  the query, with its parameters bound
+     * @param mapper maps each row
+     * @return the rows, in result order
+     * @throws SQLException if the query cannot be executed
+     */
+    static <T> Stream<T> of(Connection con, PreparedStatement pstmt, RowMapper<T> mapper) throws SQLException {
+        ResultSet rs;
+        try {
+            pstmt.setFetchSize(FETCH_SIZE);
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            closeAll(null, pstmt, con, e);
+            throw e;
+        }
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            SQLException failure = closeAll(rs, pstmt, con, null);
+            if (failure != null) {
+                throw new UncheckedSQLException(failure);
+            }
+        });
+    }
+
+    /**
+     * Closes the result set, statement and connection, in that order, whatever
+     * fails.
+     *
+     * @param rs      the result set, or null
+     * @param pstmt   the statement
+     * @param con     the connection
+     * @param primary an error already being thrown, which receives any close
+     *                failure as suppressed, or null
+     * @return the first close failure if there was no primary error, else null
+     */
+    private static SQLException closeAll(ResultSet rs, PreparedStatement pstmt, Connection con,
+            SQLException primary) {
+        SQLException failure = primary;
+        for (AutoCloseable resource : new AutoCloseable[] { rs, pstmt, con }) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                SQLException error = e instanceof SQLException sql ? sql : new SQLException(e);
+                if (failure == null) {
+                    failure = error;
+                } else {
+                    failure.addSuppressed(error);
+                }
+            }
+        }
+        return primary == null ? failure : null;
+    }
+}
@@ -0,0 +1,22 @@
+package school.management.system.data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an object.
+ *
+ * @param <T> the type of the mapped object
+ * @author Ibn Issah
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * Maps the current row. Implementations must not move the cursor.
+     *
+     * @param rs the result set, positioned on a row
+     * @return the mapped object
+     * @throws SQLException if a column cannot be read
+     */
+    T map(ResultSet rs) throws SQLException;
+}
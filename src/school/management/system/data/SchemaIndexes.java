@@ -0,0 +1,198 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The managed set of secondary indexes. {@link DB#setup()} calls
+ * {@link #ensureIndexes(Connection)} after the tables exist, and every index
+ * listed here is created if it is missing, on both SQLite and MySQL. To add an
+ * index, add it to {@link #INDEXES}; existing databases pick it up on the next
+ * start.
+ * <p>
+ * Each index backs a query the application runs often:
+ * </p>
+ * <ul>
+ * <li>the default student/teacher table order and its keyset continuation, by
+ * name and by the locale-aware name keys of {@link SortKeys},</li>
+ * <li>name prefix searches,</li>
+ * <li>students by class (class lists, reports, the per-class chart),</li>
+ * <li>attendance by student and day, which is also the unique key the
+ * attendance upsert relies on,</li>
+ * <li>payments by student, newest first (payment history), and payments by
+ * date (the fees-per-month chart, covered so the table is not touched),</li>
+ * <li>assignments by teacher and by class.</li>
+ * </ul>
+ *
+ * @author Ibn Issah
+ */
+public final class SchemaIndexes {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(SchemaIndexes.class.getName());
+
+    /**
+     * A secondary index. A column written as {@code name(n)} is indexed on its
+     * first {@code n} characters on MySQL, which cannot index {@code TEXT}
+     * columns whole; SQLite indexes the full column.
+     */
+    private static final class IndexDef {
+        /** The index name, unique across the schema. */
+        private final String name;
+        /** The indexed table. */
+        private final String table;
+        /** Whether the index is only created on SQLite. */
+        private final boolean sqliteOnly;
+        /** Whether the indexed columns must be unique. */
+        private final boolean unique;
+        /** The indexed columns, in order. */
+        private final String[] columns;
+
+        private IndexDef(String name, String table, String... columns) {
+            this(name, table, false, false, columns);
+        }
+
+        private IndexDef(String name, String table, boolean sqliteOnly, boolean unique, String... columns) {
+            this.name = name;
+            this.table = table;
+            this.sqliteOnly = sqliteOnly;
+            this.unique = unique;
+            this.columns = columns;
+        }
+
+        /**
+         * A unique index, which doubles as the conflict target of an upsert.
+         *
+         * @param name    the index name
+         * @param table   the indexed table
+         * @param columns the indexed columns
+         * @return the index
+         */
+        private static IndexDef unique(String name, String table, String... columns) {
+            return new IndexDef(name, table, false, true, columns);
+        }
+
+        /**
+         * A case-insensitive index on one text column, which lets SQLite answer
+         * {@code column LIKE 'prefix%'} with an index range instead of a scan
+         * (SQLite's LIKE ignores case, so it can only use a NOCASE index). MySQL
+         * compares case-insensitively already and uses the ordinary index.
+         *
+         * @param name   the index name
+         * @param table  the indexed table
+         * @param column the text column
+         * @return the index
+         */
+        private static IndexDef nocase(String name, String table, String column) {
+            return new IndexDef(name, table, true, false, column + " COLLATE NOCASE");
+        }
+
+        /**
+         * Builds the CREATE INDEX statement for a database.
+         *
+         * @param dialect the target database
+         * @return the DDL
+         */
+        private String toDdl(SqlDialect dialect) {
+            return dialect.createIndex(unique, name, table, columns);
+        }
+    }
+
+    /** The unique key of {@code student_attendance}: one status per student per day. */
+    static final String ATTENDANCE_KEY = "ux_attendance_student_date";
+
+    /** Every managed index. */
+    private static final List<IndexDef> INDEXES = List.of(
+            new IndexDef("idx_students_name", "students", "std_fname(64)", "std_lname(64)", "std_id"),
+            new IndexDef("idx_students_lname", "students", "std_lname(64)", "std_id"),
+            new IndexDef("idx_students_class", "students", "std_class"),
+            new IndexDef("idx_teachers_name", "teachers", "tch_name(64)", "tch_id"),
+            new IndexDef("idx_students_name_key", "students", "std_fname_key", "std_lname_key", "std_id"),
+            new IndexDef("idx_students_lname_key", "students", "std_lname_key", "std_id"),
+            new IndexDef("idx_teachers_name_key", "teachers", "tch_name_key", "tch_id"),
+            IndexDef.nocase("idx_students_fname_nocase", "students", "std_fname"),
+            IndexDef.nocase("idx_students_lname_nocase", "students", "std_lname"),
+            IndexDef.nocase("idx_teachers_name_nocase", "teachers", "tch_name"),
+            IndexDef.unique(ATTENDANCE_KEY, "student_attendance", "student_id", "attendance_date"),
+            new IndexDef("idx_payments_student_date", "student_payments", "student_id", "payment_date"),
+            new IndexDef("idx_payments_date", "student_payments", "payment_date", "amount_paid"),
+            new IndexDef("idx_assignments_teacher", "teacher_assignments", "teacher_id"),
+            new IndexDef("idx_assignments_class", "teacher_assignments", "class_level"));
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SchemaIndexes() {
+    }
+
+    /**
+     * Creates every managed index that does not exist yet. A failure on one index
+     * is logged and does not stop the others, so an odd legacy schema cannot
+     * prevent the application from starting.
+     *
+     * @param con an open connection
+     * @throws SQLException if the existing indexes cannot be listed
+     */
+    public static void ensureIndexes(Connection con) throws SQLException {
+        SqlDialect dialect = SqlDialect.current();
+        boolean mySql = dialect == SqlDialect.MYSQL;
+        int created = 0;
+        long start = System.nanoTime();
+        try (Statement stmt = con.createStatement()) {
+            for (IndexDef index : INDEXES) {
+                // SQLite DDL says IF NOT EXISTS itself; MySQL's cannot, so check first
+                if (mySql && (index.sqliteOnly || dialect.indexExists(con, index.table, index.name))) {
+                    continue;
+                }
+                try {
+                    stmt.execute(index.toDdl(dialect));
+                    created++;
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Could not create index " + index.name, e);
+                }
+            }
+            if (!mySql) {
+                // Let SQLite refresh planner statistics for any new index.
+                stmt.execute("PRAGMA optimize");
+            }
+        }
+        LOGGER.log(Level.FINE, "Checked {0} indexes ({1} statements) in {2} ms",
+                new Object[] { INDEXES.size(), created, (System.nanoTime() - start) / 1_000_000 });
+    }
+
+    /**
+     * Drops every managed index except {@link #ATTENDANCE_KEY}, which the
+     * attendance upsert cannot run without. Only {@link IndexBenchmark} uses
+     * this, to time the queries without the indexes.
+     *
+     * @param con an open connection
+     * @throws SQLException if an index cannot be dropped
+     */
+    static void dropIndexes(Connection con) throws SQLException {
+        SqlDialect dialect = SqlDialect.current();
+        try (Statement stmt = con.createStatement()) {
+            for (IndexDef index : INDEXES) {
+                if (!index.name.equals(ATTENDANCE_KEY) && dialect.indexExists(con, index.table, index.name)) {
+                    stmt.execute(dialect.dropIndex(index.table, index.name));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether an index already exists on either database.
+     *
+     * @param con       an open connection
+     * @param table     the table name
+     * @param indexName the index name
+     * @return {@code true} if it exists
+     * @throws SQLException if the catalog cannot be queried
+     */
+    static boolean indexExists(Connection con, String table, String indexName) throws SQLException {
+        return SqlDialect.current().indexExists(con, table, indexName);
+    }
+}
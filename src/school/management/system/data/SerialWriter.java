@@ -0,0 +1,295 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Runs every SQLite write on a single thread with a single connection. SQLite
+ * allows only one writer at a time, so funnelling writes through one queue
+ * removes lock contention between concurrent workers (and the
+ * {@code SQLITE_BUSY} errors it causes) instead of making each worker wait and
+ * retry on its own connection.
+ * <p>
+ * Writes that are queued while another batch is running are grouped into one
+ * transaction and committed together, so a burst of small writes pays for one
+ * sync instead of one per write. Each piece of work runs inside its own
+ * savepoint, so a failing write is rolled back alone and reported to its caller
+ * without affecting the others in the group. A caller is only told that its
+ * write succeeded after the group has been committed.
+ * </p>
+ * <p>
+ * Work submitted from the writer thread itself (a write method calling another)
+ * runs immediately in the current transaction.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class SerialWriter {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(SerialWriter.class.getName());
+    /** The most writes committed in one transaction. */
+    private static final int MAX_GROUP_SIZE = 64;
+
+    /**
+     * A queued write and its outcome.
+     *
+     * @param <T> the type of the result
+     */
+    private static final class Task<T> {
+        /** The work to run. */
+        private final SqlWork<T> work;
+        /** Completed once the group containing this task is committed. */
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        /** The result, once run. */
+        private T result;
+        /** The failure, if the work or its group failed. */
+        private Throwable error;
+
+        private Task(SqlWork<T> work) {
+            this.work = work;
+        }
+
+        /**
+         * Runs the work inside a savepoint, rolling back to it on failure.
+         *
+         * @param con the writer connection, inside a transaction
+         * @throws SQLException if the savepoint itself cannot be managed
+         */
+        private void runIn(Connection con) throws SQLException {
+            Savepoint savepoint = con.setSavepoint();
+            try {
+                result = work.apply(con);
+                con.releaseSavepoint(savepoint);
+            } catch (SQLException | RuntimeException e) {
+                con.rollback(savepoint);
+                error = e;
+            }
+        }
+
+        /** Publishes the outcome to the waiting caller. */
+        private void complete() {
+            if (error == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    /** Pool holding the single writer connection. */
+    private final HikariDataSource pool;
+    /** Pending writes. */
+    private final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+    /** The writer thread. */
+    private final Thread thread;
+    /** Cleared by {@link #shutdown()}. */
+    private volatile boolean running = true;
+    /** The connection of the running group; only touched on the writer thread. */
+    private Connection current;
+    /** Number of committed transactions. */
+    private final LongAdder groups = new LongAdder();
+    /** Number of writes run. */
+    private final LongAdder writes = new LongAdder();
+
+    /**
+     * Creates the writer and starts its thread.
+     *
+     * @param pool a pool limited to one connection to the database
+     */
+    public SerialWriter(HikariDataSource pool) {
+        this.pool = pool;
+        this.thread = new Thread(this::run, "db-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a write.
+     *
+     * @param <T>  the type of the result
+     * @param work the write
+     * @return a future completed after the write has been committed, or
+     *         completed exceptionally if it failed
+     */
+    public <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        if (Thread.currentThread() == thread) {
+            // Nested write: join the transaction that is already running.
+            try {
+                return CompletableFuture.completedFuture(work.apply(current));
+            } catch (SQLException | RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (!running) {
+            return CompletableFuture.failedFuture(stopped());
+        }
+        Task<T> task = new Task<>(work);
+        queue.add(task);
+        // shutdown() may have run in between; if the writer loop has not taken the task, nobody will.
+        if (!running && queue.remove(task)) {
+            return CompletableFuture.failedFuture(stopped());
+        }
+        return task.future;
+    }
+
+    /**
+     * Queues a write and waits until it has been committed.
+     *
+     * @param <T>  the type of the result
+     * @param work the write
+     * @return the result of the work
+     * @throws SQLException if the write or its commit failed
+     */
+    public <T> T execute(SqlWork<T> work) throws SQLException {
+        try {
+            return submit(work).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * Stops accepting writes and waits up to five seconds for the queued ones
+     * to finish. The writer thread closes the connection itself once its last
+     * group has ended, so a group still running is never cut off.
+     *
+     * @return {@code true} if the writer has ended and its connection is
+     *         closed, {@code false} if it is still finishing writes
+     */
+    public boolean shutdown() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            LOGGER.log(Level.WARNING, "The database writer is still finishing queued writes; {0}", getStats());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a one-line summary of the writer counters.
+     *
+     * @return the number of writes, commits and the average group size
+     */
+    public String getStats() {
+        long g = groups.sum();
+        long w = writes.sum();
+        return String.format("writes=%d, commits=%d, avgGroup=%.2f, queued=%d", w, g, g == 0 ? 0.0 : (double) w / g,
+                queue.size());
+    }
+
+    /** The writer loop: take the next write plus whatever else is queued, run them as one group. */
+    private void run() {
+        List<Task<?>> group = new ArrayList<>(MAX_GROUP_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task<?> first = queue.poll(250, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP_SIZE - 1);
+                runGroup(group);
+            } catch (InterruptedException e) {
+                // Only shutdown() stops the loop; keep draining.
+            } catch (Throwable t) {
+                // Whatever went wrong, the writer thread must survive it, or every later write would wait forever.
+                LOGGER.log(Level.SEVERE, "The database writer failed a group of " + group.size() + " writes", t);
+                for (Task<?> task : group) {
+                    task.future.completeExceptionally(t);
+                }
+            } finally {
+                group.clear();
+            }
+        }
+        // A write queued as the loop ended is failed rather than left waiting forever.
+        Task<?> left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(stopped());
+        }
+        pool.close();
+    }
+
+    /**
+     * Returns the failure reported for writes made after shutdown.
+     *
+     * @return the exception
+     */
+    private static SQLException stopped() {
+        return new SQLException("The database writer has been shut down");
+    }
+
+    /**
+     * Runs a group of writes in one transaction and reports each outcome.
+     *
+     * @param group the writes, in submission order
+     */
+    private void runGroup(List<Task<?>> group) {
+        try (Connection con = pool.getConnection()) {
+            con.setAutoCommit(false);
+            current = con;
+            try {
+                for (Task<?> task : group) {
+                    task.runIn(con);
+                }
+                con.commit();
+                groups.increment();
+                writes.add(group.size());
+            } catch (SQLException | RuntimeException | Error e) {
+                // The transaction is lost as a whole, so every write in it failed. An Error (out of memory, stack
+                // overflow) from one write also lands here, so the group is still rolled back and reported.
+                LOGGER.log(Level.WARNING, "Group commit of " + group.size() + " writes failed", e);
+                try {
+                    con.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                for (Task<?> task : group) {
+                    if (task.error == null) {
+                        task.error = e;
+                    }
+                }
+            } finally {
+                current = null;
+            }
+        } catch (SQLException e) {
+            for (Task<?> task : group) {
+                task.error = e;
+            }
+        }
+        if (group.size() > 1) {
+            LOGGER.log(Level.FINE, "Committed {0} writes together; {1}", new Object[] { group.size(), getStats() });
+        }
+        for (Task<?> task : group) {
+            task.complete();
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import school.management.system.App;
+import school.management.system.model.student.Student;
+import school.management.system.model.teacher.Teacher;
+
+/**
+ * Precomputed, locale-aware sort keys for the name columns of the student and
+ * teacher tables. {@link DB#setup()} calls {@link #ensureSchema(Connection)}
+ * before the managed indexes are created.
+ * <p>
+ * The tables are sorted by the database, which compares text by code point
+ * on SQLite: "Émile" sorts after "Zoe" and "adams" after "Young". Each name
+ * column therefore has a companion {@code *_key} column holding the
+ * {@link java.text.CollationKey} of the name for the default locale, computed
+ * once when the row is written. Collation keys compare byte by byte, so both
+ * databases can order and index them as plain binary values, and the keyset
+ * paging in {@link KeysetQuery} works on them unchanged.
+ * </p>
+ * <p>
+ * The keys are written by the {@link DB} write methods, in the same
+ * transaction as the row. Rows written without them (older versions, the MySQL
+ * migration) are filled in on the next start, and every key is recomputed when
+ * the default locale changes. If the columns cannot be added, sorting falls
+ * back to the plain name columns.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class SortKeys {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(SortKeys.class.getName());
+
+    /** Preference key recording the locale the stored keys were built for. */
+    private static final String LOCALE_PREF = "sortKeyLocale";
+
+    /**
+     * Longest key stored. Longer keys are truncated, which can only tie two
+     * names that share a very long prefix; the ID then breaks the tie.
+     */
+    private static final int MAX_KEY_BYTES = 512;
+
+    /** Rows updated per batch when filling keys. */
+    private static final int BATCH_SIZE = 500;
+
+    /** The collator; guarded by itself, as collators are not thread-safe. */
+    private static final Collator COLLATOR = Collator.getInstance();
+
+    static {
+        // Treat precomposed and combining accents alike.
+        COLLATOR.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+    }
+
+    /** The student key columns, each with the name column it is computed from. */
+    private static final String[][] STUDENT_KEYS = { { "std_fname_key", "std_fname" },
+            { "std_lname_key", "std_lname" } };
+    /** The teacher key column, with the name column it is computed from. */
+    private static final String[][] TEACHER_KEYS = { { "tch_name_key", "tch_name" } };
+
+    /** Whether the key columns exist and are filled; set by {@link #ensureSchema(Connection)}. */
+    private static volatile boolean available;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SortKeys() {
+    }
+
+    /**
+     * Adds the key columns if they are missing and fills every key that is
+     * missing, or every key if the locale changed since they were built. A
+     * failure is logged and leaves sorting on the plain name columns.
+     *
+     * @param con an open connection, in auto-commit mode
+     */
+    public static void ensureSchema(Connection con) {
+        long start = System.nanoTime();
+        String locale = Locale.getDefault().toLanguageTag();
+        boolean rebuild = !locale.equals(App.prefs.get(LOCALE_PREF, locale));
+        try {
+            addColumns(con, "students", STUDENT_KEYS);
+            addColumns(con, "teachers", TEACHER_KEYS);
+            int filled = fill(con, "students", "std_id", STUDENT_KEYS, rebuild)
+                    + fill(con, "teachers", "tch_id", TEACHER_KEYS, rebuild);
+            App.prefs.put(LOCALE_PREF, locale);
+            available = true;
+            LOGGER.log(Level.FINE, "Sort keys checked in {0} ms ({1} rows keyed)",
+                    new Object[] { (System.nanoTime() - start) / 1_000_000, filled });
+        } catch (SQLException e) {
+            available = false;
+            LOGGER.log(Level.WARNING, "Sort keys unavailable; sorting names by code point", e);
+        }
+    }
+
+    /**
+     * Fills the keys of rows written without them, e.g. by the MySQL migration.
+     *
+     * @param con an open connection, in auto-commit mode
+     * @throws SQLException if the keys cannot be written
+     */
+    public static void fillMissing(Connection con) throws SQLException {
+        if (available) {
+            fill(con, "students", "std_id", STUDENT_KEYS, false);
+            fill(con, "teachers", "tch_id", TEACHER_KEYS, false);
+        }
+    }
+
+    /**
+     * Returns whether the key columns exist and are maintained.
+     *
+     * @return {@code true} if writers should store keys
+     */
+    static boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Returns the key columns of a table, for writers that store the keys
+     * together with the row.
+     *
+     * @param table the table name
+     * @return pairs of key column and the name column it is computed from;
+     *         empty if the table has no keys or keys are not maintained
+     */
+    static String[][] keyColumns(String table) {
+        if (!available) {
+            return new String[0][];
+        }
+        return switch (table) {
+            case "students" -> STUDENT_KEYS;
+            case "teachers" -> TEACHER_KEYS;
+            default -> new String[0][];
+        };
+    }
+
+    /**
+     * Returns the expression to sort a name column by.
+     *
+     * @param keyColumn  the key column, e.g. {@code s.std_fname_key}
+     * @param textColumn the name column, e.g. {@code s.std_fname}
+     * @return the key column if keys are maintained, otherwise the name column
+     */
+    static String column(String keyColumn, String textColumn) {
+        return available ? keyColumn : textColumn;
+    }
+
+    /**
+     * Computes the sort key of a name.
+     *
+     * @param text the name, may be null
+     * @return the collation key bytes; empty for null
+     */
+    static byte[] of(String text) {
+        if (text == null) {
+            return new byte[0];
+        }
+        byte[] key;
+        synchronized (COLLATOR) {
+            key = COLLATOR.getCollationKey(text).toByteArray();
+        }
+        return key.length > MAX_KEY_BYTES ? Arrays.copyOf(key, MAX_KEY_BYTES) : key;
+    }
+
+    /**
+     * Writes the keys of one student. Call it on the connection that wrote the
+     * row, before the transaction commits.
+     *
+     * @param con       the writing connection
+     * @param id        the student ID
+     * @param firstName the first name
+     * @param lastName  the last name
+     * @throws SQLException if the keys cannot be written
+     */
+    static void setStudentKeys(Connection con, int id, String firstName, String lastName) throws SQLException {
+        if (!available) {
+            return;
+        }
+        try (PreparedStatement pstmt = con
+                .prepareStatement("UPDATE students SET std_fname_key = ?, std_lname_key = ? WHERE std_id = ?")) {
+            pstmt.setBytes(1, of(firstName));
+            pstmt.setBytes(2, of(lastName));
+            pstmt.setInt(3, id);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Writes the key of one teacher. Call it on the connection that wrote the
+     * row, before the transaction commits.
+     *
+     * @param con  the writing connection
+     * @param id   the teacher ID
+     * @param name the name
+     * @throws SQLException if the key cannot be written
+     */
+    static void setTeacherKey(Connection con, int id, String name) throws SQLException {
+        if (!available) {
+            return;
+        }
+        try (PreparedStatement pstmt = con.prepareStatement("UPDATE teachers SET tch_name_key = ? WHERE tch_id = ?")) {
+            pstmt.setBytes(1, of(name));
+            pstmt.setInt(2, id);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Writes the keys of students in one batch. Call it on the connection that
+     * wrote the rows, before the transaction commits.
+     *
+     * @param con      the writing connection
+     * @param students the students, with their IDs
+     * @throws SQLException if the keys cannot be written
+     */
+    static void setStudentKeys(Connection con, List<Student> students) throws SQLException {
+        if (!available || students.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = con
+                .prepareStatement("UPDATE students SET std_fname_key = ?, std_lname_key = ? WHERE std_id = ?")) {
+            for (Student student : students) {
+                pstmt.setBytes(1, of(student.getFirstName()));
+                pstmt.setBytes(2, of(student.getLastName()));
+                pstmt.setInt(3, student.getId());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Writes the keys of teachers in one batch. Call it on the connection that
+     * wrote the rows, before the transaction commits.
+     *
+     * @param con      the writing connection
+     * @param teachers the teachers, with their IDs
+     * @throws SQLException if the keys cannot be written
+     */
+    static void setTeacherKeys(Connection con, List<Teacher> teachers) throws SQLException {
+        if (!available || teachers.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = con.prepareStatement("UPDATE teachers SET tch_name_key = ? WHERE tch_id = ?")) {
+            for (Teacher teacher : teachers) {
+                pstmt.setBytes(1, of(teacher.getName()));
+                pstmt.setInt(2, teacher.getId());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Adds the key columns a table is missing.
+     *
+     * @param con   the connection
+     * @param table the table
+     * @param keys  the key and text column pairs
+     * @throws SQLException if a column cannot be added
+     */
+    private static void addColumns(Connection con, String table, String[][] keys) throws SQLException {
+        String type = SqlDialect.current().binaryType(MAX_KEY_BYTES);
+        try (Statement stmt = con.createStatement()) {
+            for (String[] key : keys) {
+                if (!columnExists(con, table, key[0])) {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + key[0] + " " + type);
+                    LOGGER.log(Level.INFO, "Added sort key column {0}.{1}", new Object[] { table, key[0] });
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes and stores keys, in one transaction. The names are read first and
+     * the updates batched, so the table is not read and written at once.
+     *
+     * @param con      the connection
+     * @param table    the table
+     * @param idColumn the primary key column
+     * @param keys     the key and text column pairs
+     * @param all      {@code true} to rebuild every key, {@code false} for missing
+     *                 ones only
+     * @return the number of rows keyed
+     * @throws SQLException if the keys cannot be written
+     */
+    private static int fill(Connection con, String table, String idColumn, String[][] keys, boolean all)
+            throws SQLException {
+        StringBuilder select = new StringBuilder("SELECT ").append(idColumn);
+        StringBuilder missing = new StringBuilder();
+        StringBuilder update = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        for (int i = 0; i < keys.length; i++) {
+            select.append(", ").append(keys[i][1]);
+            missing.append(i > 0 ? " OR " : "").append(keys[i][0]).append(" IS NULL");
+            update.append(i > 0 ? ", " : "").append(keys[i][0]).append(" = ?");
+        }
+        select.append(" FROM ").append(table);
+        if (!all) {
+            select.append(" WHERE ").append(missing);
+        }
+        update.append(" WHERE ").append(idColumn).append(" = ?");
+
+        List<Object[]> rows = new ArrayList<>();
+        try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(select.toString())) {
+            while (rs.next()) {
+                Object[] row = new Object[keys.length + 1];
+                row[0] = rs.getInt(1);
+                for (int i = 0; i < keys.length; i++) {
+                    row[i + 1] = rs.getString(i + 2);
+                }
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        con.setAutoCommit(false);
+        try (PreparedStatement pstmt = con.prepareStatement(update.toString())) {
+            int pending = 0;
+            for (Object[] row : rows) {
+                for (int i = 0; i < keys.length; i++) {
+                    pstmt.setBytes(i + 1, of((String) row[i + 1]));
+                }
+                pstmt.setInt(keys.length + 1, (Integer) row[0]);
+                pstmt.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    pstmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                pstmt.executeBatch();
+            }
+            con.commit();
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+        LOGGER.log(Level.INFO, "Computed sort keys for {0} rows of {1}", new Object[] { rows.size(), table });
+        return rows.size();
+    }
+
+    /**
+     * Checks whether a table has a column, on either database.
+     *
+     * @param con    an open connection
+     * @param table  the table
+     * @param column the column
+     * @return {@code true} if it exists
+     * @throws SQLException if the catalog cannot be queried
+     */
+    private static boolean columnExists(Connection con, String table, String column) throws SQLException {
+        DatabaseMetaData meta = con.getMetaData();
+        try (ResultSet rs = meta.getColumns(con.getCatalog(), null, table, column)) {
+            return rs.next();
+        }
+    }
+}
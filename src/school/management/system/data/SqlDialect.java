@@ -0,0 +1,441 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.zaxxer.hikari.HikariConfig;
+
+/**
+ * The SQL that differs between the two supported databases, so {@link DB} and
+ * the schema classes can use the best form on each rather than a subset both
+ * accept. {@link #current()} returns the dialect of the database
+ * {@link DataSource} connected to.
+ * <p>
+ * It covers table DDL (column types written as placeholders, see
+ * {@link #ddl(String)}), index and trigger DDL, upserts, staging tables,
+ * grouping dates by month, binary column types and the pool settings that make
+ * batched inserts fast. Pagination needs no hook: {@code LIMIT ? OFFSET ?} and the keyset
+ * predicate of {@link KeysetQuery} are the fastest form on both databases. The
+ * full-text index has its own per-database code in {@link FullTextSearch}.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public enum SqlDialect {
+    /** SQLite through sqlite-jdbc. */
+    SQLITE(Map.of("id", "integer PRIMARY KEY", "int", "integer", "text", "text", "name", "text", "blob", "blob",
+            "real", "real", "date", "date", "options", "")) {
+
+        @Override
+        String onConflict(String table, String[] key, String[] update) {
+            StringBuilder sql = new StringBuilder(" ON CONFLICT(").append(String.join(", ", key))
+                    .append(") DO UPDATE SET ");
+            StringBuilder changed = new StringBuilder();
+            for (int i = 0; i < update.length; i++) {
+                sql.append(i > 0 ? ", " : "").append(update[i]).append(" = excluded.").append(update[i]);
+                changed.append(i > 0 ? " OR " : "").append(table).append('.').append(update[i])
+                        .append(" IS NOT excluded.").append(update[i]);
+            }
+            // Skip rows that would not change, so they are not rewritten.
+            return sql.append(" WHERE ").append(changed).toString();
+        }
+
+        @Override
+        public String monthBucket(String column) {
+            // sqlite-jdbc stores java.sql.Date as epoch milliseconds; imported rows may hold ISO text.
+            return "CASE WHEN typeof(" + column + ") = 'integer' THEN strftime('%Y-%m', " + column
+                    + " / 1000, 'unixepoch', 'localtime') ELSE substr(" + column + ", 1, 7) END";
+        }
+
+        @Override
+        public String sameValue(String left, String right) {
+            return left + " IS " + right;
+        }
+
+        @Override
+        public String binaryType(int maxBytes) {
+            return "blob";
+        }
+
+        @Override
+        public void createStagingTable(Statement stmt, String staging, String table, String[] columns)
+                throws SQLException {
+            dropStagingTable(stmt, staging);
+            stmt.execute("CREATE TEMP TABLE " + staging + " AS SELECT " + String.join(", ", columns) + " FROM "
+                    + table + " WHERE 0");
+            stmt.execute("CREATE UNIQUE INDEX temp." + staging + "_key ON " + staging + " (" + columns[0] + ")");
+        }
+
+        @Override
+        public void dropStagingTable(Statement stmt, String staging) throws SQLException {
+            stmt.execute("DROP TABLE IF EXISTS temp." + staging);
+        }
+
+        @Override
+        public String createIndex(boolean unique, String name, String table, String... columns) {
+            StringBuilder cols = new StringBuilder();
+            for (String column : columns) {
+                // SQLite indexes whole values; drop MySQL prefix lengths.
+                cols.append(cols.length() > 0 ? ", " : "").append(column.replaceAll("\\(\\d+\\)$", ""));
+            }
+            return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + name + " ON " + table + " ("
+                    + cols + ")";
+        }
+
+        @Override
+        public String dropIndex(String table, String name) {
+            return "DROP INDEX IF EXISTS " + name;
+        }
+
+        @Override
+        public boolean indexExists(Connection con, String table, String name) throws SQLException {
+            return exists(con, "SELECT 1 FROM sqlite_master WHERE type = 'index' AND tbl_name = ? AND name = ?",
+                    table, name);
+        }
+
+        @Override
+        public boolean createTrigger(Connection con, Statement stmt, String name, String event, String table,
+                String body) throws SQLException {
+            if (exists(con, "SELECT 1 FROM sqlite_master WHERE type = 'trigger' AND name = ?", name)) {
+                return false;
+            }
+            stmt.execute("CREATE TRIGGER " + name + " " + event + " ON " + table + " BEGIN " + body + "; END");
+            return true;
+        }
+
+        @Override
+        public void configurePool(HikariConfig config) {
+            // Connection pragmas come from the selected SqliteProfile.
+        }
+    },
+
+    /** MySQL 8 (InnoDB) through Connector/J. */
+    MYSQL(Map.of("id", "INT AUTO_INCREMENT PRIMARY KEY", "int", "INT", "text", "TEXT", "name", "VARCHAR(191)",
+            "blob", "LONGBLOB", "real", "DOUBLE", "date", "DATE", "options",
+            " ENGINE=InnoDB DEFAULT CHARSET=utf8mb4")) {
+
+        @Override
+        String onConflict(String table, String[] key, String[] update) {
+            // The unique key is implied: MySQL uses whichever unique index the row collides with.
+            StringBuilder sql = new StringBuilder(" ON DUPLICATE KEY UPDATE ");
+            for (int i = 0; i < update.length; i++) {
+                sql.append(i > 0 ? ", " : "").append(update[i]).append(" = VALUES(").append(update[i]).append(')');
+            }
+            return sql.toString();
+        }
+
+        @Override
+        public String monthBucket(String column) {
+            return "DATE_FORMAT(" + column + ", '%Y-%m')";
+        }
+
+        @Override
+        public String sameValue(String left, String right) {
+            return left + " <=> " + right;
+        }
+
+        @Override
+        public String binaryType(int maxBytes) {
+            return "VARBINARY(" + maxBytes + ")";
+        }
+
+        @Override
+        public void createStagingTable(Statement stmt, String staging, String table, String[] columns)
+                throws SQLException {
+            dropStagingTable(stmt, staging);
+            // The key is declared inline: CREATE INDEX would commit the surrounding transaction.
+            stmt.execute("CREATE TEMPORARY TABLE " + staging + " (PRIMARY KEY (" + columns[0] + ")) AS SELECT "
+                    + String.join(", ", columns) + " FROM " + table + " WHERE FALSE");
+        }
+
+        @Override
+        public void dropStagingTable(Statement stmt, String staging) throws SQLException {
+            // TEMPORARY keeps it from committing the transaction, and from matching a real table.
+            stmt.execute("DROP TEMPORARY TABLE IF EXISTS " + staging);
+        }
+
+        @Override
+        public String createIndex(boolean unique, String name, String table, String... columns) {
+            return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + name + " ON " + table + " ("
+                    + String.join(", ", columns) + ")";
+        }
+
+        @Override
+        public String dropIndex(String table, String name) {
+            return "DROP INDEX " + name + " ON " + table;
+        }
+
+        @Override
+        public boolean indexExists(Connection con, String table, String name) throws SQLException {
+            return exists(con, "SELECT 1 FROM information_schema.statistics"
+                    + " WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? LIMIT 1", table, name);
+        }
+
+        @Override
+        public boolean createTrigger(Connection con, Statement stmt, String name, String event, String table,
+                String body) throws SQLException {
+            // MySQL has no CREATE TRIGGER IF NOT EXISTS before 8.0.29.
+            if (exists(con, "SELECT 1 FROM information_schema.triggers"
+                    + " WHERE trigger_schema = DATABASE() AND trigger_name = ?", name)) {
+                return false;
+            }
+            // Commits implicitly, like all MySQL DDL: a later rollback does not remove the trigger.
+            stmt.execute("CREATE TRIGGER " + name + " " + event + " ON " + table + " FOR EACH ROW " + body);
+            return true;
+        }
+
+        @Override
+        public void configurePool(HikariConfig config) {
+            // Connector/J statement cache; these properties mean nothing to sqlite-jdbc
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", "250");
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            // Statements given a fetch size (see ResultSetStream) read through a server-side cursor
+            config.addDataSourceProperty("useCursorFetch", "true");
+            // Send executeBatch() inserts as multi-row INSERT statements instead of one round trip per row
+            config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        }
+    };
+
+    /** Matches a {@code {type}} placeholder in a DDL template. */
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)\\}");
+
+    /** The value of each DDL placeholder. */
+    private final Map<String, String> types;
+
+    SqlDialect(Map<String, String> types) {
+        this.types = types;
+    }
+
+    /**
+     * Returns the dialect of the database in use.
+     *
+     * @return {@link #MYSQL} or {@link #SQLITE}
+     */
+    public static SqlDialect current() {
+        return DataSource.isUsingMySql() ? MYSQL : SQLITE;
+    }
+
+    /**
+     * Turns a DDL template into this dialect's DDL. The template uses these
+     * placeholders:
+     * <ul>
+     * <li>{@code {id}}: an auto-assigned integer primary key,</li>
+     * <li>{@code {int}}, {@code {real}}, {@code {date}}, {@code {blob}}: the
+     * matching column types,</li>
+     * <li>{@code {text}}: unbounded text,</li>
+     * <li>{@code {name}}: short text that can be unique or indexed whole,</li>
+     * <li>{@code {options}}: table options, after the closing parenthesis.</li>
+     * </ul>
+     * A trailing semicolon is removed.
+     *
+     * @param template the DDL template
+     * @return the DDL
+     */
+    public String ddl(String template) {
+        Matcher m = PLACEHOLDER.matcher(template.strip());
+        StringBuilder sql = new StringBuilder();
+        while (m.find()) {
+            String type = types.get(m.group(1));
+            if (type == null) {
+                throw new IllegalArgumentException("Unknown DDL placeholder: " + m.group());
+            }
+            m.appendReplacement(sql, Matcher.quoteReplacement(type));
+        }
+        m.appendTail(sql);
+        int end = sql.length();
+        while (end > 0 && sql.charAt(end - 1) == ';') {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+    /**
+     * Builds an insert that updates the existing row instead when the new row
+     * collides with a unique key.
+     *
+     * @param table   the table
+     * @param columns the inserted columns, one parameter each
+     * @param key     the columns of the unique key
+     * @param update  the columns to overwrite on a collision
+     * @return the SQL
+     */
+    public String upsert(String table, String[] columns, String[] key, String[] update) {
+        return insert(table, columns) + onConflict(table, key, update);
+    }
+
+    /**
+     * Builds a set-based upsert: copies every row of another table with the same
+     * columns into a table, updating the existing row wherever a copied row
+     * collides with a unique key.
+     *
+     * @param table   the target table
+     * @param source  the table to copy from
+     * @param columns the copied columns
+     * @param key     the columns of the unique key
+     * @param update  the columns to overwrite on a collision
+     * @return the SQL
+     */
+    public String upsertFrom(String table, String source, String[] columns, String[] key, String[] update) {
+        String cols = String.join(", ", columns);
+        // SQLite needs a WHERE clause to tell the upsert clause from a join constraint.
+        return "INSERT INTO " + table + "(" + cols + ") SELECT " + cols + " FROM " + source + " WHERE TRUE"
+                + onConflict(table, key, update);
+    }
+
+    /**
+     * Builds the clause of an upsert that follows the inserted rows.
+     *
+     * @param table  the target table
+     * @param key    the columns of the unique key
+     * @param update the columns to overwrite on a collision
+     * @return the SQL, starting with a space
+     */
+    abstract String onConflict(String table, String[] key, String[] update);
+
+    /**
+     * Builds a comparison that is true when two values are equal or both null.
+     *
+     * @param left  the first expression
+     * @param right the second expression
+     * @return the SQL condition
+     */
+    public abstract String sameValue(String left, String right);
+
+    /**
+     * Builds an expression giving the {@code YYYY-MM} month of a date column.
+     *
+     * @param column the date column
+     * @return the SQL expression
+     */
+    public abstract String monthBucket(String column);
+
+    /**
+     * Returns the column type for short binary values compared byte by byte.
+     *
+     * @param maxBytes the longest value stored
+     * @return the SQL type
+     */
+    public abstract String binaryType(int maxBytes);
+
+    /**
+     * Creates an empty temporary table for staging rows before they are merged
+     * into a table, replacing any left on the connection. It has the types of
+     * the given columns of the table and is unique on the first column. Creating
+     * it does not end the current transaction.
+     *
+     * @param stmt    a statement on the connection
+     * @param staging the staging table name
+     * @param table   the table it stages rows for
+     * @param columns the columns to copy, the unique key first
+     * @throws SQLException if the table cannot be created
+     */
+    public abstract void createStagingTable(Statement stmt, String staging, String table, String[] columns)
+            throws SQLException;
+
+    /**
+     * Drops a staging table created by
+     * {@link #createStagingTable(Statement, String, String, String[])}, if it
+     * exists.
+     *
+     * @param stmt    a statement on the connection
+     * @param staging the staging table name
+     * @throws SQLException if the table cannot be dropped
+     */
+    public abstract void dropStagingTable(Statement stmt, String staging) throws SQLException;
+
+    /**
+     * Builds a CREATE INDEX statement. A column written as {@code name(n)} is
+     * indexed on its first {@code n} characters where the database needs a
+     * prefix length (MySQL on {@code TEXT}), and whole otherwise.
+     *
+     * @param unique  whether the index is unique
+     * @param name    the index name
+     * @param table   the table
+     * @param columns the indexed columns or expressions
+     * @return the DDL; on SQLite it does nothing if the index exists
+     */
+    public abstract String createIndex(boolean unique, String name, String table, String... columns);
+
+    /**
+     * Builds a DROP INDEX statement.
+     *
+     * @param table the table of the index
+     * @param name  the index name
+     * @return the DDL
+     */
+    public abstract String dropIndex(String table, String name);
+
+    /**
+     * Checks whether an index exists.
+     *
+     * @param con   an open connection
+     * @param table the table
+     * @param name  the index name
+     * @return {@code true} if it exists
+     * @throws SQLException if the catalog cannot be queried
+     */
+    public abstract boolean indexExists(Connection con, String table, String name) throws SQLException;
+
+    /**
+     * Creates a row-level trigger with a single-statement body, unless it
+     * already exists.
+     *
+     * @param con   the connection
+     * @param stmt  a statement on the connection
+     * @param name  the trigger name
+     * @param event e.g. {@code AFTER INSERT}
+     * @param table the table it fires on
+     * @param body  the statement to run, referring to {@code NEW}/{@code OLD}
+     * @return {@code true} if it was created, {@code false} if it already
+     *         existed
+     * @throws SQLException if the trigger cannot be created
+     */
+    public abstract boolean createTrigger(Connection con, Statement stmt, String name, String event, String table,
+            String body) throws SQLException;
+
+    /**
+     * Adds this database's driver settings to the pool configuration.
+     *
+     * @param config the pool configuration
+     */
+    public abstract void configurePool(HikariConfig config);
+
+    /**
+     * Builds {@code INSERT INTO table(columns) VALUES (?, ...)}.
+     *
+     * @param table   the table
+     * @param columns the columns
+     * @return the SQL
+     */
+    static String insert(String table, String[] columns) {
+        return "INSERT INTO " + table + "(" + String.join(", ", columns) + ") VALUES ("
+                + "?, ".repeat(columns.length - 1) + "?)";
+    }
+
+    /**
+     * Runs a catalog query and reports whether it returned a row.
+     *
+     * @param con    an open connection
+     * @param sql    the query
+     * @param params its string parameters
+     * @return {@code true} if there is a row
+     * @throws SQLException if the query fails
+     */
+    private static boolean exists(Connection con, String sql, String... params) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setString(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
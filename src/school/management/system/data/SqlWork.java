@@ -0,0 +1,24 @@
+package school.management.system.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A unit of database work run on a connection supplied by the caller, typically
+ * inside a transaction the caller controls. Implementations must not commit,
+ * roll back or change the auto-commit mode of the connection.
+ *
+ * @param <T> the type of the result
+ * @author Ibn Issah
+ */
+@FunctionalInterface
+public interface SqlWork<T> {
+    /**
+     * Performs the work.
+     *
+     * @param con the connection to use; do not close it
+     * @return the result
+     * @throws SQLException if a database error occurs
+     */
+    T apply(Connection con) throws SQLException;
+}
@@ -0,0 +1,79 @@
+package school.management.system.data;
+
+import com.zaxxer.hikari.HikariConfig;
+
+/**
+ * Connection settings applied to every pooled SQLite connection. Both profiles
+ * use write-ahead logging so readers (table pages, charts) are not blocked
+ * while attendance or payments are being written, wait for a lock instead of
+ * failing with {@code SQLITE_BUSY}, and enforce foreign keys. They differ in
+ * how hard they try to survive a power cut:
+ * <ul>
+ * <li>{@link #DURABLE} syncs on every commit ({@code synchronous=FULL}); a
+ * committed transaction is never lost.</li>
+ * <li>{@link #FAST} syncs only at WAL checkpoints ({@code synchronous=NORMAL})
+ * and uses a larger cache and memory map. The database cannot be corrupted,
+ * but the last few commits may be rolled back after a power loss.</li>
+ * </ul>
+ * <p>
+ * The settings are passed to the sqlite-jdbc driver as connection properties,
+ * which it applies as PRAGMAs each time it opens a connection.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public enum SqliteProfile {
+    /** Every commit is synced to disk. The default. */
+    DURABLE("FULL", -16_000, 64L * 1024 * 1024),
+    /** Commits are synced at checkpoints; larger cache and memory map. */
+    FAST("NORMAL", -64_000, 256L * 1024 * 1024);
+
+    /** The preference key holding the selected profile name. */
+    public static final String PREF_KEY = "sqliteProfile";
+
+    /** How long a connection waits for a lock before failing, in milliseconds. */
+    private static final int BUSY_TIMEOUT_MS = 5_000;
+
+    /** The {@code synchronous} pragma value. */
+    private final String synchronous;
+    /** The {@code cache_size} pragma value; negative means KiB. */
+    private final int cacheSize;
+    /** The {@code mmap_size} pragma value in bytes. */
+    private final long mmapSize;
+
+    SqliteProfile(String synchronous, int cacheSize, long mmapSize) {
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+    }
+
+    /**
+     * Adds this profile's driver properties to a pool configuration.
+     *
+     * @param config the pool configuration for the SQLite data source
+     */
+    public void apply(HikariConfig config) {
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("synchronous", synchronous);
+        config.addDataSourceProperty("cache_size", String.valueOf(cacheSize));
+        config.addDataSourceProperty("mmap_size", String.valueOf(mmapSize));
+        config.addDataSourceProperty("temp_store", "MEMORY");
+        config.addDataSourceProperty("busy_timeout", String.valueOf(BUSY_TIMEOUT_MS));
+        config.addDataSourceProperty("foreign_keys", "true");
+    }
+
+    /**
+     * Parses a stored profile name, falling back to {@link #DURABLE}.
+     *
+     * @param name the stored name, possibly {@code null}
+     * @return the profile
+     */
+    public static SqliteProfile fromName(String name) {
+        for (SqliteProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        return DURABLE;
+    }
+}
@@ -0,0 +1,34 @@
+package school.management.system.data;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps an {@link SQLException} raised while a database stream (see
+ * {@link ResultSetStream}) is being consumed, where a checked exception cannot
+ * be thrown.
+ *
+ * @author Ibn Issah
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates the exception.
+     *
+     * @param cause the database error
+     */
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Returns the database error.
+     *
+     * @return the wrapped exception
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,205 @@
+package school.management.system.data;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several {@link DB} calls on one connection, either as one transaction
+ * ({@link #inTransaction(SqlWork)}) or as one consistent read
+ * ({@link #readConsistent(SqlWork)}).
+ * <p>
+ * While a unit of work runs, {@link DataSource#getConnection()} hands out its
+ * connection to the same thread (wrapped so that closing it does nothing), and
+ * {@link DataSource#write(SqlWork)} runs writes on it directly. The existing DB
+ * methods therefore join the unit without changes, and a sequence of calls
+ * borrows one pooled connection instead of one each.
+ * </p>
+ * <p>
+ * In a transaction, {@link ChangeBus} events published by the calls are held
+ * back and only published once the transaction has committed; if it rolls
+ * back they are dropped. Cache updates registered with
+ * {@link #afterCommit(Runnable)} are held back the same way. On SQLite a transaction runs on the writer thread (see
+ * {@link SerialWriter}), like every other write, so it should be short.
+ * </p>
+ * <p>
+ * A consistent read runs its queries in one read-only transaction, so they all
+ * see the database as of the same moment: a snapshot taken at the first read
+ * (SQLite in WAL mode, and InnoDB's default REPEATABLE READ). Writes made from
+ * inside a consistent read do not join it.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public final class UnitOfWork {
+
+    /** The unit of work running on the current thread, if any. */
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    /** The connection shared by the calls; closing it does nothing. */
+    private final Connection shared;
+    /** Whether the unit only reads. */
+    private final boolean readOnly;
+    /** Events to publish once the transaction commits. */
+    private final List<ChangeEvent> events = new ArrayList<>();
+    /** Actions to run once the transaction commits, before the events. */
+    private final List<Runnable> actions = new ArrayList<>();
+
+    /**
+     * Creates a unit of work on a connection.
+     *
+     * @param con      the connection, already inside a transaction
+     * @param readOnly whether the unit only reads
+     */
+    private UnitOfWork(Connection con, boolean readOnly) {
+        this.shared = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(con, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Runs work as one transaction: every DB call it makes uses the same
+     * connection, and all of their writes commit or roll back together. A
+     * transaction started inside another one joins it.
+     *
+     * @param <T>  the type of the result
+     * @param work the work; it may use the given connection or call {@link DB}
+     *             methods
+     * @return the result of the work
+     * @throws SQLException if the work or the commit fails
+     */
+    public static <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        UnitOfWork outer = CURRENT.get();
+        if (outer != null && !outer.readOnly) {
+            return work.apply(outer.shared);
+        }
+        List<ChangeEvent> committed = new ArrayList<>();
+        List<Runnable> actions = new ArrayList<>();
+        T result = DataSource.write(con -> {
+            UnitOfWork unit = new UnitOfWork(con, false);
+            T value = unit.run(work);
+            // Only reached if the work succeeded; the caller publishes after the commit.
+            committed.addAll(unit.events);
+            actions.addAll(unit.actions);
+            return value;
+        });
+        for (Runnable action : actions) {
+            action.run();
+        }
+        if (!committed.isEmpty()) {
+            ChangeBus.publish(committed.toArray(ChangeEvent[]::new));
+        }
+        return result;
+    }
+
+    /**
+     * Runs reads against one consistent snapshot of the database on one
+     * connection, e.g. a report built from several queries. A consistent read
+     * started inside another unit of work joins it.
+     *
+     * @param <T>  the type of the result
+     * @param work the reads
+     * @return the result of the work
+     * @throws SQLException if a read fails
+     */
+    public static <T> T readConsistent(SqlWork<T> work) throws SQLException {
+        UnitOfWork outer = CURRENT.get();
+        if (outer != null) {
+            return work.apply(outer.shared);
+        }
+        try (Connection con = DataSource.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                return new UnitOfWork(con, true).run(work);
+            } finally {
+                // Nothing was written; ending the transaction releases the snapshot.
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the connection of the unit of work running on this thread.
+     *
+     * @return the shared connection, or {@code null} outside a unit of work
+     */
+    static Connection currentConnection() {
+        UnitOfWork unit = CURRENT.get();
+        return unit == null ? null : unit.shared;
+    }
+
+    /**
+     * Returns the connection writes on this thread should join.
+     *
+     * @return the shared connection of a transaction, or {@code null} outside
+     *         one (including inside a consistent read)
+     */
+    static Connection currentTransaction() {
+        UnitOfWork unit = CURRENT.get();
+        return unit == null || unit.readOnly ? null : unit.shared;
+    }
+
+    /**
+     * Holds back events published inside a transaction until it commits.
+     *
+     * @param published the events
+     * @return {@code true} if they were held back, {@code false} if the caller
+     *         should publish them now
+     */
+    static boolean defer(ChangeEvent... published) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit == null || unit.readOnly) {
+            return false;
+        }
+        unit.events.addAll(List.of(published));
+        return true;
+    }
+
+    /**
+     * Holds back an action that must only see committed data, such as
+     * refreshing a process-wide cache, until the transaction on this thread
+     * commits. If it rolls back the action is dropped.
+     *
+     * @param action the action
+     * @return {@code true} if it was held back, {@code false} if the caller
+     *         should run it now
+     */
+    static boolean afterCommit(Runnable action) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit == null || unit.readOnly) {
+            return false;
+        }
+        unit.actions.add(action);
+        return true;
+    }
+
+    /**
+     * Runs work as the current unit of work of this thread.
+     *
+     * @param <T>  the type of the result
+     * @param work the work
+     * @return its result
+     * @throws SQLException if the work fails
+     */
+    private <T> T run(SqlWork<T> work) throws SQLException {
+        CURRENT.set(this);
+        try {
+            return work.apply(shared);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+}
@@ -133,8 +133,8 @@ public class AuthService {
 
             // Clear table data for security
             if (app.getSchoolPanel() != null) {
-                app.getSchoolPanel().getStdMod().setRowCount(0);
-                app.getSchoolPanel().getTchMod().setRowCount(0);
+                app.getSchoolPanel().getStdMod().clear();
+                app.getSchoolPanel().getTchMod().clear();
             }
         }
     }
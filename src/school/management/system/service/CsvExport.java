@@ -0,0 +1,145 @@
+package school.management.system.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import school.management.system.data.DB;
+import school.management.system.data.DataTable;
+import school.management.system.util.StringUtils;
+
+/**
+ * Exports a database table to a CSV file straight from a database cursor,
+ * without going through a table model, so even a table of a million
+ * attendance or payment rows is written in constant memory.
+ * <p>
+ * Rows are read with {@link DB#streamTable(DataTable, List)} and written
+ * through a file channel behind a {@value #BUFFER_SIZE}-byte buffer,
+ * optionally gzip-compressed. The file is written under a temporary name and
+ * moved into place when complete, so a failed export never leaves a truncated
+ * file behind.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+final class CsvExport {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(CsvExport.class.getName());
+
+    /** Bytes buffered before each write to the file channel. */
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    /** Rows written between progress reports. */
+    private static final int PROGRESS_STEP = 1000;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CsvExport() {
+    }
+
+    /**
+     * Writes a table to a CSV file: a header line with the column names, then
+     * one line per row in ID order.
+     *
+     * @param db       the database access object
+     * @param table    the table
+     * @param columns  the columns to export, in order
+     * @param file     the file to write; replaced if it exists
+     * @param gzip     whether to gzip-compress the file
+     * @param progress receives the percentage of rows written
+     * @return the number of rows written
+     * @throws Exception if the table cannot be read or the file written
+     */
+    static long write(DB db, DataTable table, List<String> columns, Path file, boolean gzip, IntConsumer progress)
+            throws Exception {
+        long start = System.nanoTime();
+        long total = Math.max(1, db.countRows(table));
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long written = 0;
+        try {
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                    OutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                    OutputStream out = gzip ? new GZIPOutputStream(buffered, BUFFER_SIZE) : buffered;
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                written = writeRows(db, table, columns, writer,
+                        rows -> progress.accept((int) Math.min(100, rows * 100 / total)));
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        LOGGER.log(Level.INFO, "Exported {0} rows of {1} in {2} ms",
+                new Object[] { written, table.getTable(), (System.nanoTime() - start) / 1_000_000 });
+        return written;
+    }
+
+    /**
+     * Writes a table as CSV to a writer: a header line with the column names,
+     * then one line per row in ID order.
+     *
+     * @param db       the database access object
+     * @param table    the table
+     * @param columns  the columns to export, in order
+     * @param writer   the output; left open
+     * @param progress receives the number of rows written so far, every
+     *                 {@value #PROGRESS_STEP} rows and at the end
+     * @return the number of rows written
+     * @throws Exception if the table cannot be read or the output written
+     */
+    static long writeRows(DB db, DataTable table, List<String> columns, Writer writer, LongConsumer progress)
+            throws Exception {
+        long written = 0;
+        try (Stream<String[]> rows = db.streamTable(table, columns)) {
+            writeLine(writer, columns.toArray(String[]::new));
+            Iterator<String[]> it = rows.iterator();
+            while (it.hasNext()) {
+                writeLine(writer, it.next());
+                if (++written % PROGRESS_STEP == 0) {
+                    progress.accept(written);
+                }
+            }
+        }
+        progress.accept(written);
+        return written;
+    }
+
+    /**
+     * Writes one CSV line.
+     *
+     * @param writer the output
+     * @param values the fields; null is written as an empty field
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeLine(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(StringUtils.escapeCsv(values[i]));
+            }
+        }
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,425 @@
+package school.management.system.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import school.management.system.App;
+import school.management.system.util.CsvReader;
+
+/**
+ * Imports a CSV file in chunks, each committed in its own transaction.
+ * <p>
+ * Three stages run at once. A reader thread scans the file with
+ * {@link CsvReader} and cuts it into chunks of {@value #CHUNK_SIZE} records; a
+ * pool of parser threads turns each chunk into model objects, rejecting invalid
+ * records; and the calling thread writes the parsed chunks in file order
+ * through a {@link ChunkWriter}, such as {@code DB::addStudentsBatch}, which
+ * commits each one as a transaction. At most {@link #IN_FLIGHT} chunks exist at
+ * a time, so memory stays bounded whatever the size of the file: the reader
+ * waits while the writer catches up.
+ * </p>
+ * <p>
+ * After each chunk commits, the number of records imported so far is saved as a
+ * checkpoint in the preferences, per import type and file, with a CRC-32 of
+ * those records. If the import fails the checkpoint stays, and the next import
+ * of the same file can skip the records already committed
+ * ({@link #resumableRows(String, Path)}), provided they still read the same:
+ * fixing a bad record after them keeps the checkpoint, while any edit to the
+ * committed records voids it. A finished import clears it.
+ * </p>
+ *
+ * @param <T> the type of the imported objects
+ * @author Ibn Issah
+ */
+final class CsvImport<T> {
+
+    /**
+     * Turns one CSV record into a model object.
+     *
+     * @param <T> the type of the object
+     */
+    @FunctionalInterface
+    interface RowParser<T> {
+        /**
+         * Parses and validates a record.
+         *
+         * @param row the record
+         * @return the object
+         * @throws IOException if the record is invalid
+         */
+        T parse(Row row) throws IOException;
+    }
+
+    /**
+     * Stores one chunk of objects in one transaction.
+     *
+     * @param <T> the type of the objects
+     */
+    @FunctionalInterface
+    interface ChunkWriter<T> {
+        /**
+         * Writes a chunk.
+         *
+         * @param chunk the objects, in file order
+         * @throws Exception if the chunk cannot be written; nothing of it is kept
+         */
+        void write(List<T> chunk) throws Exception;
+    }
+
+    /**
+     * One CSV record.
+     *
+     * @param line   the line it starts on
+     * @param fields its fields
+     */
+    record Row(long line, String[] fields) {
+
+        /**
+         * Returns a field.
+         *
+         * @param index the field index, from 0
+         * @return the field
+         * @throws IOException if the record is too short
+         */
+        String get(int index) throws IOException {
+            if (index >= fields.length) {
+                throw new IOException("Line " + line + ": expected at least " + (index + 1) + " fields but found "
+                        + fields.length);
+            }
+            return fields[index];
+        }
+
+        /**
+         * Returns a numeric field.
+         *
+         * @param index the field index, from 0
+         * @return the value
+         * @throws IOException if the record is too short or the field is not a
+         *                     number
+         */
+        int getInt(int index) throws IOException {
+            String value = get(index);
+            try {
+                return Integer.parseInt(value.strip());
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + line + ": \"" + value + "\" is not a number", e);
+            }
+        }
+    }
+
+    /**
+     * Parsed records ready to write.
+     *
+     * @param items the objects
+     * @param bytes how far into the file the reader was after the chunk
+     * @param crc   the CRC-32 of the file's records up to the end of the chunk
+     */
+    private record Chunk<T>(List<T> items, long bytes, long crc) {
+    }
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(CsvImport.class.getName());
+
+    /** Records per chunk, and per transaction. */
+    static final int CHUNK_SIZE = 1000;
+
+    /** Threads parsing chunks. */
+    private static final int PARSERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /** Chunks read but not yet written; bounds the memory of an import. */
+    private static final int IN_FLIGHT = 2 * PARSERS + 1;
+
+    /** Preference key prefix for checkpoints; the import type follows. */
+    private static final String CHECKPOINT_PREF = "csvImportCheckpoint.";
+
+    /** Hashed after each field, so that moving text between fields changes the CRC. */
+    private static final int FIELD_END = 0x1F;
+    /** Hashed after each record. */
+    private static final int RECORD_END = 0x1E;
+
+    /** The import type, e.g. {@code student}. */
+    private final String type;
+    /** The CSV file; its first line is a header. */
+    private final Path file;
+    /** Turns records into objects. */
+    private final RowParser<T> parser;
+    /** Stores chunks. */
+    private final ChunkWriter<T> writer;
+
+    /**
+     * Creates an import.
+     *
+     * @param type   the import type, which keys its checkpoint
+     * @param file   the CSV file, with a header line
+     * @param parser turns records into objects
+     * @param writer stores each chunk in one transaction
+     */
+    CsvImport(String type, Path file, RowParser<T> parser, ChunkWriter<T> writer) {
+        this.type = type;
+        this.file = file;
+        this.parser = parser;
+        this.writer = writer;
+    }
+
+    /**
+     * Returns how many records of a file an earlier, failed import of the same
+     * type committed, if those records are unchanged. Reads the committed
+     * records back to check them, so call it off the Event Dispatch Thread.
+     *
+     * @param type the import type
+     * @param file the CSV file
+     * @return the records to skip to resume it, or 0 if there is nothing to
+     *         resume or the file has changed
+     * @throws IOException if the file cannot be read
+     */
+    static long resumableRows(String type, Path file) throws IOException {
+        long[] saved = checkpoint(type, file);
+        if (saved == null || saved[0] == 0) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        try (CsvReader csv = CsvReader.open(file)) {
+            for (long i = 0; i <= saved[0]; i++) { // the header, then the committed records
+                if (!csv.next()) {
+                    return 0;
+                }
+                hash(crc, csv);
+            }
+        }
+        return crc.getValue() == saved[1] ? saved[0] : 0;
+    }
+
+    /**
+     * Returns how many records of a file the last import of a type committed
+     * before it failed, without checking the file.
+     *
+     * @param type the import type
+     * @param file the CSV file
+     * @return the committed records, or 0 if there is no checkpoint for it
+     */
+    static long committedRows(String type, Path file) {
+        long[] saved = checkpoint(type, file);
+        return saved == null ? 0 : saved[0];
+    }
+
+    /**
+     * Reads the checkpoint of an import type.
+     *
+     * @param type the import type
+     * @param file the CSV file
+     * @return the committed records and their CRC-32, or {@code null} if there
+     *         is no checkpoint for this file
+     */
+    private static long[] checkpoint(String type, Path file) {
+        String saved = App.prefs.get(CHECKPOINT_PREF + type, null);
+        if (saved == null) {
+            return null;
+        }
+        // Saved as "<rows>|<crc>|<absolute path>".
+        String[] parts = saved.split("\\|", 3);
+        try {
+            if (parts.length == 3 && parts[2].equals(file.toAbsolutePath().toString())) {
+                return new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]) };
+            }
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.FINE, "Ignoring malformed import checkpoint {0}", saved);
+        }
+        return null;
+    }
+
+    /**
+     * Forgets the checkpoint of an import type.
+     *
+     * @param type the import type
+     */
+    static void clearCheckpoint(String type) {
+        App.prefs.remove(CHECKPOINT_PREF + type);
+    }
+
+    /**
+     * Runs the import. Each chunk is committed before the next is written; if
+     * one fails, the chunks before it stay imported and the checkpoint records
+     * how many records they held.
+     *
+     * @param skip     records to skip after the header, to resume an import
+     * @param progress receives the percentage of the file imported
+     * @return the number of records imported by this run
+     * @throws Exception if the file cannot be read, a record is invalid or a
+     *                   chunk cannot be written
+     */
+    long run(long skip, IntConsumer progress) throws Exception {
+        long size = Math.max(1, Files.size(file));
+        long start = System.nanoTime();
+        BlockingQueue<Future<Chunk<T>>> chunks = new ArrayBlockingQueue<>(IN_FLIGHT);
+        ExecutorService parsers = Executors.newFixedThreadPool(PARSERS,
+                Thread.ofPlatform().name("csv-parse-", 0).daemon().factory());
+        Thread reader = Thread.ofPlatform().name("csv-read").daemon().start(() -> read(skip, parsers, chunks));
+        long imported = 0;
+        try {
+            Chunk<T> chunk;
+            while ((chunk = await(chunks.take())) != null) {
+                writer.write(chunk.items());
+                imported += chunk.items().size();
+                App.prefs.put(CHECKPOINT_PREF + type, (skip + imported) + "|" + chunk.crc() + "|" + file.toAbsolutePath());
+                progress.accept((int) Math.min(100, chunk.bytes() * 100 / size));
+            }
+        } finally {
+            // Stops the reader if the writer gave up early.
+            reader.interrupt();
+            parsers.shutdownNow();
+        }
+        clearCheckpoint(type);
+        LOGGER.log(Level.INFO, "Imported {0} {1} records in {2} ms",
+                new Object[] { imported, type, (System.nanoTime() - start) / 1_000_000 });
+        return imported;
+    }
+
+    /**
+     * The reader stage: reads the file, hands each chunk to a parser and queues
+     * the result, followed by {@code null} at the end of the file or the
+     * failure if the file cannot be read.
+     *
+     * @param skip    records to skip after the header
+     * @param parsers the parser pool
+     * @param chunks  the queue the writer takes from, in file order
+     */
+    private void read(long skip, ExecutorService parsers, BlockingQueue<Future<Chunk<T>>> chunks) {
+        Future<Chunk<T>> end;
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(file));
+                CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            CRC32 crc = new CRC32();
+            if (csv.next()) { // Skip header
+                hash(crc, csv);
+            }
+            for (long i = 0; i < skip && csv.next(); i++) {
+                // Already imported.
+                hash(crc, csv);
+            }
+            List<Row> rows = new ArrayList<>(CHUNK_SIZE);
+            while (csv.next()) {
+                hash(crc, csv);
+                rows.add(new Row(csv.getLineNumber(), csv.toArray()));
+                if (rows.size() == CHUNK_SIZE) {
+                    submit(rows, in.count, crc.getValue(), parsers, chunks);
+                    rows = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!rows.isEmpty()) {
+                submit(rows, in.count, crc.getValue(), parsers, chunks);
+            }
+            end = CompletableFuture.completedFuture(null);
+        } catch (InterruptedException e) {
+            // The writer stopped; nobody is waiting for more chunks.
+            return;
+        } catch (IOException | RuntimeException e) {
+            end = CompletableFuture.failedFuture(e);
+        }
+        try {
+            chunks.put(end);
+        } catch (InterruptedException e) {
+            // The writer stopped.
+        }
+    }
+
+    /**
+     * Hands a chunk of records to the parser pool and queues its result.
+     *
+     * @param rows    the records
+     * @param bytes   how far into the file the reader is
+     * @param crc     the CRC-32 of the records read so far
+     * @param parsers the parser pool
+     * @param chunks  the writer's queue
+     * @throws InterruptedException if interrupted while the queue is full
+     */
+    private void submit(List<Row> rows, long bytes, long crc, ExecutorService parsers,
+            BlockingQueue<Future<Chunk<T>>> chunks) throws InterruptedException {
+        chunks.put(parsers.submit(() -> {
+            List<T> items = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                items.add(parser.parse(row));
+            }
+            return new Chunk<>(items, bytes, crc);
+        }));
+    }
+
+    /**
+     * Adds the current record of a reader to a checksum.
+     *
+     * @param crc the checksum
+     * @param csv the reader, on a record
+     */
+    private static void hash(CRC32 crc, CsvReader csv) {
+        for (int i = 0; i < csv.size(); i++) {
+            crc.update(csv.get(i).getBytes(StandardCharsets.UTF_8));
+            crc.update(FIELD_END);
+        }
+        crc.update(RECORD_END);
+    }
+
+    /**
+     * Waits for a queued chunk.
+     *
+     * @param <V>    the type of the result
+     * @param future the chunk
+     * @return the chunk, or {@code null} at the end of the file
+     * @throws Exception the failure of the reader or parser, unwrapped
+     */
+    private static <V> V await(Future<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /** Counts the bytes read through it, for progress. */
+    private static final class CountingInputStream extends FilterInputStream {
+        /** Bytes read so far; only read by the reader thread. */
+        private long count;
+
+        /**
+         * Wraps a stream.
+         *
+         * @param in the stream
+         */
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
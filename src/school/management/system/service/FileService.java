@@ -1,13 +1,13 @@
 package school.management.system.service;
 
+import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.sql.SQLException;
@@ -16,10 +16,14 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
 import javax.swing.SwingWorker;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.TableModel;
@@ -27,8 +31,11 @@ import javax.swing.table.TableModel;
 import school.management.system.App;
 import school.management.system.data.DB;
 import school.management.system.data.DataSource;
+import school.management.system.data.DataTable;
+import school.management.system.data.MergeCounts;
 import school.management.system.model.student.Student;
 import school.management.system.model.teacher.Teacher;
+import school.management.system.ui.PagedTableModel;
 import school.management.system.ui.UIManager;
 import school.management.system.util.StringUtils;
 
@@ -83,13 +90,14 @@ public class FileService {
                 fileToSave = new File(fileToSave.getAbsolutePath() + ".csv");
             }
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave))) {
-                for (int i = 0; i < model.getColumnCount(); i++) {
-                    writer.write(StringUtils.escapeCsv(model.getColumnName(i)));
-                    if (i < model.getColumnCount() - 1) writer.write(",");
-                }
-                writer.newLine();
+            if (model instanceof PagedTableModel<?> paged) {
+                // A paged model only holds the visible pages; stream every row from the database in the background.
+                exportPagedModel(paged, fileToSave);
+                return;
+            }
 
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave))) {
+                writeCsvHeader(writer, model);
                 for (int row = 0; row < model.getRowCount(); row++) {
                     for (int col = 0; col < model.getColumnCount(); col++) {
                         Object obj = model.getValueAt(row, col);
@@ -105,86 +113,371 @@ public class FileService {
         }
     }
 
+    /**
+     * Exports every row a paged model represents to a CSV file, reading them from the database in the background.
+     * @param model the paged model; its current filter and sort order are captured before the export starts
+     * @param fileToSave the file to write
+     */
+    private void exportPagedModel(PagedTableModel<?> model, File fileToSave) {
+        PagedTableModel.Export export = model.exportRows();
+        int total = Math.max(1, model.getRowCount());
+
+        SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave))) {
+                    writeCsvHeader(writer, model);
+                    int[] written = { 0 };
+                    return export.run(values -> {
+                        for (int col = 0; col < values.length; col++) {
+                            Object obj = values[col];
+                            writer.write(StringUtils.escapeCsv(obj == null ? "" : obj.toString()));
+                            if (col < values.length - 1) writer.write(",");
+                        }
+                        writer.newLine();
+                        if (++written[0] % 1000 == 0) {
+                            setProgress(Math.min(100, written[0] * 100 / total));
+                        }
+                    });
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    int rows = get();
+                    JOptionPane.showMessageDialog(parentFrame, "Exported " + rows + " rows to:\n" + fileToSave.getAbsolutePath(), "Export Successful", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    if (ex.getCause() instanceof IOException) {
+                        uiManager.showErrorDialog("Export Error", "An error occurred while writing the file.", (Exception) ex.getCause());
+                    } else {
+                        uiManager.showErrorDialog("Export Error", "An error occurred while reading the data to export.", (Exception) ex.getCause());
+                    }
+                }
+            }
+        };
+        uiManager.startProgress(worker, "Exporting " + fileToSave.getName() + "...", "Please wait");
+    }
+
+    /**
+     * Writes the column names of a model as a CSV header line.
+     * @param writer the output
+     * @param model the model
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeCsvHeader(BufferedWriter writer, TableModel model) throws IOException {
+        for (int i = 0; i < model.getColumnCount(); i++) {
+            writer.write(StringUtils.escapeCsv(model.getColumnName(i)));
+            if (i < model.getColumnCount() - 1) writer.write(",");
+        }
+        writer.newLine();
+    }
+
+    /**
+     * Exports a whole database table to a CSV file, reading it straight from the database in the background.
+     * The user picks the columns and whether to gzip the file.
+     * @param table the table to export
+     */
+    public void exportTableToCsv(DataTable table) {
+        JPanel options = new JPanel(new GridLayout(0, 1));
+        options.add(new JLabel("Columns to export:"));
+        List<JCheckBox> columnBoxes = new ArrayList<>();
+        for (String column : table.getColumns()) {
+            JCheckBox box = new JCheckBox(column, true);
+            columnBoxes.add(box);
+            options.add(box);
+        }
+        JCheckBox gzipBox = new JCheckBox("Compress with gzip (.csv.gz)");
+        options.add(gzipBox);
+        if (JOptionPane.showConfirmDialog(parentFrame, options, "Export " + table.getTitle(), JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        List<String> columns = new ArrayList<>();
+        for (JCheckBox box : columnBoxes) {
+            if (box.isSelected()) {
+                columns.add(box.getText());
+            }
+        }
+        if (columns.isEmpty()) {
+            JOptionPane.showMessageDialog(parentFrame, "Select at least one column to export.", "Export", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        boolean gzip = gzipBox.isSelected();
+        String extension = gzip ? ".csv.gz" : ".csv";
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save as CSV");
+        fileChooser.setSelectedFile(new File(table.getTable() + extension));
+        fileChooser.setFileFilter(gzip ? new FileNameExtensionFilter("Compressed CSV Files", "gz") : new FileNameExtensionFilter("CSV Files", "csv"));
+
+        if (fileChooser.showSaveDialog(parentFrame) == JFileChooser.APPROVE_OPTION) {
+            File chosen = fileChooser.getSelectedFile();
+            Path fileToSave = chosen.getName().toLowerCase().endsWith(extension) ? chosen.toPath() : Paths.get(chosen.getAbsolutePath() + extension);
+
+            SwingWorker<Long, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Long doInBackground() throws Exception {
+                    return CsvExport.write(db, table, columns, fileToSave, gzip, this::setProgress);
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        long rows = get();
+                        JOptionPane.showMessageDialog(parentFrame, "Exported " + rows + " rows to:\n" + fileToSave.toAbsolutePath(), "Export Successful", JOptionPane.INFORMATION_MESSAGE);
+                    } catch (Exception ex) {
+                        if (ex.getCause() instanceof IOException) {
+                            uiManager.showErrorDialog("Export Error", "An error occurred while writing the file.", (Exception) ex.getCause());
+                        } else {
+                            uiManager.showErrorDialog("Export Error", "An error occurred while reading the data to export.", (Exception) ex.getCause());
+                        }
+                    }
+                }
+            };
+            uiManager.startProgress(worker, "Exporting " + table.getTitle() + "...", "Please wait");
+        }
+    }
+
     /**
      * Imports data from a CSV file.
      * @param importType the type of data to import (e.g., "student" or "teacher")
      */
     public void importFromCsv(String importType) {
+        importFromCsv(importType, false);
+    }
+
+    /**
+     * Imports data from a CSV file, adding new records and updating the ones whose ID already exists.
+     * @param importType the type of data to import (e.g., "student" or "teacher")
+     */
+    public void mergeFromCsv(String importType) {
+        importFromCsv(importType, true);
+    }
+
+    /**
+     * Imports data from a CSV file.
+     * @param importType the type of data to import (e.g., "student" or "teacher")
+     * @param merge whether existing IDs are updated; otherwise they fail the import
+     */
+    private void importFromCsv(String importType, boolean merge) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Import from CSV");
         fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files", "csv"));
 
         if (fileChooser.showOpenDialog(parentFrame) == JFileChooser.APPROVE_OPTION) {
-            File fileToImport = fileChooser.getSelectedFile();
+            Path fileToImport = fileChooser.getSelectedFile().toPath();
+
+            // Merges keep their own checkpoint, so a failed merge is not resumed as a plain import.
+            String checkpoint = merge ? importType + ".merge" : importType;
+            AtomicReference<MergeCounts> merged = new AtomicReference<>(new MergeCounts(0, 0, 0));
+            CsvImport<?> csvImport;
+            if ("student".equals(importType)) {
+                csvImport = merge
+                        ? new CsvImport<>(checkpoint, fileToImport, FileService::parseStudent, chunk -> merged.accumulateAndGet(db.mergeStudents(chunk), MergeCounts::plus))
+                        : new CsvImport<>(checkpoint, fileToImport, FileService::parseStudent, db::addStudentsBatch);
+            } else if ("teacher".equals(importType)) {
+                csvImport = merge
+                        ? new CsvImport<>(checkpoint, fileToImport, FileService::parseTeacher, chunk -> merged.accumulateAndGet(db.mergeTeachers(chunk), MergeCounts::plus))
+                        : new CsvImport<>(checkpoint, fileToImport, FileService::parseTeacher, db::addTeachersBatch);
+            } else {
+                return;
+            }
 
-            SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+            // Checking the checkpoint reads the committed records back, so do it in the background.
+            SwingWorker<Long, Void> check = new SwingWorker<>() {
                 @Override
-                protected Integer doInBackground() throws Exception {
-                    int recordsAdded = 0;
-                    try (BufferedReader reader = new BufferedReader(new FileReader(fileToImport))) {
-                        reader.readLine(); // Skip header
-
-                        if ("student".equals(importType)) {
-                            List<Student> students = new ArrayList<>();
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                String[] data = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                                Student student = new Student();
-                                student.setId(Integer.parseInt(StringUtils.unEscapeCsv(data[1])));
-                                student.setFirstName(StringUtils.unEscapeCsv(data[2]));
-                                student.setMiddleName(StringUtils.unEscapeCsv(data[3]));
-                                student.setLastName(StringUtils.unEscapeCsv(data[4]));
-                                student.setGender(StringUtils.unEscapeCsv(data[5]));
-                                student.setDateOfBirth(StringUtils.unEscapeCsv(data[6]));
-                                student.setLevel(Integer.parseInt(StringUtils.unEscapeCsv(data[7])));
-                                students.add(student);
-                            }
-                            if (!students.isEmpty()) {
-                                db.addStudentsBatch(students);
-                                recordsAdded = students.size();
-                            }
-                        } else if ("teacher".equals(importType)) {
-                            List<Teacher> teachers = new ArrayList<>();
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                String[] data = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                                Teacher teacher = new Teacher();
-                                teacher.setId(Integer.parseInt(StringUtils.unEscapeCsv(data[1])));
-                                teacher.setName(StringUtils.unEscapeCsv(data[2]));
-                                teacher.setContact(StringUtils.unEscapeCsv(data[3]));
-                                teacher.setGender(StringUtils.unEscapeCsv(data[4]));
-                                teacher.setAddress(StringUtils.unEscapeCsv(data[5]));
-                                teacher.setEmail(StringUtils.unEscapeCsv(data[6]));
-                                teachers.add(teacher);
-                            }
-                            if (!teachers.isEmpty()) {
-                                db.addTeachersBatch(teachers);
-                                recordsAdded = teachers.size();
-                            }
-                        }
-                    }
-                    return recordsAdded;
+                protected Long doInBackground() throws Exception {
+                    return CsvImport.resumableRows(checkpoint, fileToImport);
                 }
 
                 @Override
                 protected void done() {
+                    long resumable;
                     try {
-                        int recordsAdded = get();
-                        JOptionPane.showMessageDialog(parentFrame, "Successfully imported " + recordsAdded + " records.", "Import Complete", JOptionPane.INFORMATION_MESSAGE);
-                        app.getDataService().fetchData();
+                        resumable = get();
                     } catch (Exception ex) {
-                        if (ex.getCause() instanceof SQLException && ((SQLException) ex.getCause()).getErrorCode() == 19) {
-                            uiManager.showErrorDialog("Import Error", "Import failed. One or more records already exist in the database (ID conflict).", (Exception) ex.getCause());
+                        uiManager.showErrorDialog("Import Error", "Import failed. " + ex.getCause().getMessage(), (Exception) ex.getCause());
+                        return;
+                    }
+                    long skip = 0;
+                    if (resumable > 0) {
+                        int choice = JOptionPane.showConfirmDialog(parentFrame,
+                                "An earlier import of this file stopped after " + resumable + " records.\n"
+                                        + "Continue from there? Choose No to import the whole file again.",
+                                "Resume Import", JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
+                        if (choice == JOptionPane.YES_OPTION) {
+                            skip = resumable;
+                        } else if (choice == JOptionPane.NO_OPTION) {
+                            CsvImport.clearCheckpoint(checkpoint);
                         } else {
-                            uiManager.showErrorDialog("Import Error", "An error occurred during the import process.", (Exception) ex.getCause());
+                            return;
                         }
+                    } else {
+                        // Nothing to resume, or the committed records have changed since: start over.
+                        CsvImport.clearCheckpoint(checkpoint);
                     }
+                    runImport(csvImport, checkpoint, fileToImport, skip, merge ? merged : null);
                 }
             };
-            uiManager.startProgress(worker, "Importing data...", "Please wait");
+            uiManager.startProgress(check, "Reading file...", "Please wait");
         }
     }
 
+    /**
+     * Runs a CSV import in the background and reports the outcome.
+     * @param csvImport the import
+     * @param checkpoint the checkpoint type of the import
+     * @param fileToImport the CSV file
+     * @param skipped the records to skip, to resume an earlier import
+     * @param merged receives the counts of a merge, or {@code null} for a plain import
+     */
+    private void runImport(CsvImport<?> csvImport, String checkpoint, Path fileToImport, long skipped, AtomicReference<MergeCounts> merged) {
+        SwingWorker<Long, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return csvImport.run(skipped, this::setProgress);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    long recordsAdded = get();
+                    // Each committed chunk publishes change events; the tables reload themselves.
+                    String total = skipped > 0 ? " (" + (skipped + recordsAdded) + " in total)" : "";
+                    String details = "";
+                    if (merged != null) {
+                        MergeCounts counts = merged.get();
+                        details = "\n" + counts.getInserted() + " added, " + counts.getUpdated() + " updated, " + counts.getUnchanged() + " unchanged.";
+                    }
+                    JOptionPane.showMessageDialog(parentFrame, "Successfully imported " + recordsAdded + " records" + total + "." + details, "Import Complete", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    long committed = CsvImport.committedRows(checkpoint, fileToImport);
+                    String kept = committed > 0 ? "\nThe first " + committed + " records were imported; import the file again to continue from there." : "";
+                    if (ex.getCause() instanceof SQLException && ((SQLException) ex.getCause()).getErrorCode() == 19) {
+                        uiManager.showErrorDialog("Import Error", "Import failed. One or more records already exist in the database (ID conflict).\nUse Update from CSV to update existing records instead." + kept, (Exception) ex.getCause());
+                    } else if (ex.getCause() instanceof IOException) {
+                        uiManager.showErrorDialog("Import Error", "Import failed. " + ex.getCause().getMessage() + kept, (Exception) ex.getCause());
+                    } else {
+                        uiManager.showErrorDialog("Import Error", "An error occurred during the import process." + kept, (Exception) ex.getCause());
+                    }
+                }
+            }
+        };
+        uiManager.startProgress(worker, "Importing data...", "Please wait");
+    }
+
+    /**
+     * Reads a student from an imported CSV record.
+     * @param row the record: row number, ID, first, middle and last name, gender, date of birth, class
+     * @return the student
+     * @throws IOException if the record is invalid
+     */
+    private static Student parseStudent(CsvImport.Row row) throws IOException {
+        Student student = new Student();
+        student.setId(row.getInt(1));
+        student.setFirstName(row.get(2));
+        student.setMiddleName(row.get(3));
+        student.setLastName(row.get(4));
+        student.setGender(row.get(5));
+        student.setDateOfBirth(row.get(6));
+        student.setLevel(row.getInt(7));
+        return student;
+    }
+
+    /**
+     * Reads a teacher from an imported CSV record.
+     * @param row the record: row number, ID, name, contact, gender, address, email
+     * @return the teacher
+     * @throws IOException if the record is invalid
+     */
+    private static Teacher parseTeacher(CsvImport.Row row) throws IOException {
+        Teacher teacher = new Teacher();
+        teacher.setId(row.getInt(1));
+        teacher.setName(row.get(2));
+        teacher.setContact(row.get(3));
+        teacher.setGender(row.get(4));
+        teacher.setAddress(row.get(5));
+        teacher.setEmail(row.get(6));
+        return teacher;
+    }
+
+    /**
+     * Exports every table to a snapshot zip file, to move the school's data to another installation.
+     * @param e the action event triggering the export
+     */
+    public void exportSnapshot(ActionEvent e) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save Snapshot");
+        String defaultFileName = "school-snapshot-" + new SimpleDateFormat("yyyy-MM-dd").format(new Date()) + ".zip";
+        fileChooser.setSelectedFile(new File(defaultFileName));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Snapshot Files", "zip"));
+
+        if (fileChooser.showSaveDialog(parentFrame) == JFileChooser.APPROVE_OPTION) {
+            File chosen = fileChooser.getSelectedFile();
+            Path fileToSave = chosen.getName().toLowerCase().endsWith(".zip") ? chosen.toPath() : Paths.get(chosen.getAbsolutePath() + ".zip");
+
+            SwingWorker<Long, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Long doInBackground() throws Exception {
+                    return Snapshot.export(db, fileToSave, this::setProgress);
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        long rows = get();
+                        JOptionPane.showMessageDialog(parentFrame, "Snapshot of " + rows + " records saved to:\n" + fileToSave.toAbsolutePath(), "Snapshot Saved", JOptionPane.INFORMATION_MESSAGE);
+                    } catch (Exception ex) {
+                        uiManager.showErrorDialog("Snapshot Error", "Failed to save the snapshot.", (Exception) ex.getCause());
+                    }
+                }
+            };
+            uiManager.startProgress(worker, "Saving snapshot...", "Please wait");
+        }
+    }
+
+    /**
+     * Replaces the school's data with a snapshot exported by {@link #exportSnapshot(ActionEvent)}.
+     * @param e the action event triggering the import
+     */
+    public void importSnapshot(ActionEvent e) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Select Snapshot to Load");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Snapshot Files", "zip"));
+
+        if (fileChooser.showOpenDialog(parentFrame) != JFileChooser.APPROVE_OPTION) return;
+        Path snapshotFile = fileChooser.getSelectedFile().toPath();
+
+        int confirm = JOptionPane.showConfirmDialog(parentFrame,
+                "Loading a snapshot replaces all students, teachers, classes, subjects, assignments, attendance and payments.\n"
+                        + "Admin accounts are kept. Profile pictures are not part of a snapshot.\nAre you sure you want to continue?",
+                "Confirm Load Snapshot", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (confirm != JOptionPane.YES_OPTION) return;
+
+        SwingWorker<Long, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return Snapshot.restore(db, snapshotFile, this::setProgress);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    long rows = get();
+                    // replaceTables publishes change events; the panels reload themselves.
+                    JOptionPane.showMessageDialog(parentFrame, "Loaded " + rows + " records from the snapshot.", "Snapshot Loaded", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause();
+                    // A bad snapshot file arrives directly, or wrapped by the transaction that read it.
+                    boolean badFile = cause instanceof IOException || (cause instanceof SQLException && cause.getCause() instanceof IOException);
+                    String reason = badFile ? "\n" + cause.getMessage() : "";
+                    uiManager.showErrorDialog("Snapshot Error", "Failed to load the snapshot. No data was changed." + reason, (Exception) ex.getCause());
+                }
+            }
+        };
+        uiManager.startProgress(worker, "Loading snapshot...", "Please wait");
+    }
+
     /**
      * Backs up the current database to a file.
      * @param e the action event triggering the backup
@@ -209,12 +502,25 @@ public class FileService {
 
         if (Objects.equals(fileChooser.showSaveDialog(parentFrame), JFileChooser.APPROVE_OPTION)) {
             File fileToSave = fileChooser.getSelectedFile();
-            try {
-                Files.copy(Paths.get("./libs/db/main.db"), fileToSave.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                JOptionPane.showMessageDialog(parentFrame, "SQLite database backup created successfully:\n" + fileToSave.toPath(), "Backup Successful", JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException e) {
-                uiManager.showErrorDialog("Backup Error", "Failed to create SQLite backup.", e);
-            }
+            // Copying main.db alone would miss the transactions still in main.db-wal.
+            SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    db.backupSqliteTo(fileToSave.toPath());
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        get();
+                        JOptionPane.showMessageDialog(parentFrame, "SQLite database backup created successfully:\n" + fileToSave.toPath(), "Backup Successful", JOptionPane.INFORMATION_MESSAGE);
+                    } catch (Exception ex) {
+                        uiManager.showErrorDialog("Backup Error", "Failed to create SQLite backup.", (Exception) ex.getCause());
+                    }
+                }
+            };
+            uiManager.startProgress(worker, "Backing up...", "Please wait");
         }
     }
 
@@ -256,8 +562,18 @@ public class FileService {
         if (fileChooser.showOpenDialog(parentFrame) == JFileChooser.APPROVE_OPTION) {
             File backupFile = fileChooser.getSelectedFile();
             try {
-                DataSource.close(); // IMPORTANT: Close connection pool before overwriting file
-                Files.copy(backupFile.toPath(), Paths.get("./libs/db/main.db"), StandardCopyOption.REPLACE_EXISTING);
+                // IMPORTANT: Close every connection before overwriting the file
+                if (!DataSource.close()) {
+                    // The writer still holds the file; the pools are closed, so start afresh instead.
+                    JOptionPane.showMessageDialog(parentFrame, "The database is still saving changes, so nothing was restored.\nThe application will now restart; please try again.", "Restore", JOptionPane.WARNING_MESSAGE);
+                    restartApplication();
+                    return;
+                }
+                Path dbFile = Paths.get("./libs/db/main.db");
+                // A write-ahead log left from the old database would be applied to the restored one.
+                Files.deleteIfExists(dbFile.resolveSibling("main.db-wal"));
+                Files.deleteIfExists(dbFile.resolveSibling("main.db-shm"));
+                Files.copy(backupFile.toPath(), dbFile, StandardCopyOption.REPLACE_EXISTING);
                 JOptionPane.showMessageDialog(parentFrame, "SQLite database restored successfully.\nThe application will now restart.", "Restore Successful", JOptionPane.INFORMATION_MESSAGE);
                 restartApplication();
             } catch (IOException e) {
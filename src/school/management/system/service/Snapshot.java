@@ -0,0 +1,236 @@
+package school.management.system.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import school.management.system.data.DB;
+import school.management.system.data.DataTable;
+import school.management.system.util.CsvReader;
+
+/**
+ * Writes and loads a snapshot of the school's data: one zip file holding every
+ * {@link DataTable} as a compressed CSV entry ({@code students.csv}, ...) and
+ * a {@value #MANIFEST} entry with the format version and row counts. A
+ * snapshot moves a school between machines, or between SQLite and MySQL;
+ * unlike a database backup it leaves out admin accounts and profile pictures.
+ * <p>
+ * Exporting reads the tables in parallel, each on its own pooled connection,
+ * into temporary files, which are then compressed into the zip one after the
+ * other (a zip is written sequentially). Since each table is read separately,
+ * export while nobody is editing to get a consistent snapshot. Loading
+ * replaces the tables in one transaction with
+ * {@link DB#replaceTables(DB.TableSource, LongConsumer)}.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+final class Snapshot {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(Snapshot.class.getName());
+
+    /** Name of the manifest entry. */
+    static final String MANIFEST = "snapshot.properties";
+
+    /** Version of the snapshot format written. */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Tables read at once; fewer than the pool size, so the rest of the
+     * application still gets connections during an export.
+     */
+    private static final int PARALLEL_READS = 4;
+
+    /** Share of the export progress bar used by reading; the rest is compressing. */
+    private static final int READ_PERCENT = 80;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Snapshot() {
+    }
+
+    /**
+     * Writes a snapshot of every table to a zip file.
+     *
+     * @param db       the database access object
+     * @param file     the zip file; replaced if it exists
+     * @param progress receives the percentage done
+     * @return the number of rows written
+     * @throws Exception if a table cannot be read or the file written
+     */
+    static long export(DB db, Path file, IntConsumer progress) throws Exception {
+        long start = System.nanoTime();
+        DataTable[] tables = DataTable.values();
+        long total = 0;
+        for (DataTable table : tables) {
+            total += db.countRows(table);
+        }
+        long all = Math.max(1, total);
+        Path dir = Files.createTempDirectory("snapshot");
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        ExecutorService readers = Executors.newFixedThreadPool(Math.min(PARALLEL_READS, tables.length),
+                Thread.ofPlatform().name("snapshot-read-", 0).daemon().factory());
+        try {
+            AtomicLong read = new AtomicLong();
+            List<Future<Long>> counts = new ArrayList<>();
+            for (DataTable table : tables) {
+                counts.add(readers.submit(() -> exportTable(db, table, dir.resolve(entryName(table)),
+                        // Rows inserted since the count can take the total past it.
+                        rows -> progress.accept(
+                                (int) Math.min(READ_PERCENT, read.addAndGet(rows) * READ_PERCENT / all)))));
+            }
+            Properties manifest = new Properties();
+            manifest.setProperty("format", String.valueOf(FORMAT_VERSION));
+            manifest.setProperty("created", LocalDateTime.now().toString());
+            long rows = 0;
+            for (int i = 0; i < tables.length; i++) {
+                long count = await(counts.get(i));
+                manifest.setProperty("rows." + tables[i].getTable(), String.valueOf(count));
+                rows += count;
+            }
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), CsvExport.BUFFER_SIZE);
+                    ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8)) {
+                zip.putNextEntry(new ZipEntry(MANIFEST));
+                manifest.store(zip, "School Management System snapshot");
+                zip.closeEntry();
+                for (int i = 0; i < tables.length; i++) {
+                    zip.putNextEntry(new ZipEntry(entryName(tables[i])));
+                    Files.copy(dir.resolve(entryName(tables[i])), zip);
+                    zip.closeEntry();
+                    progress.accept(READ_PERCENT + (i + 1) * (100 - READ_PERCENT) / tables.length);
+                }
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.log(Level.INFO, "Exported a snapshot of {0} rows in {1} ms",
+                    new Object[] { rows, (System.nanoTime() - start) / 1_000_000 });
+            return rows;
+        } finally {
+            readers.shutdownNow();
+            Files.deleteIfExists(partial);
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces every table with the contents of a snapshot.
+     *
+     * @param db       the database access object
+     * @param file     the zip file
+     * @param progress receives the percentage done
+     * @return the number of rows loaded
+     * @throws IOException if the file is not a snapshot this version can read
+     * @throws Exception   if the rows cannot be loaded; the tables are then
+     *                     left as they were
+     */
+    static long restore(DB db, Path file, IntConsumer progress) throws Exception {
+        long start = System.nanoTime();
+        try (ZipFile zip = new ZipFile(file.toFile(), StandardCharsets.UTF_8)) {
+            ZipEntry manifestEntry = zip.getEntry(MANIFEST);
+            if (manifestEntry == null) {
+                throw new IOException(file.getFileName() + " is not a snapshot");
+            }
+            Properties manifest = new Properties();
+            try (InputStream in = zip.getInputStream(manifestEntry)) {
+                manifest.load(in);
+            }
+            int format = Integer.parseInt(manifest.getProperty("format", "0"));
+            if (format < 1 || format > FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format " + format);
+            }
+            long total = 0;
+            for (DataTable table : DataTable.values()) {
+                total += Long.parseLong(manifest.getProperty("rows." + table.getTable(), "0"));
+            }
+            long all = Math.max(1, total);
+            long rows = db.replaceTables(table -> {
+                ZipEntry entry = zip.getEntry(entryName(table));
+                return entry == null ? null
+                        : new CsvReader(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8));
+            }, loaded -> progress.accept((int) Math.min(100, loaded * 100 / all)));
+            LOGGER.log(Level.INFO, "Loaded a snapshot of {0} rows in {1} ms",
+                    new Object[] { rows, (System.nanoTime() - start) / 1_000_000 });
+            return rows;
+        }
+    }
+
+    /**
+     * Writes one table to a temporary CSV file.
+     *
+     * @param db       the database access object
+     * @param table    the table
+     * @param file     the file
+     * @param progress receives the rows written since the last report
+     * @return the number of rows written
+     * @throws Exception if the table cannot be read or the file written
+     */
+    private static long exportTable(DB db, DataTable table, Path file, LongConsumer progress)
+            throws Exception {
+        long[] reported = { 0 };
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), CsvExport.BUFFER_SIZE)) {
+            return CsvExport.writeRows(db, table, table.getColumns(), writer, written -> {
+                progress.accept(written - reported[0]);
+                reported[0] = written;
+            });
+        }
+    }
+
+    /**
+     * Returns the zip entry name of a table.
+     *
+     * @param table the table
+     * @return e.g. {@code students.csv}
+     */
+    private static String entryName(DataTable table) {
+        return table.getTable() + ".csv";
+    }
+
+    /**
+     * Waits for a table export.
+     *
+     * @param future the export
+     * @return its row count
+     * @throws Exception the failure of the export, unwrapped
+     */
+    private static long await(Future<Long> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+}
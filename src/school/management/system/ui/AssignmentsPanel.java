@@ -3,8 +3,10 @@ package school.management.system.ui;
 import java.awt.Component;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.DefaultListCellRenderer;
@@ -19,6 +21,8 @@ import javax.swing.ListSelectionModel;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableModel;
 
+import school.management.system.data.ChangeBus;
+import school.management.system.data.ChangeEvent;
 import school.management.system.data.DataService;
 import school.management.system.model.SchoolClass;
 import school.management.system.model.subject.Subject;
@@ -148,31 +152,88 @@ public class AssignmentsPanel extends JPanel {
         });
 
         refreshPanel();
+        ChangeBus.subscribe(this::applyChanges);
     }
 
     /**
-     * Refreshes the panel data.
+     * Applies committed changes. A deleted assignment is removed from the table
+     * directly; any other change to what this panel shows (assignments,
+     * teachers, subjects, classes) refreshes it.
+     *
+     * @param events the committed changes
+     */
+    private void applyChanges(List<ChangeEvent> events) {
+        boolean refresh = false;
+        for (ChangeEvent event : events) {
+            switch (event.getEntity()) {
+            case ASSIGNMENT -> {
+                if (event.isSingleRow() && event.getOperation() == ChangeEvent.Operation.DELETE) {
+                    removeAssignmentRow(event.getId());
+                } else {
+                    refresh = true;
+                }
+            }
+            case TEACHER, SUBJECT, CLASS -> refresh = true;
+            default -> {
+                // Not shown on this panel
+            }
+            }
+        }
+        if (refresh) {
+            refreshPanel();
+        }
+    }
+
+    /**
+     * Removes the row of an assignment, if shown.
+     *
+     * @param assignmentId the assignment ID
+     */
+    private void removeAssignmentRow(int assignmentId) {
+        for (int i = 0; i < assignmentsModel.getRowCount(); i++) {
+            if ((Integer) assignmentsModel.getValueAt(i, 0) == assignmentId) {
+                assignmentsModel.removeRow(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Refreshes the panel data. The teachers, classes, subjects and assignments
+     * are loaded in parallel, off the Event Dispatch Thread.
      */
     public void refreshPanel() {
-        try {
+        CompletableFuture<List<Teacher>> teachers = dataService.supplyAsync(dataService::fetchAllTeachers);
+        CompletableFuture<List<SchoolClass>> classes = dataService.supplyAsync(dataService::fetchAllClasses);
+        CompletableFuture<List<Subject>> subjects = dataService.supplyAsync(dataService::fetchAllSubjects);
+        CompletableFuture<List<Object[]>> rows = dataService.supplyAsync(() -> {
+            List<Object[]> result = new ArrayList<>();
+            for (TeacherAssignment assignment : dataService.getTeacherAssignments()) {
+                // Get the class name from the ID for display
+                String className = dataService.getClassName(assignment.getClassLevel());
+                result.add(new Object[] { assignment.getAssignmentId(), assignment.getTeacherName(),
+                        assignment.getSubjectName(), className });
+            }
+            return result;
+        });
+
+        CompletableFuture.allOf(teachers, classes, subjects, rows).whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, "Error refreshing data: " + DataService.unwrap(error).getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             // Refresh ComboBoxes
-            teacherComboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(dataService.fetchAllTeachers())));
-            classComboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(dataService.fetchAllClasses())));
-            subjectComboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(dataService.fetchAllSubjects())));
+            teacherComboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(teachers.join())));
+            classComboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(classes.join())));
+            subjectComboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(subjects.join())));
 
             // Refresh Table
             assignmentsModel.setRowCount(0);
-            List<TeacherAssignment> assignments = dataService.getTeacherAssignments();
-            for (TeacherAssignment assignment : assignments) {
-                // Get the class name from the ID for display
-                String className = dataService.getClassName(assignment.getClassLevel());
-                assignmentsModel.addRow(new Object[] { assignment.getAssignmentId(), assignment.getTeacherName(),
-                        assignment.getSubjectName(), className });
+            for (Object[] row : rows.join()) {
+                assignmentsModel.addRow(row);
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error refreshing data: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        }, DataService.EDT);
     }
 
     /**
@@ -191,13 +252,10 @@ public class AssignmentsPanel extends JPanel {
             return;
         }
 
-        try {
-            dataService.addTeacherAssignment(selectedTeacher.getId(), selectedSubject.getId(), selectedClass.getId());
-            refreshPanel();
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error creating assignment: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        dataService.runAsync(
+                () -> dataService.addTeacherAssignment(selectedTeacher.getId(), selectedSubject.getId(), selectedClass.getId()),
+                ex -> JOptionPane.showMessageDialog(this, "Error creating assignment: " + ex.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -222,13 +280,9 @@ public class AssignmentsPanel extends JPanel {
                 JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                dataService.deleteTeacherAssignment(assignmentId);
-                refreshPanel();
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error deleting assignment: " + ex.getMessage(), "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            dataService.runAsync(() -> dataService.deleteTeacherAssignment(assignmentId),
+                    ex -> JOptionPane.showMessageDialog(this, "Error deleting assignment: " + ex.getMessage(), "Error",
+                            JOptionPane.ERROR_MESSAGE));
         }
     }
 }
\ No newline at end of file
@@ -2,10 +2,15 @@ package school.management.system.ui;
 
 import java.awt.Font;
 import java.awt.event.ActionEvent;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Vector;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.DefaultCellEditor;
 import javax.swing.JButton;
@@ -52,6 +57,12 @@ public class AttendancePanel extends JPanel {
     private final DataService dataService;
     /** UI Manager for styling */
     private final UIManager uiManager;
+    /** The statuses already stored for the loaded class and day, by student ID */
+    private final Map<Integer, String> savedStatuses = new HashMap<>();
+    /** The day {@link #savedStatuses} belongs to, or null before the first load */
+    private LocalDate loadedDay;
+    /** Counts table loads, so the result of a superseded load is dropped */
+    private long loadRequest;
 
     /**
      * Constructs the AttendancePanel.
@@ -118,24 +129,21 @@ public class AttendancePanel extends JPanel {
      * Populates the class combo box with available class levels from the database.
      */
     private void populateClassComboBox() {
-        try {
-            List<SchoolClass> classes = dataService.fetchAllClasses();
-            classComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(new Vector<>(classes)));
-            classComboBox.setRenderer(new javax.swing.DefaultListCellRenderer() {
-                @Override
-                public java.awt.Component getListCellRendererComponent(javax.swing.JList<?> list, Object value,
-                        int index, boolean isSelected, boolean cellHasFocus) {
-                    super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                    if (value instanceof SchoolClass) {
-                        setText(((SchoolClass) value).getName());
-                    }
-                    return this;
+        classComboBox.setRenderer(new javax.swing.DefaultListCellRenderer() {
+            @Override
+            public java.awt.Component getListCellRendererComponent(javax.swing.JList<?> list, Object value,
+                    int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof SchoolClass) {
+                    setText(((SchoolClass) value).getName());
                 }
-            });
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error loading class levels: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+                return this;
+            }
+        });
+        dataService.callAsync(dataService::fetchAllClasses,
+                classes -> classComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(new Vector<>(classes))),
+                ex -> JOptionPane.showMessageDialog(this, "Error loading class levels: " + ex.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE));
     }
 
     private void addListeners() {
@@ -150,6 +158,8 @@ public class AttendancePanel extends JPanel {
      */
     private void loadStudentsForAttendance(ActionEvent e) {
         attendanceModel.setRowCount(0); // Clear existing rows
+        savedStatuses.clear();
+        loadedDay = null;
         SchoolClass selectedClass = (SchoolClass) classComboBox.getSelectedItem();
         if (selectedClass == null) {
             JOptionPane.showMessageDialog(this, "Please select a class.", "Warning", JOptionPane.WARNING_MESSAGE);
@@ -157,26 +167,59 @@ public class AttendancePanel extends JPanel {
         }
         int classLevel = selectedClass.getId();
 
-        try {
-            List<Student> students = dataService.getStudentsByClass(classLevel);
-            if (students.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No students found for Class " + classLevel, "Information",
-                        JOptionPane.INFORMATION_MESSAGE);
-                return;
+        Date selectedDate = dateChooser.getDate();
+        if (selectedDate == null) {
+            JOptionPane.showMessageDialog(this, "Please select a date.", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        // The class list and the saved statuses are read in parallel.
+        long request = ++loadRequest;
+        CompletableFuture<List<Student>> students = dataService
+                .supplyAsync(() -> dataService.getStudentsByClass(classLevel));
+        CompletableFuture<Map<Integer, String>> statuses = dataService
+                .supplyAsync(() -> dataService.getAttendanceForClass(classLevel, selectedDate));
+        students.thenCombine(statuses, Map::entry).whenCompleteAsync((loaded, error) -> {
+            if (request != loadRequest) {
+                return; // A newer load was started meanwhile
             }
-            for (Student student : students) {
-                String fullName = student.getFirstName() + " " + student.getLastName();
-                // Add student to table with default "Present" status
-                attendanceModel.addRow(new Object[] { student.getId(), fullName, "Present" });
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, "Error loading students: " + DataService.unwrap(error).getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error loading students: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
+            showStudents(classLevel, loaded.getKey(), loaded.getValue(), selectedDate);
+        }, DataService.EDT);
+    }
+
+    /**
+     * Fills the table with a loaded class.
+     *
+     * @param classLevel   the class ID
+     * @param students     the students of the class
+     * @param saved        the saved status of each student who has one
+     * @param selectedDate the day that was loaded
+     */
+    private void showStudents(int classLevel, List<Student> students, Map<Integer, String> saved, Date selectedDate) {
+        if (students.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No students found for Class " + classLevel, "Information",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        savedStatuses.putAll(saved);
+        loadedDay = toDay(selectedDate);
+        for (Student student : students) {
+            String fullName = student.getFirstName() + " " + student.getLastName();
+            // Show the saved status, or "Present" for a student not marked yet
+            String status = savedStatuses.getOrDefault(student.getId(), "Present");
+            attendanceModel.addRow(new Object[] { student.getId(), fullName, status });
         }
     }
 
     /** 
-     * Saves the attendance records from the table to the database.
+     * Saves the attendance records from the table to the database. Only rows
+     * that are not saved yet or whose status differs from the saved one are
+     * written; if the date was changed after loading, every row is written.
      *
      * @param e the action event triggering this method
      */
@@ -188,15 +231,31 @@ public class AttendancePanel extends JPanel {
 
         List<AttendanceRecord> records = new ArrayList<>();
         Date selectedDate = dateChooser.getDate();
+        if (selectedDate == null) {
+            JOptionPane.showMessageDialog(this, "Please select a date.", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        LocalDate day = toDay(selectedDate);
+        boolean sameDay = day.equals(loadedDay);
 
         for (int i = 0; i < attendanceModel.getRowCount(); i++) {
+            int studentId = (Integer) attendanceModel.getValueAt(i, 0);
+            String status = (String) attendanceModel.getValueAt(i, 2);
+            if (sameDay && status.equals(savedStatuses.get(studentId))) {
+                continue; // Unchanged since it was loaded or last saved
+            }
             AttendanceRecord record = new AttendanceRecord();
-            record.setStudentId((Integer) attendanceModel.getValueAt(i, 0));
-            record.setStatus((String) attendanceModel.getValueAt(i, 2));
+            record.setStudentId(studentId);
+            record.setStatus(status);
             record.setAttendanceDate(selectedDate);
             records.add(record);
         }
 
+        if (records.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No changes to save.", "Information", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
         SwingWorker<Void, Void> worker = new SwingWorker<>() {
             @Override
             protected Void doInBackground() throws Exception {
@@ -206,10 +265,33 @@ public class AttendancePanel extends JPanel {
 
             @Override
             protected void done() {
-                JOptionPane.showMessageDialog(AttendancePanel.this, "Attendance saved successfully!", "Success",
-                        JOptionPane.INFORMATION_MESSAGE);
+                try {
+                    get();
+                    if (!sameDay) {
+                        savedStatuses.clear();
+                        loadedDay = day;
+                    }
+                    for (AttendanceRecord record : records) {
+                        savedStatuses.put(record.getStudentId(), record.getStatus());
+                    }
+                    JOptionPane.showMessageDialog(AttendancePanel.this,
+                            "Attendance saved successfully! (" + records.size() + " record(s) updated)", "Success",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    uiManager.showErrorDialog("Save Error", "Could not save attendance.", ex);
+                }
             }
         };
         uiManager.startProgress(worker, "Saving Attendance", "Please wait");
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the local calendar day of a date.
+     *
+     * @param date the date
+     * @return the day in the local time zone
+     */
+    private static LocalDate toDay(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
@@ -2,6 +2,7 @@ package school.management.system.ui;
 
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -20,6 +21,8 @@ import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableModel;
 
 import school.management.system.App;
+import school.management.system.data.ChangeBus;
+import school.management.system.data.ChangeEvent;
 import school.management.system.data.DataService;
 import school.management.system.model.SchoolClass;
 import school.management.system.model.student.Student;
@@ -108,22 +111,72 @@ public class ClassesPanel extends JPanel {
         viewStudentsItem.addActionListener(this::viewStudentsInClass);
 
         refreshClasses();
+        ChangeBus.subscribe(this::applyChanges);
+    }
+
+    /**
+     * Applies committed class changes to the table row by row. Names come from
+     * the reference cache, so this does not query the database.
+     *
+     * @param events the committed changes
+     */
+    private void applyChanges(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            if (event.getEntity() != ChangeEvent.Entity.CLASS) {
+                continue;
+            }
+            if (!event.isSingleRow()) {
+                refreshClasses();
+                return;
+            }
+            int row = findRow(event.getId());
+            String name = null;
+            if (event.getOperation() != ChangeEvent.Operation.DELETE) {
+                try {
+                    name = dataService.getClassNameById(event.getId());
+                } catch (Exception ex) {
+                    refreshClasses();
+                    return;
+                }
+            }
+            if (name == null) {
+                if (row >= 0) {
+                    classesModel.removeRow(row);
+                }
+            } else if (row >= 0) {
+                classesModel.setValueAt(name, row, 1);
+            } else {
+                classesModel.addRow(new Object[] { event.getId(), name });
+            }
+        }
+    }
+
+    /**
+     * Finds the table row of a class.
+     *
+     * @param classId the class ID
+     * @return the model row, or -1 if it is not shown
+     */
+    private int findRow(int classId) {
+        for (int i = 0; i < classesModel.getRowCount(); i++) {
+            if ((Integer) classesModel.getValueAt(i, 0) == classId) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
      * Refreshes the classes displayed in the table.
      */
     public void refreshClasses() {
-        classesModel.setRowCount(0);
-        try {
-            List<SchoolClass> classes = dataService.fetchAllClasses();
+        dataService.callAsync(dataService::fetchAllClasses, classes -> {
+            classesModel.setRowCount(0);
             for (SchoolClass schoolClass : classes) {
                 classesModel.addRow(new Object[] { schoolClass.getId(), schoolClass.getName() });
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error loading classes: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        }, ex -> JOptionPane.showMessageDialog(this, "Error loading classes: " + ex.getMessage(), "Error",
+                JOptionPane.ERROR_MESSAGE));
     }
 
     /** 
@@ -134,13 +187,8 @@ public class ClassesPanel extends JPanel {
         String className = JOptionPane.showInputDialog(this, "Enter new class name (e.g., '1', '2', 'JHS 1'):",
                 "Add Class", JOptionPane.PLAIN_MESSAGE);
         if (className != null && !className.trim().isEmpty()) {
-            try {
-                dataService.addClass(className.trim());
-                refreshClasses();
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error adding class: " + ex.getMessage(), "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            dataService.runAsync(() -> dataService.addClass(className.trim()), ex -> JOptionPane.showMessageDialog(this,
+                    "Error adding class: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
         }
     }
 
@@ -163,13 +211,8 @@ public class ClassesPanel extends JPanel {
                 JOptionPane.PLAIN_MESSAGE, null, null, currentName);
 
         if (newName != null && !newName.trim().isEmpty() && !newName.equals(currentName)) {
-            try {
-                dataService.updateClass(new SchoolClass(classId, newName.trim()));
-                refreshClasses();
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error updating class: " + ex.getMessage(), "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            dataService.runAsync(() -> dataService.updateClass(new SchoolClass(classId, newName.trim())), ex -> JOptionPane.showMessageDialog(this,
+                    "Error updating class: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
         }
     }
 
@@ -212,60 +255,66 @@ public class ClassesPanel extends JPanel {
         int classId = (Integer) classesModel.getValueAt(selectedRow, 0);
         String className = (String) classesModel.getValueAt(selectedRow, 1);
 
-        try {
-            List<Student> students = dataService.getStudentsByClass(classId);
-
-            if (students.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No students are currently enrolled in " + className + ".",
-                        "Students in Class", JOptionPane.INFORMATION_MESSAGE);
-                return;
-            }
+        dataService.callAsync(() -> dataService.getStudentsByClass(classId),
+                students -> showStudents(className, students),
+                ex -> JOptionPane.showMessageDialog(this, "Error fetching students: " + ex.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE));
+    }
 
-            // Create a JTable to display student details in a dialog
-            String[] columnNames = { "ID", "First Name", "Last Name", "Gender" };
-            DefaultTableModel studentTableModel = new DefaultTableModel(columnNames, 0) {
-                @Override
-                public boolean isCellEditable(int row, int column) {
-                    return false;
-                }
-            };
+    /**
+     * Shows the students of a class in a dialog; double-clicking one opens their
+     * profile.
+     *
+     * @param className the class name, for the title
+     * @param students  the students enrolled in the class
+     */
+    private void showStudents(String className, List<Student> students) {
+        if (students.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No students are currently enrolled in " + className + ".",
+                    "Students in Class", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
 
-            for (Student student : students) {
-                studentTableModel.addRow(new Object[] { student.getId(), student.getFirstName(), student.getLastName(),
-                        student.getGender() });
+        // Create a JTable to display student details in a dialog
+        String[] columnNames = { "ID", "First Name", "Last Name", "Gender" };
+        DefaultTableModel studentTableModel = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
             }
+        };
 
-            JTable studentTable = new JTable(studentTableModel);
-            studentTable.addMouseListener(new MouseAdapter() {
-                @Override
-                public void mouseClicked(MouseEvent e) {
-                    if (e.getClickCount() == 2) {
-                        int selectedRow = studentTable.getSelectedRow();
-                        if (selectedRow != -1) {
-                            int studentId = (Integer) studentTable.getValueAt(selectedRow, 0);
-                            try {
-                                // Fetch the full student object to show the profile
-                                List<Student> students = dataService.searchAndReturn(String.valueOf(studentId), 0);
-                                if (!students.isEmpty()) {
-                                    // Close the current dialog before opening the new panel
-                                    SwingUtilities.getWindowAncestor((java.awt.Component) e.getSource()).dispose();
-                                    app.showViewPanelForStudent(students.get(0));
-                                }
-                            } catch (Exception ex) {
-                                JOptionPane.showMessageDialog(ClassesPanel.this,
-                                        "Error loading student profile: " + ex.getMessage(), "Error",
-                                        JOptionPane.ERROR_MESSAGE);
+        for (Student student : students) {
+            studentTableModel.addRow(new Object[] { student.getId(), student.getFirstName(), student.getLastName(),
+                    student.getGender() });
+        }
+
+        JTable studentTable = new JTable(studentTableModel);
+        studentTable.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    int selectedRow = studentTable.getSelectedRow();
+                    if (selectedRow != -1) {
+                        int studentId = (Integer) studentTable.getValueAt(selectedRow, 0);
+                        Window dialog = SwingUtilities.getWindowAncestor((java.awt.Component) e.getSource());
+                        // Fetch the full student object to show the profile
+                        dataService.callAsync(() -> dataService.findStudentById(studentId), student -> {
+                            if (student != null) {
+                                // Close the current dialog before opening the new panel
+                                dialog.dispose();
+                                app.showViewPanelForStudent(student);
                             }
-                        }
+                        }, ex -> JOptionPane.showMessageDialog(ClassesPanel.this,
+                                "Error loading student profile: " + ex.getMessage(), "Error",
+                                JOptionPane.ERROR_MESSAGE));
                     }
                 }
-            });
-            JScrollPane tableScrollPane = new JScrollPane(studentTable);
-            tableScrollPane.setPreferredSize(new Dimension(450, 250));
+            }
+        });
+        JScrollPane tableScrollPane = new JScrollPane(studentTable);
+        tableScrollPane.setPreferredSize(new Dimension(450, 250));
 
-            JOptionPane.showMessageDialog(this, tableScrollPane, "Students in " + className, JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error fetching students: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        JOptionPane.showMessageDialog(this, tableScrollPane, "Students in " + className, JOptionPane.INFORMATION_MESSAGE);
     }
-}
\ No newline at end of file
+}
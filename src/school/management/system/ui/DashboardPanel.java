@@ -25,6 +25,8 @@ import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 
 import school.management.system.App;
+import school.management.system.data.ChangeBus;
+import school.management.system.data.ChangeEvent;
 import school.management.system.data.DB;
 
 /**
@@ -52,6 +54,13 @@ public class DashboardPanel extends JPanel {
         add(chartsContainer, BorderLayout.CENTER);
 
         refreshCharts();
+        ChangeBus.subscribe(events -> {
+            // Charts are redrawn when the tab is selected; only a visible one needs updating now.
+            if (isShowing() && ChangeBus.affects(events, ChangeEvent.Entity.STUDENT, ChangeEvent.Entity.CLASS,
+                    ChangeEvent.Entity.PAYMENT)) {
+                refreshCharts();
+            }
+        });
     }
 
     /**
@@ -2,10 +2,8 @@ package school.management.system.ui;
 
 import java.awt.Font;
 import java.awt.event.ActionEvent;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.List;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -15,7 +13,6 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 
 import school.management.system.data.DataService;
 import school.management.system.model.student.Payment;
@@ -39,7 +36,7 @@ public class FeesPanel extends JPanel {
     /** Table to display payment history */
     private final JTable paymentsTable;
     /** Model for the payments table */
-    private final DefaultTableModel paymentsModel;
+    private final PaymentTableModel paymentsModel;
     /** Text field for entering payment amount */
     private final JTextField amountField;
     /** Button to record a new payment */
@@ -93,14 +90,9 @@ public class FeesPanel extends JPanel {
         historyLabel.setBounds(20, 70, 150, 30);
         add(historyLabel);
 
-        String[] columnNames = { "Date", "Amount Paid", "Term", "Academic Year" };
-        paymentsModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        paymentsModel = new PaymentTableModel();
         paymentsTable = new JTable(paymentsModel);
+        paymentsModel.installSortHeader(paymentsTable);
         JScrollPane scrollPane = new JScrollPane(paymentsTable);
         scrollPane.setBounds(20, 100, 640, 200);
         add(scrollPane);
@@ -149,43 +141,44 @@ public class FeesPanel extends JPanel {
             return;
         }
 
+        int studentId;
         try {
-            List<Student> students = dataService.searchAndReturn(studentIdText, 0); // Search by ID
-            if (students.isEmpty()) {
+            studentId = Integer.parseInt(studentIdText.trim());
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Student ID must be a number.", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        dataService.callAsync(() -> dataService.findStudentById(studentId), student -> {
+            if (student == null) {
                 JOptionPane.showMessageDialog(this, "Student not found.", "Not Found", JOptionPane.ERROR_MESSAGE);
                 studentNameLabel.setText("Student Name: (Not Selected)");
                 currentStudent = null;
-                paymentsModel.setRowCount(0);
+                paymentsModel.clear();
             } else {
-                currentStudent = students.get(0);
+                currentStudent = student;
                 studentNameLabel.setText("Student Name: " + currentStudent.getFirstName() + " " + currentStudent.getLastName());
                 loadPaymentHistory();
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error searching for student: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        }, ex -> JOptionPane.showMessageDialog(this, "Error searching for student: " + ex.getMessage(), "Error",
+                JOptionPane.ERROR_MESSAGE));
     }
 
     /**
      * Loads the payment history for the selected student.
      */
     private void loadPaymentHistory() {
-        paymentsModel.setRowCount(0);
+        paymentsModel.clear();
         if (currentStudent == null)
             return;
 
-        try {
-            List<Payment> payments = dataService.getStudentPayments(currentStudent.getId());
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-            for (Payment p : payments) {
-                paymentsModel.addRow(new Object[] { sdf.format(p.getPaymentDate()), p.getAmountPaid(), p.getTerm(),
-                        p.getAcademicYear() });
+        Student student = currentStudent;
+        dataService.callAsync(() -> dataService.getStudentPayments(student.getId()), payments -> {
+            if (currentStudent == student) { // Ignore a student who is no longer selected
+                paymentsModel.setPayments(payments);
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error loading payment history: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        }, ex -> JOptionPane.showMessageDialog(this, "Error loading payment history: " + ex.getMessage(), "Error",
+                JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -199,25 +192,29 @@ public class FeesPanel extends JPanel {
                     JOptionPane.WARNING_MESSAGE);
             return;
         }
+        double amount;
         try {
-            double amount = Double.parseDouble(amountField.getText());
-            Payment newPayment = new Payment();
-            newPayment.setStudentId(currentStudent.getId());
-            newPayment.setAmountPaid(amount);
-            newPayment.setPaymentDate(new Date());
-            newPayment.setTerm("Term 1"); // Example, this could be a dropdown
-            newPayment.setAcademicYear(Calendar.getInstance().get(Calendar.YEAR)); // Example
-
-            dataService.addStudentPayment(newPayment);
-            JOptionPane.showMessageDialog(this, "Payment recorded successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-            amountField.setText("");
-            loadPaymentHistory(); // Refresh the table
+            amount = Double.parseDouble(amountField.getText());
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Please enter a valid amount.", "Invalid Input",
                     JOptionPane.ERROR_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error recording payment: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        Payment newPayment = new Payment();
+        newPayment.setStudentId(currentStudent.getId());
+        newPayment.setAmountPaid(amount);
+        newPayment.setPaymentDate(new Date());
+        newPayment.setTerm("Term 1"); // Example, this could be a dropdown
+        newPayment.setAcademicYear(Calendar.getInstance().get(Calendar.YEAR)); // Example
+
+        dataService.callAsync(() -> {
+            dataService.addStudentPayment(newPayment);
+            return null;
+        }, ignored -> {
+            JOptionPane.showMessageDialog(this, "Payment recorded successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            amountField.setText("");
+            loadPaymentHistory(); // Refresh the table
+        }, ex -> JOptionPane.showMessageDialog(this, "Error recording payment: " + ex.getMessage(), "Error",
+                JOptionPane.ERROR_MESSAGE));
     }
 }
\ No newline at end of file
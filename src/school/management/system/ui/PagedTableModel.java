@@ -0,0 +1,966 @@
+package school.management.system.ui;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+
+import school.management.system.data.Page;
+import school.management.system.data.QueryLane;
+import school.management.system.data.UncheckedSQLException;
+
+/**
+ * A read-only table model that loads its rows from the database one page at a
+ * time, as the table asks for them, instead of holding every row in memory.
+ * <p>
+ * Pages are fetched in the background with keyset pagination: the sort key of
+ * the last row of every loaded page is remembered, and a page is requested as
+ * "the rows after the nearest known key", skipping only the pages in between.
+ * Scrolling therefore costs one small indexed query per page, however large the
+ * table is. Only the most recently used pages are kept.
+ * </p>
+ * <p>
+ * Sorting and filtering happen in the database. Clicking a sortable header (see
+ * {@link #installSortHeader(JTable)}) re-sorts, and {@link #setFilter(String)}
+ * restricts the rows. The model can also show a fixed list of IDs, e.g. search
+ * results, via {@link #showIds(List)}; that list keeps its own order.
+ * </p>
+ * <p>
+ * The first column is always the row number. All methods must be called on the
+ * Event Dispatch Thread.
+ * </p>
+ *
+ * @param <T> the type of the rows
+ * @author Ibn Issah
+ */
+public abstract class PagedTableModel<T> extends AbstractTableModel implements SortHeader.Sortable {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(PagedTableModel.class.getName());
+    /** Rows per page. */
+    private static final int PAGE_SIZE = 100;
+    /** Maximum number of pages kept in memory. */
+    private static final int MAX_CACHED_PAGES = 30;
+    /** Rows per query when reading everything, e.g. for export. */
+    private static final int BULK_PAGE_SIZE = 1000;
+    /** Most pages re-read and compared by {@link #refresh()}. */
+    private static final int MAX_REFRESH_PAGES = 5;
+    /** Seconds a count or page query may run before the database abandons it. */
+    private static final int QUERY_TIMEOUT_SECONDS = 30;
+
+    /** The column headers. */
+    private final String[] columnNames;
+    /** Loaded pages by page index, in least-recently-used order. */
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    /** Sort key of the last row of each page seen so far, by page index. */
+    private final TreeMap<Integer, Object[]> anchors = new TreeMap<>();
+    /** Pages currently being fetched. */
+    private final Set<Integer> loading = new HashSet<>();
+    /** The count and page queries; each new generation cancels those of the last. */
+    private final QueryLane lane = new QueryLane(QUERY_TIMEOUT_SECONDS);
+    /** The ticket the queries of the current generation run under. */
+    private QueryLane.Ticket ticket = lane.next();
+
+    /** The number of rows the table shows. */
+    private int rowCount;
+    /** Bumped whenever the content changes, so late results can be discarded. */
+    private long generation;
+    /** The current filter text. */
+    private String filter = "";
+    /** The sorted model column, or -1 for the default order. */
+    private int sortColumn = -1;
+    /** Whether the sort is ascending. */
+    private boolean ascending = true;
+    /** The IDs shown in ID-list mode, or {@code null}. */
+    private List<Integer> idList;
+
+    /**
+     * Creates the model.
+     *
+     * @param columnNames the column headers; the first is the row number
+     */
+    protected PagedTableModel(String... columnNames) {
+        this.columnNames = columnNames.clone();
+    }
+
+    /**
+     * Counts the rows matching the filter.
+     *
+     * @param filter the filter text, possibly empty
+     * @return the row count
+     * @throws Exception if the query fails
+     */
+    protected abstract int countRows(String filter) throws Exception;
+
+    /**
+     * Fetches one page in sort order.
+     *
+     * @param sortColumn the database column to sort by, or {@code null} for the
+     *                   default order
+     * @param ascending  whether to sort ascending
+     * @param after      the key to continue after, or {@code null}
+     * @param offset     rows to skip after the key
+     * @param limit      the page size
+     * @param filter     the filter text, possibly empty
+     * @return the page
+     * @throws Exception if the query fails
+     */
+    protected abstract Page<T> fetchPage(String sortColumn, boolean ascending, Object[] after, int offset, int limit,
+            String filter) throws Exception;
+
+    /**
+     * Streams every row matching the filter in sort order, for export. The
+     * stream must be closed.
+     *
+     * @param sortColumn the database column to sort by, or {@code null} for the
+     *                   default order
+     * @param ascending  whether to sort ascending
+     * @param filter     the filter text, possibly empty
+     * @return the rows, read as the stream is consumed
+     * @throws Exception if the query cannot be started
+     */
+    protected abstract Stream<T> streamRows(String sortColumn, boolean ascending, String filter) throws Exception;
+
+    /**
+     * Fetches rows by ID, in any order.
+     *
+     * @param ids the IDs
+     * @return the rows that exist
+     * @throws Exception if the query fails
+     */
+    protected abstract List<T> fetchByIds(List<Integer> ids) throws Exception;
+
+    /**
+     * Returns the ID of a row.
+     *
+     * @param row the row
+     * @return its ID
+     */
+    protected abstract int idOf(T row);
+
+    /**
+     * Returns the value of a column other than the row number.
+     *
+     * @param row    the row
+     * @param column the model column, at least 1
+     * @return the cell value
+     */
+    protected abstract Object valueAt(T row, int column);
+
+    /**
+     * Maps a model column to the database column it sorts by.
+     *
+     * @param column the model column
+     * @return the database column, or {@code null} if the column is not sortable
+     */
+    protected abstract String sortColumnName(int column);
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (columnIndex == 0) {
+            return rowIndex + 1;
+        }
+        T row = getRowAt(rowIndex);
+        return row == null ? null : valueAt(row, columnIndex);
+    }
+
+    /**
+     * Returns the row at a model index, scheduling its page to be loaded if it is
+     * not in memory.
+     *
+     * @param rowIndex the model row index
+     * @return the row, or {@code null} if it is still loading
+     */
+    public T getRowAt(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= rowCount) {
+            return null;
+        }
+        int page = rowIndex / PAGE_SIZE;
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = rowIndex % PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    /**
+     * Reloads the row count and pages with the current sort and filter. Leaves
+     * ID-list mode.
+     */
+    public void reload() {
+        idList = null;
+        long gen = invalidate();
+        String currentFilter = filter;
+        QueryLane.Ticket queries = ticket;
+        SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return queries.run(() -> countRows(currentFilter));
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) {
+                    return;
+                }
+                try {
+                    rowCount = get();
+                } catch (Exception ex) {
+                    LOGGER.log(Level.WARNING, "Could not count table rows", ex);
+                    rowCount = 0;
+                }
+                fireTableDataChanged();
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Re-reads the rows around the part of the table last looked at and applies
+     * the difference, keeping the selection and scroll position. Unlike
+     * {@link #reload()}, which throws everything away and repaints a blank
+     * table until the pages arrive, the table only receives events for rows
+     * that were really inserted, deleted or changed, coalesced into ranges.
+     * <p>
+     * The compared window is the contiguous run of loaded pages around the most
+     * recently used one, up to {@value #MAX_REFRESH_PAGES} pages. Rows outside
+     * it are not in memory and are simply fetched fresh when shown. The time
+     * spent on the Event Dispatch Thread is logged at {@code FINE}.
+     * </p>
+     */
+    public void refresh() {
+        int[] window = refreshWindow();
+        if (window == null) {
+            if (idList == null) {
+                reload();
+            }
+            return;
+        }
+        int firstPage = window[0];
+        int pageCount = window[1];
+        int from = firstPage * PAGE_SIZE;
+        long gen = generation;
+        List<Integer> ids = idList == null ? null
+                : new ArrayList<>(idList.subList(from, Math.min(idList.size(), from + pageCount * PAGE_SIZE)));
+        String sortName = sortColumn < 0 ? null : sortColumnName(sortColumn);
+        boolean asc = ascending;
+        String currentFilter = filter;
+        QueryLane.Ticket queries = ticket;
+
+        new SwingWorker<Page<T>, Void>() {
+            private int count;
+
+            @Override
+            protected Page<T> doInBackground() throws Exception {
+                if (ids != null) {
+                    count = rowCount;
+                    return new Page<>(fetchOrdered(ids), null);
+                }
+                count = queries.run(() -> countRows(currentFilter));
+                // Read by offset, not by the old keys: rows before the window may have changed.
+                return queries.run(() -> fetchPage(sortName, asc, null, from, pageCount * PAGE_SIZE, currentFilter));
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) {
+                    return; // Sort, filter or content changed meanwhile
+                }
+                try {
+                    applyRefresh(firstPage, pageCount, count, get());
+                } catch (Exception ex) {
+                    LOGGER.log(Level.WARNING, "Could not refresh table rows", ex);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Tells whether the model shows a fixed list of rows from
+     * {@link #showIds(List)} rather than the whole table.
+     *
+     * @return {@code true} while showing search results
+     */
+    public boolean isShowingIds() {
+        return idList != null;
+    }
+
+    /**
+     * Shows only the given rows, in the given order, e.g. search results.
+     *
+     * @param ids the IDs to show
+     */
+    public void showIds(List<Integer> ids) {
+        invalidate();
+        idList = new ArrayList<>(ids);
+        rowCount = idList.size();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Removes all rows without querying the database, e.g. on logout.
+     */
+    public void clear() {
+        invalidate();
+        idList = null;
+        rowCount = 0;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Restricts the rows to those matching the filter text and reloads.
+     *
+     * @param text the filter text; empty shows every row
+     */
+    public void setFilter(String text) {
+        String normalized = text == null ? "" : text.trim();
+        if (normalized.equals(filter) && idList == null) {
+            return;
+        }
+        filter = normalized;
+        reload();
+    }
+
+    /**
+     * Returns the column the rows are sorted by.
+     *
+     * @return the model column, or -1 for the default order
+     */
+    @Override
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    @Override
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Sorts by a column, or flips the direction if it is already sorted. Ignored
+     * for columns that are not sortable and while an ID list is shown.
+     *
+     * @param column the model column
+     */
+    @Override
+    public void toggleSort(int column) {
+        if (idList != null || sortColumnName(column) == null) {
+            return;
+        }
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        reload();
+    }
+
+    /**
+     * Makes header clicks on the table sort this model, and shows the sort
+     * direction in the header.
+     *
+     * @param table a table using this model, without a row sorter
+     */
+    public void installSortHeader(JTable table) {
+        SortHeader.install(table, this);
+    }
+
+    /**
+     * Applies rows changed elsewhere without reloading the whole table.
+     * <ul>
+     * <li>An updated row that is on a loaded page is fetched again on its own
+     * and repainted in place; rows not in memory need nothing.</li>
+     * <li>A deleted row that is on a loaded page is removed there; later pages
+     * are dropped (their rows have moved up by one) and fetched again when
+     * shown. In ID-list mode the ID is removed from the list.</li>
+     * <li>Inserts, and deletes of rows not in memory, change positions that are
+     * not known here, so they fall back to {@link #refresh()}, which costs a
+     * count and the pages around the visible one. An ID list ignores
+     * inserts.</li>
+     * </ul>
+     *
+     * @param updated  IDs of rows whose values changed
+     * @param deleted  IDs of rows that no longer exist
+     * @param inserted whether any rows were added, or changed in an unknown way
+     */
+    public void applyChanges(Set<Integer> updated, Set<Integer> deleted, boolean inserted) {
+        if (idList == null && inserted) {
+            refresh();
+            return;
+        }
+        for (Integer id : deleted) {
+            if (!removeRow(id)) {
+                refresh();
+                return;
+            }
+        }
+        List<Integer> loadedIds = new ArrayList<>();
+        for (List<T> rows : pages.values()) {
+            for (T row : rows) {
+                if (row != null && updated.contains(idOf(row))) {
+                    loadedIds.add(idOf(row));
+                }
+            }
+        }
+        if (!loadedIds.isEmpty()) {
+            refreshRows(loadedIds);
+        }
+    }
+
+    /**
+     * Repaints every row without reloading, e.g. after a class was renamed and
+     * a column shows names looked up from the reference cache.
+     */
+    public void repaintRows() {
+        if (rowCount > 0) {
+            fireTableRowsUpdated(0, rowCount - 1);
+        }
+    }
+
+    /**
+     * Receives the rows of an {@link Export} one at a time.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+        /**
+         * Accepts one row.
+         *
+         * @param values the cell values, starting with the row number; the
+         *               array may be reused for the next row
+         * @throws IOException if the row cannot be written
+         */
+        void accept(Object[] values) throws IOException;
+    }
+
+    /**
+     * The rows of the model as they were when {@link #exportRows()} was
+     * called, read back from the database.
+     */
+    @FunctionalInterface
+    public interface Export {
+        /**
+         * Reads every row, in display order, and hands each one to a sink as
+         * it arrives. Safe to run off the Event Dispatch Thread.
+         *
+         * @param sink receives each row, including the row number
+         * @return the number of rows
+         * @throws Exception if a query fails or the sink throws
+         */
+        int run(RowSink sink) throws Exception;
+    }
+
+    /**
+     * Captures the rows the model currently represents (its ID list, or its
+     * filter and sort order) for export. Call on the Event Dispatch Thread and
+     * run the result in the background: it queries the database directly and
+     * never collects the rows, so memory use does not grow with the table.
+     *
+     * @return the export, not yet run
+     */
+    public Export exportRows() {
+        List<Integer> ids = idList == null ? null : new ArrayList<>(idList);
+        String sortName = sortColumn < 0 ? null : sortColumnName(sortColumn);
+        boolean asc = ascending;
+        String where = filter;
+        return sink -> {
+            Object[] cells = new Object[columnNames.length];
+            int count = 0;
+            if (ids != null) {
+                for (int from = 0; from < ids.size(); from += BULK_PAGE_SIZE) {
+                    for (T row : fetchOrdered(ids.subList(from, Math.min(ids.size(), from + BULK_PAGE_SIZE)))) {
+                        sink.accept(cells(row, ++count, cells));
+                    }
+                }
+                return count;
+            }
+            try (Stream<T> rows = streamRows(sortName, asc, where)) {
+                Iterator<T> it = rows.iterator();
+                while (it.hasNext()) {
+                    sink.accept(cells(it.next(), ++count, cells));
+                }
+            } catch (UncheckedSQLException e) {
+                throw e.getCause();
+            }
+            return count;
+        };
+    }
+
+    /**
+     * Fills the cell values of one exported row.
+     *
+     * @param row    the row, or null if it has been deleted
+     * @param number the row number
+     * @param cells  the array to fill
+     * @return {@code cells}
+     */
+    private Object[] cells(T row, int number, Object[] cells) {
+        cells[0] = number;
+        for (int c = 1; c < cells.length; c++) {
+            cells[c] = row == null ? null : valueAt(row, c);
+        }
+        return cells;
+    }
+
+    /**
+     * Drops every loaded page and key, and starts a new generation.
+     *
+     * @return the new generation
+     */
+    private long invalidate() {
+        pages.clear();
+        anchors.clear();
+        loading.clear();
+        ticket = lane.next(); // Queries for the old content are no longer wanted
+        return ++generation;
+    }
+
+    /**
+     * Fetches a page in the background unless it is already being fetched.
+     *
+     * @param page the page index
+     */
+    private void requestPage(int page) {
+        if (!loading.add(page)) {
+            return;
+        }
+        long gen = generation;
+        SwingWorker<Page<T>, Void> worker;
+
+        if (idList != null) {
+            int from = page * PAGE_SIZE;
+            List<Integer> slice = new ArrayList<>(idList.subList(from, Math.min(idList.size(), from + PAGE_SIZE)));
+            worker = new SwingWorker<>() {
+                @Override
+                protected Page<T> doInBackground() throws Exception {
+                    return new Page<>(fetchOrdered(slice), null);
+                }
+
+                @Override
+                protected void done() {
+                    pageLoaded(gen, page, this);
+                }
+            };
+        } else {
+            // Continue after the nearest page before this one whose last key we know.
+            Map.Entry<Integer, Object[]> anchor = anchors.floorEntry(page - 1);
+            Object[] after = anchor == null ? null : anchor.getValue();
+            int offset = (page - (anchor == null ? 0 : anchor.getKey() + 1)) * PAGE_SIZE;
+            String sortName = sortColumn < 0 ? null : sortColumnName(sortColumn);
+            boolean asc = ascending;
+            String currentFilter = filter;
+            QueryLane.Ticket queries = ticket;
+            worker = new SwingWorker<>() {
+                @Override
+                protected Page<T> doInBackground() throws Exception {
+                    return queries.run(() -> fetchPage(sortName, asc, after, offset, PAGE_SIZE, currentFilter));
+                }
+
+                @Override
+                protected void done() {
+                    pageLoaded(gen, page, this);
+                }
+            };
+        }
+        worker.execute();
+    }
+
+    /**
+     * Stores a fetched page and repaints its rows, unless the model has changed
+     * since the fetch started.
+     *
+     * @param gen    the generation the fetch was started in
+     * @param page   the page index
+     * @param worker the finished worker
+     */
+    private void pageLoaded(long gen, int page, SwingWorker<Page<T>, Void> worker) {
+        if (gen != generation) {
+            return;
+        }
+        loading.remove(page);
+        try {
+            Page<T> result = worker.get();
+            pages.put(page, result.getRows());
+            if (result.getLastKey() != null) {
+                anchors.put(page, result.getLastKey());
+            }
+        } catch (Exception ex) {
+            LOGGER.log(Level.WARNING, "Could not load table page " + page, ex);
+            return;
+        }
+        int first = page * PAGE_SIZE;
+        int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+        if (last >= first) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    /**
+     * Picks the pages {@link #refresh()} compares: the most recently used page
+     * and its loaded neighbours.
+     *
+     * @return the first page and the number of pages, or {@code null} if no
+     *         page is loaded
+     */
+    private int[] refreshWindow() {
+        Integer recent = null;
+        for (Integer page : pages.keySet()) {
+            recent = page; // Access order: the last key is the most recently used
+        }
+        if (recent == null) {
+            return null;
+        }
+        int first = recent;
+        int last = recent;
+        while (last - first + 1 < MAX_REFRESH_PAGES) {
+            if (pages.containsKey(first - 1)) {
+                first--;
+            } else if (pages.containsKey(last + 1)) {
+                last++;
+            } else {
+                break;
+            }
+        }
+        return new int[] { first, last - first + 1 };
+    }
+
+    /**
+     * Replaces the loaded window with freshly read rows and fires the events
+     * that turn the old rows into the new ones.
+     *
+     * @param firstPage the first page of the window
+     * @param pageCount the number of pages in the window
+     * @param newCount  the new total row count
+     * @param fresh     the freshly read rows of the window
+     */
+    private void applyRefresh(int firstPage, int pageCount, int newCount, Page<T> fresh) {
+        long start = System.nanoTime();
+        int base = firstPage * PAGE_SIZE;
+        List<T> oldRows = new ArrayList<>();
+        for (int p = firstPage; p < firstPage + pageCount; p++) {
+            List<T> rows = pages.get(p);
+            if (rows == null) {
+                // Evicted meanwhile; nothing reliable to compare against.
+                replaceWindow(firstPage, fresh);
+                rowCount = newCount;
+                fireTableDataChanged();
+                return;
+            }
+            oldRows.addAll(rows);
+        }
+        List<T> newRows = fresh.getRows();
+        int oldCount = rowCount;
+
+        replaceWindow(firstPage, fresh);
+        rowCount = newCount;
+
+        TableDiff diff = new TableDiff(base);
+        if (idList != null) {
+            // Same IDs in the same places: only values can differ.
+            for (int i = 0; i < Math.min(oldRows.size(), newRows.size()); i++) {
+                diff.row(Objects.equals(oldRows.get(i), newRows.get(i)) ? TableDiff.SAME : TableDiff.UPDATE);
+            }
+        } else {
+            diffByKey(oldRows, newRows, diff);
+        }
+        diff.flush();
+
+        // Rows outside the window are not in memory; repaint them so visible ones are fetched again.
+        if (base > 0) {
+            fireTableRowsUpdated(0, base - 1);
+        }
+        int tail = base + newRows.size();
+        int oldTail = oldCount - base - oldRows.size();
+        int newTail = newCount - tail;
+        if (newTail > oldTail) {
+            fireTableRowsInserted(tail + Math.max(oldTail, 0), newCount - 1);
+        } else if (newTail < oldTail) {
+            fireTableRowsDeleted(tail + Math.max(newTail, 0), tail + oldTail - 1);
+        }
+        if (Math.min(oldTail, newTail) > 0) {
+            fireTableRowsUpdated(tail, tail + Math.min(oldTail, newTail) - 1);
+        }
+        LOGGER.log(Level.FINE, "Refresh applied on the EDT in {0} \u00b5s: {1}",
+                new Object[] { (System.nanoTime() - start) / 1_000, diff });
+    }
+
+    /**
+     * Drops every loaded page and installs a freshly read window in its place.
+     *
+     * @param firstPage the first page of the window
+     * @param fresh     the rows of the window
+     */
+    private void replaceWindow(int firstPage, Page<T> fresh) {
+        invalidate();
+        List<T> rows = fresh.getRows();
+        for (int from = 0, p = firstPage; from < rows.size(); from += PAGE_SIZE, p++) {
+            pages.put(p, new ArrayList<>(rows.subList(from, Math.min(rows.size(), from + PAGE_SIZE))));
+        }
+        int lastPage = firstPage + (rows.size() - 1) / PAGE_SIZE;
+        if (fresh.getLastKey() != null && rows.size() % PAGE_SIZE == 0) {
+            anchors.put(lastPage, fresh.getLastKey());
+        }
+    }
+
+    /**
+     * Matches old and new rows by ID. Both lists are in the same sort order, so
+     * a single pass finds the rows that disappeared, the rows that appeared
+     * and the rows whose values changed; a row that moved is reported as
+     * changed in both places.
+     *
+     * @param oldRows the rows before
+     * @param newRows the rows after
+     * @param diff    receives the operations in table order
+     */
+    private void diffByKey(List<T> oldRows, List<T> newRows, TableDiff diff) {
+        Set<Integer> oldIds = new HashSet<>(oldRows.size() * 2);
+        for (T row : oldRows) {
+            oldIds.add(idOf(row));
+        }
+        Set<Integer> newIds = new HashSet<>(newRows.size() * 2);
+        for (T row : newRows) {
+            newIds.add(idOf(row));
+        }
+        int i = 0;
+        int j = 0;
+        while (i < oldRows.size() || j < newRows.size()) {
+            if (j == newRows.size() || (i < oldRows.size() && !newIds.contains(idOf(oldRows.get(i))))) {
+                diff.row(TableDiff.DELETE);
+                i++;
+            } else if (i == oldRows.size() || !oldIds.contains(idOf(newRows.get(j)))) {
+                diff.row(TableDiff.INSERT);
+                j++;
+            } else {
+                T before = oldRows.get(i++);
+                T after = newRows.get(j++);
+                diff.row(before.equals(after) ? TableDiff.SAME : TableDiff.UPDATE);
+            }
+        }
+    }
+
+    /**
+     * Turns a sequence of per-row operations into as few table events as
+     * possible: consecutive rows with the same operation become one event.
+     */
+    private final class TableDiff {
+        /** The row is unchanged. */
+        static final int SAME = 0;
+        /** The row's values changed. */
+        static final int UPDATE = 1;
+        /** A row was added here. */
+        static final int INSERT = 2;
+        /** The row here was removed. */
+        static final int DELETE = 3;
+
+        /** Current position in the table being transformed. */
+        private int position;
+        /** Operation of the pending run, or {@link #SAME} for none. */
+        private int runType = SAME;
+        /** First row of the pending run. */
+        private int runStart;
+        /** Rows in the pending run. */
+        private int runLength;
+        /** Counters for the log line. */
+        private int inserted, deleted, updated, events;
+
+        private TableDiff(int position) {
+            this.position = position;
+        }
+
+        /**
+         * Records the operation for the next row.
+         *
+         * @param type one of the operation constants
+         */
+        void row(int type) {
+            if (type != runType) {
+                flush();
+                runType = type;
+                runStart = position;
+            }
+            if (type == SAME) {
+                position++;
+                return;
+            }
+            runLength++;
+            if (type != DELETE) {
+                position++; // A deleted row leaves the next one at the same index
+            }
+        }
+
+        /** Fires the pending run, if any. */
+        void flush() {
+            if (runLength > 0) {
+                int last = runStart + runLength - 1;
+                switch (runType) {
+                case UPDATE -> {
+                    fireTableRowsUpdated(runStart, last);
+                    updated += runLength;
+                }
+                case INSERT -> {
+                    fireTableRowsInserted(runStart, last);
+                    inserted += runLength;
+                }
+                case DELETE -> {
+                    fireTableRowsDeleted(runStart, last);
+                    deleted += runLength;
+                }
+                default -> {
+                    // SAME runs fire nothing
+                }
+                }
+                events++;
+            }
+            runType = SAME;
+            runLength = 0;
+        }
+
+        @Override
+        public String toString() {
+            return inserted + " inserted, " + deleted + " deleted, " + updated + " updated in " + events + " events";
+        }
+    }
+
+    /**
+     * Removes a row from the loaded pages (or the ID list) and fires the
+     * deletion. Pages after it are dropped because their rows shift up.
+     *
+     * @param id the ID of the deleted row
+     * @return {@code false} if the row's position is not known
+     */
+    private boolean removeRow(int id) {
+        int index = -1;
+        if (idList != null) {
+            index = idList.indexOf(id);
+            if (index < 0) {
+                return true; // Not shown; nothing to do
+            }
+            idList.remove(index);
+        } else {
+            for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+                List<T> rows = entry.getValue();
+                for (int i = 0; i < rows.size(); i++) {
+                    if (rows.get(i) != null && idOf(rows.get(i)) == id) {
+                        index = entry.getKey() * PAGE_SIZE + i;
+                        break;
+                    }
+                }
+                if (index >= 0) {
+                    break;
+                }
+            }
+            if (index < 0) {
+                return false;
+            }
+        }
+        int page = index / PAGE_SIZE;
+        // The page holding the row and everything after it now start at different rows.
+        pages.keySet().removeIf(p -> p >= page);
+        anchors.keySet().removeIf(p -> p >= page);
+        // Fetches in flight may be for shifted pages; discard them all and let the table ask again.
+        loading.clear();
+        generation++;
+        rowCount--;
+        fireTableRowsDeleted(index, index);
+        return true;
+    }
+
+    /**
+     * Fetches rows again by ID and replaces them where they are loaded.
+     *
+     * @param ids the IDs of rows on loaded pages
+     */
+    private void refreshRows(List<Integer> ids) {
+        long gen = generation;
+        new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() throws Exception {
+                return fetchByIds(ids);
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) {
+                    return;
+                }
+                Map<Integer, T> fresh = new HashMap<>();
+                try {
+                    for (T row : get()) {
+                        fresh.put(idOf(row), row);
+                    }
+                } catch (Exception ex) {
+                    LOGGER.log(Level.WARNING, "Could not refresh table rows", ex);
+                    return;
+                }
+                for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+                    List<T> rows = entry.getValue();
+                    for (int i = 0; i < rows.size(); i++) {
+                        T replacement = rows.get(i) == null ? null : fresh.get(idOf(rows.get(i)));
+                        if (replacement != null) {
+                            rows.set(i, replacement);
+                            int index = entry.getKey() * PAGE_SIZE + i;
+                            fireTableRowsUpdated(index, index);
+                        }
+                    }
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Fetches rows by ID and returns them in the order of the IDs. Rows that no
+     * longer exist are returned as {@code null} so positions stay stable.
+     *
+     * @param ids the IDs
+     * @return the rows, one per ID
+     * @throws Exception if the query fails
+     */
+    private List<T> fetchOrdered(List<Integer> ids) throws Exception {
+        Map<Integer, T> byId = new HashMap<>(ids.size() * 2);
+        for (T row : fetchByIds(ids)) {
+            byId.put(idOf(row), row);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            ordered.add(byId.get(id));
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,280 @@
+package school.management.system.ui;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+import school.management.system.model.student.Payment;
+
+/**
+ * A read-only table model for a student's payment history, used by the Fees
+ * tab and the student profile.
+ * <p>
+ * The rows are stored column by column in primitive arrays rather than as one
+ * {@code Vector<Object>} of boxed values per row: the date as an epoch day, the
+ * amount as a {@code double}, the academic year as an {@code int}, and the term
+ * as a code into a {@link StringDictionary}, since a school only has a handful
+ * of distinct terms. A row therefore costs a few array slots instead of a
+ * vector, its backing array and four boxed or string objects.
+ * </p>
+ * <p>
+ * Clicking a header (see {@link #installSortHeader(JTable)}) sorts on the
+ * client: only an {@code int[]} permutation of the rows is rearranged, by
+ * comparing the primitive columns directly. All methods must be called on the
+ * Event Dispatch Thread.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public class PaymentTableModel extends AbstractTableModel implements SortHeader.Sortable {
+
+    /** The column headers. */
+    private static final String[] COLUMN_NAMES = { "Date", "Amount Paid", "Term", "Academic Year" };
+
+    /** The distinct terms; shared by all instances. */
+    private static final StringDictionary TERMS = new StringDictionary();
+
+    /** The number of rows. */
+    private int size;
+    /** Payment dates, as days since the epoch in the local time zone. */
+    private int[] dates = new int[0];
+    /** Amounts paid. */
+    private double[] amounts = new double[0];
+    /** Terms, as {@link #TERMS} codes. */
+    private int[] terms = new int[0];
+    /** Academic years. */
+    private int[] years = new int[0];
+    /** The row shown at each position; the identity unless sorted. */
+    private int[] order = new int[0];
+
+    /** The sorted column, or -1 for the order the rows were given in. */
+    private int sortColumn = -1;
+    /** Whether the sort is ascending. */
+    private boolean ascending = true;
+
+    /**
+     * Replaces the rows, keeping the current sort.
+     *
+     * @param payments the payments, newest first as returned by the database
+     */
+    public void setPayments(List<Payment> payments) {
+        size = payments.size();
+        dates = new int[size];
+        amounts = new double[size];
+        terms = new int[size];
+        years = new int[size];
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < size; i++) {
+            Payment p = payments.get(i);
+            // java.sql.Date does not support toInstant(), so go through the millis.
+            dates[i] = (int) Instant.ofEpochMilli(p.getPaymentDate().getTime()).atZone(zone).toLocalDate()
+                    .toEpochDay();
+            amounts[i] = p.getAmountPaid();
+            terms[i] = TERMS.encode(p.getTerm());
+            years[i] = p.getAcademicYear();
+        }
+        order = identity(size);
+        if (sortColumn >= 0) {
+            sortRows();
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Removes every row.
+     */
+    public void clear() {
+        setPayments(List.of());
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int row = order[rowIndex];
+        return switch (columnIndex) {
+        case 0 -> LocalDate.ofEpochDay(dates[row]).toString();
+        case 1 -> amounts[row];
+        case 2 -> TERMS.decode(terms[row]);
+        case 3 -> years[row];
+        default -> null;
+        };
+    }
+
+    /**
+     * Makes header clicks sort the table by that column, toggling between
+     * ascending and descending, and shows the sort direction in the header.
+     *
+     * @param table the table showing this model
+     */
+    public void installSortHeader(JTable table) {
+        SortHeader.install(table, this);
+    }
+
+    /**
+     * Sorts by a column, or flips the direction if it is already sorted.
+     *
+     * @param column the model column
+     */
+    @Override
+    public void toggleSort(int column) {
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        sortRows();
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    @Override
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Rearranges {@link #order} by the sort column. The sort is stable, so equal
+     * values keep the database order (newest first).
+     */
+    private void sortRows() {
+        int[] keys = sortKeys();
+        int[] sorted = order.clone();
+        mergeSort(order, sorted, 0, size, keys);
+        order = sorted;
+    }
+
+    /**
+     * Builds an {@code int} key per row that orders like the sort column, so the
+     * sort compares primitives only. Terms are ranked by their text once per
+     * sort, not per comparison; amounts are ranked by sorting a copy.
+     *
+     * @return the key of each row
+     */
+    private int[] sortKeys() {
+        return switch (sortColumn) {
+        case 0 -> dates;
+        case 1 -> amountRanks();
+        case 2 -> termRanks();
+        case 3 -> years;
+        default -> identity(size);
+        };
+    }
+
+    /**
+     * Ranks the amounts: equal amounts get equal ranks.
+     *
+     * @return the rank of each row's amount
+     */
+    private int[] amountRanks() {
+        double[] distinct = amounts.clone();
+        Arrays.sort(distinct);
+        int[] ranks = new int[size];
+        for (int i = 0; i < size; i++) {
+            ranks[i] = Arrays.binarySearch(distinct, amounts[i]);
+        }
+        return ranks;
+    }
+
+    /**
+     * Ranks the terms alphabetically, with missing terms first.
+     *
+     * @return the rank of each row's term
+     */
+    private int[] termRanks() {
+        int count = TERMS.size();
+        String[] values = new String[count];
+        for (int code = 0; code < count; code++) {
+            values[code] = TERMS.decode(code);
+        }
+        String[] sortedValues = values.clone();
+        Arrays.sort(sortedValues, String.CASE_INSENSITIVE_ORDER);
+        int[] rankOfCode = new int[count];
+        for (int code = 0; code < count; code++) {
+            rankOfCode[code] = Arrays.binarySearch(sortedValues, values[code], String.CASE_INSENSITIVE_ORDER);
+        }
+        int[] ranks = new int[size];
+        for (int i = 0; i < size; i++) {
+            ranks[i] = terms[i] == StringDictionary.NULL_CODE ? -1 : rankOfCode[terms[i]];
+        }
+        return ranks;
+    }
+
+    /**
+     * Stable top-down merge sort of a range of row indexes by their keys.
+     *
+     * @param src  the indexes to sort, used as scratch space
+     * @param dest receives the sorted indexes; must start as a copy of
+     *             {@code src}
+     * @param from the first position, inclusive
+     * @param to   the last position, exclusive
+     * @param keys the sort key of each row
+     */
+    private void mergeSort(int[] src, int[] dest, int from, int to, int[] keys) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(dest, src, from, mid, keys);
+        mergeSort(dest, src, mid, to, keys);
+        for (int i = from, left = from, right = mid; i < to; i++) {
+            if (right >= to || (left < mid && compare(keys, src[left], src[right]) <= 0)) {
+                dest[i] = src[left++];
+            } else {
+                dest[i] = src[right++];
+            }
+        }
+    }
+
+    /**
+     * Compares two rows by key in the current direction.
+     *
+     * @param keys the sort keys
+     * @param a    the first row
+     * @param b    the second row
+     * @return negative, zero or positive as {@code a} sorts before, with or
+     *         after {@code b}
+     */
+    private int compare(int[] keys, int a, int b) {
+        int result = Integer.compare(keys[a], keys[b]);
+        return ascending ? result : -result;
+    }
+
+    /**
+     * Returns {@code 0, 1, ..., n - 1}.
+     *
+     * @param n the length
+     * @return the identity permutation
+     */
+    private static int[] identity(int n) {
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = i;
+        }
+        return result;
+    }
+}
@@ -108,22 +108,19 @@ public class ReportsPanel extends JPanel {
      * populates the class combobox.
     */
     private void populateClassComboBox() {
-        try {
-            List<SchoolClass> classes = dataService.fetchAllClasses();
-            classComboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(classes)));
-            classComboBox.setRenderer(new DefaultListCellRenderer() {
-                @Override
-                public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
-                    super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                    if (value instanceof SchoolClass) {
-                        setText(((SchoolClass) value).getName());
-                    }
-                    return this;
+        classComboBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof SchoolClass) {
+                    setText(((SchoolClass) value).getName());
                 }
-            });
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error loading class levels: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+                return this;
+            }
+        });
+        dataService.callAsync(dataService::fetchAllClasses,
+                classes -> classComboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(classes))),
+                ex -> JOptionPane.showMessageDialog(this, "Error loading class levels: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     /** 
@@ -142,10 +139,12 @@ public class ReportsPanel extends JPanel {
         new SwingWorker<String, Void>() {
             @Override
             protected String doInBackground() throws Exception {
-                List<Student> students = dataService.getStudentsByClass(classId);
-                List<TeacherAssignment> assignments = dataService.getAssignmentsForClass(classId);
-
-                return buildHtmlReport(className, students, assignments);
+                // Read both lists from one snapshot so the report is internally consistent.
+                return dataService.readConsistent(() -> {
+                    List<Student> students = dataService.getStudentsByClass(classId);
+                    List<TeacherAssignment> assignments = dataService.getAssignmentsForClass(classId);
+                    return buildHtmlReport(className, students, assignments);
+                });
             }
 
             @Override
@@ -6,8 +6,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Set;
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
@@ -20,17 +21,17 @@ import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
-import javax.swing.RowFilter;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.TitledBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
 
 import lombok.Getter;
 import school.management.system.App;
+import school.management.system.data.ChangeBus;
+import school.management.system.data.ChangeEvent;
 import school.management.system.data.DB;
 import school.management.system.data.DataService;
 import school.management.system.model.student.Student;
@@ -44,6 +45,9 @@ import school.management.system.ui.teacher.AddTch;
  * 
  */
 public class SchoolPanel extends JPanel {
+    /** Quiet time after the last keystroke before the filter is applied, in milliseconds. */
+    private static final int FILTER_DELAY_MS = 250;
+
     /** The parent JFrame. */
     private final JFrame parentFrame;
     /** The main application instance. */
@@ -64,9 +68,12 @@ public class SchoolPanel extends JPanel {
     private JTable stdTable, tchTable;
     /** Scroll panes for student and teacher tables. */
     private JScrollPane stdScroll, tchScroll;
-    /** Models for student and teacher tables. */
+    /** Paged model for the student table. */
+    @Getter
+    private StudentTableModel stdMod;
+    /** Paged model for the teacher table. */
     @Getter
-    private DefaultTableModel stdMod, tchMod;
+    private TeacherTableModel tchMod;
     /** The subjects panel. */
     @Getter
     private SubjectsPanel subjectsPanel;
@@ -78,12 +85,14 @@ public class SchoolPanel extends JPanel {
     private ClassesPanel classesPanel;
     /** The search field for filtering tables. */
     private JTextField searchField;
+    /**
+     * Applies the filter once typing pauses, so a burst of keystrokes costs one
+     * query instead of one per key; a newer filter also cancels the queries of
+     * the previous one (see {@link PagedTableModel}).
+     */
+    private final Timer filterTimer = new Timer(FILTER_DELAY_MS, e -> filterTables());
     /** The dashboard panel. */
     private DashboardPanel dashboardPanel;
-    /** Sorter for student table filtering. */
-    private TableRowSorter<DefaultTableModel> studentSorter;
-    /** Sorter for teacher table filtering. */
-    private TableRowSorter<DefaultTableModel> teacherSorter;
     /** Buttons for various actions. */
     private JButton btnPrev, btnRefresh, btnAddStd, btnAddTch, btnDelStd, btnDelTch, btnSchTch, btnSchStd, btnStdInfo,
             btnTchInfo;
@@ -122,18 +131,8 @@ public class SchoolPanel extends JPanel {
      * Initializes UI components.
      */
     private void initComponents() {
-        stdMod = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        tchMod = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        stdMod = new StudentTableModel(dataService);
+        tchMod = new TeacherTableModel(dataService);
 
         stdTable = new JTable(stdMod);
         stdScroll = new JScrollPane(stdTable);
@@ -151,33 +150,9 @@ public class SchoolPanel extends JPanel {
         btnStdInfo = new JButton("Student's Details");
         btnTchInfo = new JButton("Teacher's Details");
 
-        stdMod.addColumn("NO.");
-        stdMod.addColumn("Student ID");
-        stdMod.addColumn("First Name");
-        stdMod.addColumn("Middle Name");
-        stdMod.addColumn("Surname");
-        stdMod.addColumn("Gender");
-        stdMod.addColumn("Date of Birth");
-        stdMod.addColumn("Class");
-        // Hidden column for profile picture data
-        stdMod.addColumn("Profile Picture");
-
-        tchMod.addColumn("NO.");
-        tchMod.addColumn("Teacher Id");
-        tchMod.addColumn("Name");
-        tchMod.addColumn("Contact");
-        tchMod.addColumn("Gender");
-        tchMod.addColumn("Address");
-        tchMod.addColumn("Email");
-        // Hidden column for profile picture data
-        tchMod.addColumn("Profile Picture");
-
-        // --- Sorters for real-time filtering ---
-        studentSorter = new TableRowSorter<>(stdMod);
-        stdTable.setRowSorter(studentSorter);
-
-        teacherSorter = new TableRowSorter<>(tchMod);
-        tchTable.setRowSorter(teacherSorter);
+        // --- Server-side sorting on header click ---
+        stdMod.installSortHeader(stdTable);
+        tchMod.installSortHeader(tchTable);
 
         // --- Search Field ---
         searchLabel = new JLabel("Filter:");
@@ -297,6 +272,9 @@ public class SchoolPanel extends JPanel {
             searchField.setVisible(isFilterableTab);
             if (!isFilterableTab) {
                 searchField.setText(""); // Clear search text when switching away
+                filterTimer.stop();
+                stdMod.setFilter("");
+                tchMod.setFilter("");
             }
 
             // Refresh dashboard or other panels when their tab is selected
@@ -308,30 +286,19 @@ public class SchoolPanel extends JPanel {
         stdTable.getSelectionModel().addListSelectionListener(e -> {
             int selectedRow = stdTable.getSelectedRow();
             if (!e.getValueIsAdjusting() && selectedRow != -1) {
-                student.setId(Integer.parseInt((String.valueOf(stdTable.getValueAt(selectedRow, 1)))));
-                student.setFirstName(String.valueOf(stdTable.getValueAt(selectedRow, 2)));
-                student.setMiddleName(String.valueOf(stdTable.getValueAt(selectedRow, 3)));
-                student.setLastName(String.valueOf(stdTable.getValueAt(selectedRow, 4)));
-                student.setGender(String.valueOf(stdTable.getValueAt(selectedRow, 5)));
-                student.setDateOfBirth(String.valueOf(stdTable.getValueAt(selectedRow, 6)));
-
-                // The 'Class' column now shows the name, but we need the ID.
-                // We'll retrieve the ID from the student ID in the table.
-                int studentId = (Integer) stdTable.getValueAt(selectedRow, 1);
-                try {
-                    // A more efficient way would be to have the class ID in a hidden column,
-                    // but for now, we can re-fetch the student's data to get the raw class ID.
-                    // This is a simple approach to avoid major refactoring of the table model.
-                    List<Student> result = dataService.searchAndReturn(String.valueOf(studentId), 0);
-                    if (!result.isEmpty()) {
-                        student.setLevel(result.get(0).getLevel());
-                    }
-                } catch (Exception ex) {
-                    System.err.println("Could not re-fetch student to get class ID: " + ex.getMessage());
+                Student row = stdMod.getRowAt(selectedRow);
+                if (row == null) {
+                    return; // Page still loading
                 }
-
-                // Get the profile picture data from the hidden column
-                student.setProfilePic((byte[]) stdTable.getValueAt(selectedRow, 8));
+                student.setId(row.getId());
+                student.setFirstName(row.getFirstName());
+                student.setMiddleName(row.getMiddleName());
+                student.setLastName(row.getLastName());
+                student.setGender(row.getGender());
+                student.setDateOfBirth(row.getDateOfBirth());
+                student.setLevel(row.getLevel());
+                // The picture is not part of the table; views load it on demand.
+                student.setProfilePic(null);
             }
         });
         stdTable.addMouseListener(new MouseAdapter() {
@@ -346,14 +313,18 @@ public class SchoolPanel extends JPanel {
         tchTable.getSelectionModel().addListSelectionListener(e -> {
             int selectedRow = tchTable.getSelectedRow();
             if (!e.getValueIsAdjusting() && selectedRow != -1) {
-                teacher.setId(Integer.parseInt(String.valueOf(tchTable.getValueAt(selectedRow, 1))));
-                teacher.setName(String.valueOf(tchTable.getValueAt(selectedRow, 2)));
-                teacher.setContact((String) tchTable.getValueAt(selectedRow, 3));
-                teacher.setGender(String.valueOf(tchTable.getValueAt(selectedRow, 4)));
-                teacher.setAddress(String.valueOf(tchTable.getValueAt(selectedRow, 5)));
-                teacher.setEmail(String.valueOf(tchTable.getValueAt(selectedRow, 6)));
-                // Get the profile picture data from the hidden column
-                teacher.setProfilePic((byte[]) tchTable.getValueAt(selectedRow, 7));
+                Teacher row = tchMod.getRowAt(selectedRow);
+                if (row == null) {
+                    return; // Page still loading
+                }
+                teacher.setId(row.getId());
+                teacher.setName(row.getName());
+                teacher.setContact(row.getContact());
+                teacher.setGender(row.getGender());
+                teacher.setAddress(row.getAddress());
+                teacher.setEmail(row.getEmail());
+                // The picture is not part of the table; views load it on demand.
+                teacher.setProfilePic(null);
             }
         });
         tchTable.addMouseListener(new MouseAdapter() {
@@ -388,38 +359,84 @@ public class SchoolPanel extends JPanel {
         btnTchInfo.addActionListener(e -> app.showViewPanelForTeacher(teacher));
         btnStdInfo.addActionListener(e -> app.showViewPanelForStudent(student));
 
+        filterTimer.setRepeats(false);
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                filterTables();
+                filterTimer.restart();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                filterTables();
+                filterTimer.restart();
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                filterTables();
+                filterTimer.restart();
             }
         });
+
+        ChangeBus.subscribe(this::applyChanges);
+    }
+
+    /**
+     * Applies committed student, teacher and class changes to the tables row by
+     * row instead of reloading them.
+     * 
+     * @param events the committed changes
+     */
+    private void applyChanges(List<ChangeEvent> events) {
+        applyChanges(events, ChangeEvent.Entity.STUDENT, stdMod);
+        applyChanges(events, ChangeEvent.Entity.TEACHER, tchMod);
+        if (ChangeBus.affects(events, ChangeEvent.Entity.CLASS)) {
+            stdMod.reloadClassNames(); // The class column shows class names read with the rows
+        }
+    }
+
+    /**
+     * Sorts the changes to one kind of record into updates, deletes and inserts
+     * and hands them to its table model.
+     * 
+     * @param events the committed changes
+     * @param entity the kind of record the model shows
+     * @param model  the table model
+     */
+    private static void applyChanges(List<ChangeEvent> events, ChangeEvent.Entity entity, PagedTableModel<?> model) {
+        Set<Integer> updated = new HashSet<>();
+        Set<Integer> deleted = new HashSet<>();
+        boolean inserted = false;
+        for (ChangeEvent event : events) {
+            if (event.getEntity() != entity) {
+                continue;
+            }
+            if (!event.isSingleRow() || event.getOperation() == ChangeEvent.Operation.INSERT) {
+                inserted = true; // Position unknown; the model reloads
+            } else if (event.getOperation() == ChangeEvent.Operation.DELETE) {
+                deleted.add(event.getId());
+            } else {
+                updated.add(event.getId());
+            }
+        }
+        if (inserted || !updated.isEmpty() || !deleted.isEmpty()) {
+            model.applyChanges(updated, deleted, inserted);
+        }
     }
 
     /** 
-     * Filters the student and teacher tables based on the search field input.
+     * Filters the student or teacher table based on the search field input. The
+     * filter runs in the database, so it matches every row, not only loaded ones.
      */
     private void filterTables() {
         String text = searchField.getText();
-        RowFilter<DefaultTableModel, Object> rf = RowFilter.regexFilter("(?i)" + text);
         // Tab indices: 0=Dashboard, 1=Students, 2=Teachers
         int selectedIndex = tabPane.getSelectedIndex();
 
         if (selectedIndex == 1) { // Students tab
-            studentSorter.setRowFilter(rf);
+            stdMod.setFilter(text);
         } else if (selectedIndex == 2) { // Teachers tab
-            teacherSorter.setRowFilter(rf);
-        } // For other tabs, the sorter is not changed, and the field is hidden.
+            tchMod.setFilter(text);
+        } // For other tabs, the field is hidden.
     }
 
     /** 
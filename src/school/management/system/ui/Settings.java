@@ -18,6 +18,8 @@ import javax.swing.border.TitledBorder;
 
 import school.management.system.App;
 import school.management.system.data.DataService;
+import school.management.system.data.DataSource;
+import school.management.system.data.SqliteProfile;
 
 /**
  * - The Settings class is responsible for displaying the settings dialog.
@@ -32,6 +34,8 @@ public class Settings {
     private final JCheckBox showGridCheckBox;
     /** Chart settings components. */
     private final JButton gridColorButton, barColorButton, maleColorButton, femaleColorButton, lineColorButton;
+    /** Database settings components. */
+    private final JComboBox<SqliteProfile> sqliteProfileComboBox;
     /** Selected colors for various chart elements. */
     private Color selectedGridColor, barColor, maleColor, femaleColor, lineColor;
     /** The UIManager instance for managing UI themes. */
@@ -51,7 +55,7 @@ public class Settings {
         this.dataService = dataService;
         setLog = new JDialog(parent);
         setLog.setTitle("Settings");
-        setLog.setSize(500, 600);
+        setLog.setSize(500, 690);
         setLog.setLayout(null);
         setLog.setLocationRelativeTo(parent);
 
@@ -146,21 +150,41 @@ public class Settings {
             femaleColorButton.setBackground(femaleColor);
         });
 
+        // --- Database Settings Panel ---
+        JPanel databasePanel = new JPanel();
+        databasePanel.setBorder(new TitledBorder("Database"));
+        databasePanel.setBounds(20, 500, 440, 80);
+        databasePanel.setLayout(null);
+
+        JLabel sqliteProfileLabel = new JLabel("SQLite mode:");
+        sqliteProfileLabel.setFont(this.uiManager.fontMain(15, Font.PLAIN));
+        sqliteProfileLabel.setBounds(20, 30, 100, 30);
+        databasePanel.add(sqliteProfileLabel);
+
+        sqliteProfileComboBox = new JComboBox<>(SqliteProfile.values());
+        sqliteProfileComboBox.setBounds(130, 30, 280, 30);
+        sqliteProfileComboBox.setSelectedItem(SqliteProfile.fromName(App.prefs.get(SqliteProfile.PREF_KEY, null)));
+        sqliteProfileComboBox.setToolTipText(
+                "DURABLE syncs every commit; FAST syncs at checkpoints and may lose the last commits on power loss");
+        sqliteProfileComboBox.setEnabled(!DataSource.isUsingMySql());
+        databasePanel.add(sqliteProfileComboBox);
+
         // --- Action Buttons ---
         JButton btnApply = new JButton("Apply");
-        btnApply.setBounds(250, 510, 100, 30);
+        btnApply.setBounds(250, 600, 100, 30);
         btnApply.addActionListener(e -> {
             applySettings(parent);
             this.dataService.refreshTableData(); // Repaint tables with new settings
         });
 
         JButton btnCancel = new JButton("Cancel");
-        btnCancel.setBounds(370, 510, 100, 30);
+        btnCancel.setBounds(370, 600, 100, 30);
         btnCancel.addActionListener(e -> setLog.dispose());
 
         setLog.add(appearancePanel);
         setLog.add(tablePanel);
         setLog.add(chartPanel);
+        setLog.add(databasePanel);
         setLog.add(btnApply);
         setLog.add(btnCancel);
         setLog.setVisible(true);
@@ -249,5 +273,13 @@ public class Settings {
         App.prefs.putInt("chartMaleColor", maleColor.getRGB());
         App.prefs.putInt("chartFemaleColor", femaleColor.getRGB());
         App.prefs.putInt("chartLineColor", lineColor.getRGB());
+
+        // Apply Database Settings (the pool is configured at startup)
+        SqliteProfile profile = (SqliteProfile) sqliteProfileComboBox.getSelectedItem();
+        if (profile != null && !profile.name().equals(App.prefs.get(SqliteProfile.PREF_KEY, SqliteProfile.DURABLE.name()))) {
+            App.prefs.put(SqliteProfile.PREF_KEY, profile.name());
+            JOptionPane.showMessageDialog(parent, "The SQLite mode will change to " + profile + " after a restart.",
+                    "Settings", JOptionPane.INFORMATION_MESSAGE);
+        }
     }
 }
\ No newline at end of file
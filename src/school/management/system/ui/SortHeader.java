@@ -0,0 +1,88 @@
+package school.management.system.ui;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import javax.swing.JTable;
+import javax.swing.table.TableColumn;
+
+/**
+ * Header sorting for table models that order their own rows, such as
+ * {@link PagedTableModel} (in the database) and {@link PaymentTableModel} (on
+ * the client). A click on a header asks the model to sort by that column, and
+ * the header of the sorted column then shows an arrow for its direction.
+ *
+ * @author Ibn Issah
+ */
+final class SortHeader {
+
+    /** A table model that sorts its own rows. */
+    interface Sortable {
+        /**
+         * Sorts by a column, or flips the direction if it is already sorted.
+         * The model may ignore the request, e.g. for a column it cannot sort.
+         *
+         * @param column the model column
+         */
+        void toggleSort(int column);
+
+        /**
+         * Returns the column the rows are sorted by.
+         *
+         * @return the model column, or -1 if unsorted
+         */
+        int getSortColumn();
+
+        /**
+         * Returns the sort direction.
+         *
+         * @return {@code true} if ascending
+         */
+        boolean isAscending();
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SortHeader() {
+    }
+
+    /**
+     * Makes header clicks on a table sort its model, and shows the sort
+     * direction in the header.
+     *
+     * @param table a table without a row sorter
+     * @param model the table's model
+     */
+    static void install(JTable table, Sortable model) {
+        table.setRowSorter(null);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = table.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) {
+                    return;
+                }
+                model.toggleSort(table.convertColumnIndexToModel(viewColumn));
+                showArrows(table, model);
+            }
+        });
+    }
+
+    /**
+     * Marks the sorted column's header with an arrow for its direction.
+     *
+     * @param table the table
+     * @param model the table's model
+     */
+    private static void showArrows(JTable table, Sortable model) {
+        int sortColumn = model.getSortColumn();
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            TableColumn col = table.getColumnModel().getColumn(i);
+            int modelColumn = col.getModelIndex();
+            String arrow = modelColumn == sortColumn ? (model.isAscending() ? " ▲" : " ▼") : "";
+            col.setHeaderValue(table.getModel().getColumnName(modelColumn) + arrow);
+        }
+        table.getTableHeader().repaint();
+    }
+}
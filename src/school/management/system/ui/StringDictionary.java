@@ -0,0 +1,79 @@
+package school.management.system.ui;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for low-cardinality text columns such as gender, term or
+ * class name. Each distinct value is stored once and given a small integer
+ * code, so a column of repeated strings can be held as an {@code int[]} of
+ * codes, and rows that keep the strings themselves can share one instance per
+ * value instead of one per row.
+ * <p>
+ * Codes are assigned in first-seen order and never change. The dictionary is
+ * thread-safe, so pages fetched in the background can be encoded before they
+ * reach the Event Dispatch Thread.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+final class StringDictionary {
+
+    /** The code of {@code null}. */
+    static final int NULL_CODE = -1;
+
+    /** Code of each value. */
+    private final Map<String, Integer> codes = new HashMap<>();
+    /** Value of each code. */
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Returns the code of a value, adding it if it is new.
+     *
+     * @param value the value, possibly {@code null}
+     * @return its code, or {@link #NULL_CODE} for {@code null}
+     */
+    synchronized int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the value of a code.
+     *
+     * @param code a code returned by {@link #encode(String)}
+     * @return the value, or {@code null} for {@link #NULL_CODE}
+     */
+    synchronized String decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    /**
+     * Returns the shared instance equal to a value, adding it if it is new.
+     *
+     * @param value the value, possibly {@code null}
+     * @return the shared instance, or {@code null}
+     */
+    String intern(String value) {
+        return decode(encode(value));
+    }
+
+    /**
+     * Returns the number of distinct values.
+     *
+     * @return the dictionary size
+     */
+    synchronized int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,137 @@
+package school.management.system.ui;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import school.management.system.data.DataService;
+import school.management.system.data.Page;
+import school.management.system.model.student.Student;
+
+/**
+ * Paged table model for the Students tab.
+ * <p>
+ * Rows are compacted as they arrive: gender only has a few values, so it is
+ * replaced by one shared instance per distinct value from a
+ * {@link StringDictionary}, and the class is kept as its integer level and
+ * only turned into a name when a cell is painted. The class names are read
+ * along with each page, off the Event Dispatch Thread, so painting never
+ * queries the database. Names are left alone: they
+ * are too varied to share, and a dictionary of them would keep every name
+ * ever paged in.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public class StudentTableModel extends PagedTableModel<Student> {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = Logger.getLogger(StudentTableModel.class.getName());
+
+    /** The model column showing the class name. */
+    private static final int CLASS_COLUMN = 7;
+
+    /** The DataService used to query students. */
+    private final DataService dataService;
+    /** Distinct genders. */
+    private final StringDictionary genders = new StringDictionary();
+    /** Class names keyed by class ID, as of the last fetch. */
+    private volatile Map<Integer, String> classNames = Map.of();
+
+    /**
+     * Creates the model.
+     *
+     * @param dataService the DataService used to query students
+     */
+    public StudentTableModel(DataService dataService) {
+        super("NO.", "Student ID", "First Name", "Middle Name", "Surname", "Gender", "Date of Birth", "Class");
+        this.dataService = dataService;
+    }
+
+    @Override
+    protected int countRows(String filter) throws Exception {
+        return dataService.countStudents(filter);
+    }
+
+    @Override
+    protected Page<Student> fetchPage(String sortColumn, boolean ascending, Object[] after, int offset, int limit,
+            String filter) throws Exception {
+        Page<Student> page = dataService.fetchStudentPage(sortColumn, ascending, after, offset, limit, filter);
+        classNames = dataService.getClassNames();
+        page.getRows().forEach(this::compact);
+        return page;
+    }
+
+    @Override
+    protected Stream<Student> streamRows(String sortColumn, boolean ascending, String filter) throws Exception {
+        return dataService.streamStudents(sortColumn, ascending, filter);
+    }
+
+    @Override
+    protected List<Student> fetchByIds(List<Integer> ids) throws Exception {
+        List<Student> rows = dataService.fetchStudentsByIds(ids);
+        classNames = dataService.getClassNames();
+        rows.forEach(this::compact);
+        return rows;
+    }
+
+    /**
+     * Replaces the low-cardinality text fields of a row with shared instances.
+     *
+     * @param s the row, freshly read
+     */
+    private void compact(Student s) {
+        s.setGender(genders.intern(s.getGender()));
+    }
+
+    /**
+     * Reads the class names again in the background and repaints the rows, e.g.
+     * after a class was renamed. When the rows are sorted by class, a rename
+     * can move them, so they are refreshed instead.
+     */
+    public void reloadClassNames() {
+        dataService.callAsync(dataService::getClassNames, names -> {
+            classNames = names;
+            if (getSortColumn() == CLASS_COLUMN) {
+                refresh();
+            } else {
+                repaintRows();
+            }
+        }, ex -> LOGGER.log(Level.WARNING, "Could not reload class names", ex));
+    }
+
+    @Override
+    protected int idOf(Student row) {
+        return row.getId();
+    }
+
+    @Override
+    protected Object valueAt(Student s, int column) {
+        return switch (column) {
+        case 1 -> s.getId();
+        case 2 -> s.getFirstName();
+        case 3 -> s.getMiddleName();
+        case 4 -> s.getLastName();
+        case 5 -> s.getGender();
+        case 6 -> s.getDateOfBirth();
+        case CLASS_COLUMN -> classNames.getOrDefault(s.getLevel(), "N/A");
+        default -> null;
+        };
+    }
+
+    @Override
+    protected String sortColumnName(int column) {
+        return switch (column) {
+        case 1 -> "std_id";
+        case 2 -> "std_fname";
+        case 3 -> "std_mname";
+        case 4 -> "std_lname";
+        case 5 -> "std_gender";
+        case 6 -> "std_dob";
+        case CLASS_COLUMN -> "class_name";
+        default -> null;
+        };
+    }
+}
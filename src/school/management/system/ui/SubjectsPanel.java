@@ -13,6 +13,8 @@ import javax.swing.ListSelectionModel;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableModel;
 
+import school.management.system.data.ChangeBus;
+import school.management.system.data.ChangeEvent;
 import school.management.system.data.DataService;
 import school.management.system.model.subject.Subject;
 
@@ -79,6 +81,59 @@ public class SubjectsPanel extends JPanel {
         deleteButton.addActionListener(this::deleteSubject);
 
         refreshSubjects();
+        ChangeBus.subscribe(this::applyChanges);
+    }
+
+    /**
+     * Applies committed subject changes to the table row by row. Names come
+     * from the reference cache, so this does not query the database.
+     *
+     * @param events the committed changes
+     */
+    private void applyChanges(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            if (event.getEntity() != ChangeEvent.Entity.SUBJECT) {
+                continue;
+            }
+            if (!event.isSingleRow()) {
+                refreshSubjects();
+                return;
+            }
+            int row = findRow(event.getId());
+            String name = null;
+            if (event.getOperation() != ChangeEvent.Operation.DELETE) {
+                try {
+                    name = dataService.getSubjectNameById(event.getId());
+                } catch (Exception ex) {
+                    refreshSubjects();
+                    return;
+                }
+            }
+            if (name == null) {
+                if (row >= 0) {
+                    subjectsModel.removeRow(row);
+                }
+            } else if (row >= 0) {
+                subjectsModel.setValueAt(name, row, 1);
+            } else {
+                subjectsModel.addRow(new Object[] { event.getId(), name });
+            }
+        }
+    }
+
+    /**
+     * Finds the table row of a subject.
+     *
+     * @param subjectId the subject ID
+     * @return the model row, or -1 if it is not shown
+     */
+    private int findRow(int subjectId) {
+        for (int i = 0; i < subjectsModel.getRowCount(); i++) {
+            if ((Integer) subjectsModel.getValueAt(i, 0) == subjectId) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -86,16 +141,13 @@ public class SubjectsPanel extends JPanel {
      * source.
      */
     public void refreshSubjects() {
-        subjectsModel.setRowCount(0);
-        try {
-            List<Subject> subjects = dataService.fetchAllSubjects();
+        dataService.callAsync(dataService::fetchAllSubjects, subjects -> {
+            subjectsModel.setRowCount(0);
             for (Subject subject : subjects) {
                 subjectsModel.addRow(new Object[] { subject.getId(), subject.getName() });
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error loading subjects: " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        }, ex -> JOptionPane.showMessageDialog(this, "Error loading subjects: " + ex.getMessage(), "Error",
+                JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -106,13 +158,8 @@ public class SubjectsPanel extends JPanel {
         String subjectName = JOptionPane.showInputDialog(this, "Enter new subject name:", "Add Subject",
                 JOptionPane.PLAIN_MESSAGE);
         if (subjectName != null && !subjectName.trim().isEmpty()) {
-            try {
-                dataService.addSubject(subjectName.trim());
-                refreshSubjects();
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error adding subject: " + ex.getMessage(), "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            dataService.runAsync(() -> dataService.addSubject(subjectName.trim()), ex -> JOptionPane.showMessageDialog(this,
+                    "Error adding subject: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
         }
     }
 
@@ -135,13 +182,8 @@ public class SubjectsPanel extends JPanel {
                 JOptionPane.PLAIN_MESSAGE, null, null, currentName);
 
         if (newName != null && !newName.trim().isEmpty() && !newName.equals(currentName)) {
-            try {
-                dataService.updateSubject(new Subject(subjectId, newName.trim()));
-                refreshSubjects();
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error updating subject: " + ex.getMessage(), "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            dataService.runAsync(() -> dataService.updateSubject(new Subject(subjectId, newName.trim())), ex -> JOptionPane.showMessageDialog(this,
+                    "Error updating subject: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
         }
     }
 
@@ -160,17 +202,13 @@ public class SubjectsPanel extends JPanel {
         int subjectId = (Integer) subjectsModel.getValueAt(selectedRow, 0);
         String subjectName = (String) subjectsModel.getValueAt(selectedRow, 1);
 
-        int choice = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete '" + subjectName + "'?",
-                "Confirm Deletion", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-
-        if (choice == JOptionPane.YES_OPTION) {
+        dataService.deleteItem("subject", subjectName, () -> { // Confirms, and shows a refusal as a warning
             try {
                 dataService.deleteSubject(subjectId);
-                refreshSubjects();
             } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error deleting subject: " + ex.getMessage(), "Error",
-                        JOptionPane.ERROR_MESSAGE);
+                throw new RuntimeException(ex); // Wrap in RuntimeException to be caught by the SwingWorker in
+                                                // deleteItem
             }
-        }
+        });
     }
 }
\ No newline at end of file
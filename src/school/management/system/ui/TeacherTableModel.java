@@ -0,0 +1,102 @@
+package school.management.system.ui;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import school.management.system.data.DataService;
+import school.management.system.data.Page;
+import school.management.system.model.teacher.Teacher;
+
+/**
+ * Paged table model for the Teachers tab.
+ * <p>
+ * Rows are compacted as they arrive: gender only has a few values, so it is
+ * replaced by one shared instance per distinct value from a
+ * {@link StringDictionary}. Addresses are left alone, since a dictionary of
+ * them would keep every address ever paged in.
+ * </p>
+ *
+ * @author Ibn Issah
+ */
+public class TeacherTableModel extends PagedTableModel<Teacher> {
+
+    /** The DataService used to query teachers. */
+    private final DataService dataService;
+    /** Distinct genders. */
+    private final StringDictionary genders = new StringDictionary();
+
+    /**
+     * Creates the model.
+     *
+     * @param dataService the DataService used to query teachers
+     */
+    public TeacherTableModel(DataService dataService) {
+        super("NO.", "Teacher Id", "Name", "Contact", "Gender", "Address", "Email");
+        this.dataService = dataService;
+    }
+
+    @Override
+    protected int countRows(String filter) throws Exception {
+        return dataService.countTeachers(filter);
+    }
+
+    @Override
+    protected Page<Teacher> fetchPage(String sortColumn, boolean ascending, Object[] after, int offset, int limit,
+            String filter) throws Exception {
+        Page<Teacher> page = dataService.fetchTeacherPage(sortColumn, ascending, after, offset, limit, filter);
+        page.getRows().forEach(this::compact);
+        return page;
+    }
+
+    @Override
+    protected Stream<Teacher> streamRows(String sortColumn, boolean ascending, String filter) throws Exception {
+        return dataService.streamTeachers(sortColumn, ascending, filter);
+    }
+
+    @Override
+    protected List<Teacher> fetchByIds(List<Integer> ids) throws Exception {
+        List<Teacher> rows = dataService.fetchTeachersByIds(ids);
+        rows.forEach(this::compact);
+        return rows;
+    }
+
+    /**
+     * Replaces the low-cardinality text fields of a row with shared instances.
+     *
+     * @param t the row, freshly read
+     */
+    private void compact(Teacher t) {
+        t.setGender(genders.intern(t.getGender()));
+    }
+
+    @Override
+    protected int idOf(Teacher row) {
+        return row.getId();
+    }
+
+    @Override
+    protected Object valueAt(Teacher t, int column) {
+        return switch (column) {
+        case 1 -> t.getId();
+        case 2 -> t.getName();
+        case 3 -> t.getContact();
+        case 4 -> t.getGender();
+        case 5 -> t.getAddress();
+        case 6 -> t.getEmail();
+        default -> null;
+        };
+    }
+
+    @Override
+    protected String sortColumnName(int column) {
+        return switch (column) {
+        case 1 -> "tch_id";
+        case 2 -> "tch_name";
+        case 3 -> "tch_contact";
+        case 4 -> "tch_gender";
+        case 5 -> "tch_address";
+        case 6 -> "tch_email";
+        default -> null;
+        };
+    }
+}
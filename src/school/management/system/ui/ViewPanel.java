@@ -32,7 +32,6 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 
@@ -81,7 +80,7 @@ public class ViewPanel extends JPanel {
     /** Table for displaying payment history. */
     private final JTable paymentHistoryTable;
     /** Model for the payment history table. */
-    private final DefaultTableModel paymentHistoryModel;
+    private final PaymentTableModel paymentHistoryModel;
     /** Scroll pane for the payment history table. */
     private final JScrollPane paymentHistoryScrollPane;
     /** Button to go back to the list view. */
@@ -99,6 +98,8 @@ public class ViewPanel extends JPanel {
     private int detailGridY; // To keep track of the current row for details
     /** The current entity being viewed (Student or Teacher). */
     private Object currentEntity; // Can be Student or Teacher
+    /** The class name of the student shown, once loaded; {@code null} otherwise. */
+    private String currentClassName;
 
     /** 
      * Constructor to initialize the ViewPanel.
@@ -166,14 +167,9 @@ public class ViewPanel extends JPanel {
         add(assignmentsScrollPane);
 
         // --- Payment History Table (for students) ---
-        String[] paymentColumnNames = { "Date", "Amount Paid", "Term", "Academic Year" };
-        paymentHistoryModel = new DefaultTableModel(paymentColumnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        paymentHistoryModel = new PaymentTableModel();
         paymentHistoryTable = new JTable(paymentHistoryModel);
+        paymentHistoryModel.installSortHeader(paymentHistoryTable);
         paymentHistoryScrollPane = new JScrollPane(paymentHistoryTable);
         paymentHistoryScrollPane.setBorder(new TitledBorder("Payment History"));
         paymentHistoryScrollPane.setBounds(50, 380, 850, 150); // Same position as assignments
@@ -185,8 +181,9 @@ public class ViewPanel extends JPanel {
      * Adds a detail row to the profile view.
      * @param label the label for the detail
      * @param value the value for the detail
+     * @return the label showing the value
      */
-    private void addDetail(String label, String value) {
+    private JLabel addDetail(String label, String value) {
         // Calculate Y position based on the current detail row
         int yPos = 100 + (detailGridY - 1) * 35;
 
@@ -203,6 +200,7 @@ public class ViewPanel extends JPanel {
         detailComponents.add(valueComponent);
 
         detailGridY++; // Increment the row for the next detail
+        return valueComponent;
     }
 
     /** 
@@ -215,6 +213,9 @@ public class ViewPanel extends JPanel {
 
         nameLabel.setText(student.getFirstName() + " " + student.getLastName());
         setProfilePic(student.getProfilePic(), null /* "libs/img/me.jpg" */);
+        if (student.getProfilePic() == null) {
+            loadProfilePicAsync(student, null);
+        }
 
         addDetail("Student ID", String.valueOf(student.getId()));
         addDetail("First Name", student.getFirstName());
@@ -222,7 +223,15 @@ public class ViewPanel extends JPanel {
         addDetail("Last Name", student.getLastName());
         addDetail("Gender", student.getGender());
         addDetail("Date of Birth", student.getDateOfBirth());
-        addDetail("Class", dataService.getClassName(student.getLevel()));
+        // The class name may need a query, so it is filled in once loaded
+        currentClassName = null;
+        JLabel classLabel = addDetail("Class", "");
+        dataService.callAsync(() -> dataService.getClassName(student.getLevel()), name -> {
+            if (currentEntity == student) {
+                currentClassName = name;
+                classLabel.setText(name);
+            }
+        }, ex -> classLabel.setText("Error"));
 
         // Hide teacher-specific panel, show student-specific one
         assignmentsScrollPane.setVisible(false);
@@ -239,18 +248,14 @@ public class ViewPanel extends JPanel {
      * @param studentId the ID of the student whose payment history is to be loaded
      */
     private void loadPaymentHistory(int studentId) {
-        paymentHistoryModel.setRowCount(0);
-        try {
-            List<Payment> payments = dataService.getStudentPayments(studentId);
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-            for (Payment p : payments) {
-                paymentHistoryModel.addRow(new Object[] { sdf.format(p.getPaymentDate()), p.getAmountPaid(),
-                        p.getTerm(), p.getAcademicYear() });
+        paymentHistoryModel.clear();
+        Object entity = currentEntity;
+        dataService.callAsync(() -> dataService.getStudentPayments(studentId), payments -> {
+            if (currentEntity == entity) { // Ignore a profile that is no longer shown
+                paymentHistoryModel.setPayments(payments);
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error loading payment history: " + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, ex -> JOptionPane.showMessageDialog(this, "Error loading payment history: " + ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE));
         revalidate();
         repaint();
     }
@@ -268,6 +273,9 @@ public class ViewPanel extends JPanel {
 
         nameLabel.setText(teacher.getName());
         setProfilePic(teacher.getProfilePic(), "libs/img/teacher_placeholder.png");
+        if (teacher.getProfilePic() == null) {
+            loadProfilePicAsync(teacher, "libs/img/teacher_placeholder.png");
+        }
 
         addDetail("Teacher ID", String.valueOf(teacher.getId()));
         addDetail("Gender", teacher.getGender());
@@ -275,20 +283,28 @@ public class ViewPanel extends JPanel {
         addDetail("Email", teacher.getEmail());
         addDetail("Address", teacher.getAddress());
 
-        // Load assignments
-        try {
-            List<TeacherAssignment> assignments = db.getAssignmentsForTeacher(teacher.getId());
-            if (assignments.isEmpty()) {
+        // Load assignments; the lines are built off the EDT since class names may need a query
+        dataService.callAsync(() -> {
+            List<String> lines = new ArrayList<>();
+            for (TeacherAssignment assignment : db.getAssignmentsForTeacher(teacher.getId())) {
+                lines.add("Teaches " + assignment.getSubjectName() + " in Class "
+                        + dataService.getClassName(assignment.getClassLevel()));
+            }
+            return lines;
+        }, lines -> {
+            if (currentEntity != teacher) {
+                return; // Another profile is shown by now
+            }
+            if (lines.isEmpty()) {
                 assignmentsModel.addElement("No subjects assigned.");
             } else {
-                for (TeacherAssignment assignment : assignments) {
-                    assignmentsModel.addElement(
-                            "Teaches " + assignment.getSubjectName() + " in Class " + dataService.getClassName(assignment.getClassLevel()));
-                }
+                lines.forEach(assignmentsModel::addElement);
             }
-        } catch (Exception ex) {
-            assignmentsModel.addElement("Error loading assignments.");
-        }
+        }, ex -> {
+            if (currentEntity == teacher) {
+                assignmentsModel.addElement("Error loading assignments.");
+            }
+        });
 
         assignmentsScrollPane.setVisible(true);
         revalidate();
@@ -302,7 +318,7 @@ public class ViewPanel extends JPanel {
         for (JLabel component : detailComponents) {
             remove(component);
         }
-        paymentHistoryModel.setRowCount(0);
+        paymentHistoryModel.clear();
         detailComponents.clear();
         detailGridY = 1; // Reset the detail row counter
     }
@@ -335,29 +351,35 @@ public class ViewPanel extends JPanel {
             return; // User cancelled or entered nothing
         }
 
+        double amount;
         try {
-            double amount = Double.parseDouble(amountStr);
+            amount = Double.parseDouble(amountStr);
             if (amount <= 0) {
                 throw new NumberFormatException("Amount must be positive.");
             }
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Please enter a valid positive number for the amount.", "Invalid Input",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-            Payment newPayment = new Payment();
-            newPayment.setStudentId(student.getId());
-            newPayment.setAmountPaid(amount);
-            newPayment.setPaymentDate(new Date());
-            newPayment.setTerm("Term 1"); // Example value, could be enhanced with a dialog
-            newPayment.setAcademicYear(Calendar.getInstance().get(Calendar.YEAR)); // Example value
+        Payment newPayment = new Payment();
+        newPayment.setStudentId(student.getId());
+        newPayment.setAmountPaid(amount);
+        newPayment.setPaymentDate(new Date());
+        newPayment.setTerm("Term 1"); // Example value, could be enhanced with a dialog
+        newPayment.setAcademicYear(Calendar.getInstance().get(Calendar.YEAR)); // Example value
 
+        dataService.callAsync(() -> {
             dataService.addStudentPayment(newPayment);
+            return null;
+        }, ignored -> {
             JOptionPane.showMessageDialog(this, "Payment recorded successfully!", "Success",
                     JOptionPane.INFORMATION_MESSAGE);
-            loadPaymentHistory(student.getId()); // Refresh the table
-        } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this, "Please enter a valid positive number for the amount.", "Invalid Input",
-                    JOptionPane.ERROR_MESSAGE);
-        } catch (Exception ex) {
-            uiManager.showErrorDialog("Payment Error", "Could not record the payment.", ex);
-        }
+            if (currentEntity == student) {
+                loadPaymentHistory(student.getId()); // Refresh the table
+            }
+        }, ex -> uiManager.showErrorDialog("Payment Error", "Could not record the payment.", ex));
     }
 
     /** 
@@ -372,6 +394,43 @@ public class ViewPanel extends JPanel {
         profilePicLabel.setIcon(IconUtils.getProfilePicture(imageData, 150, 150, isStudent));
     }
 
+    /** 
+     * Loads the profile picture of a student or teacher in the background, since
+     * list queries no longer carry the image. The result is kept on the entity so
+     * printing and editing can reuse it, and is ignored if the view has moved on.
+     * @param entity the Student or Teacher being displayed
+     * @param placeholderPath the path to the placeholder image
+     */
+    private void loadProfilePicAsync(Object entity, String placeholderPath) {
+        SwingWorker<byte[], Void> worker = new SwingWorker<>() {
+            @Override
+            protected byte[] doInBackground() throws Exception {
+                if (entity instanceof Student s) {
+                    return dataService.loadStudentProfilePicture(s.getId());
+                }
+                return dataService.loadTeacherProfilePicture(((Teacher) entity).getId());
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    byte[] imageData = get();
+                    if (entity instanceof Student s) {
+                        s.setProfilePic(imageData);
+                    } else if (entity instanceof Teacher t) {
+                        t.setProfilePic(imageData);
+                    }
+                    if (currentEntity == entity && imageData != null) {
+                        setProfilePic(imageData, placeholderPath);
+                    }
+                } catch (Exception ex) {
+                    System.err.println("Could not load profile picture: " + ex.getMessage());
+                }
+            }
+        };
+        worker.execute();
+    }
+
     /** 
      * Prints the profile of the current entity.
      * @param e The action event triggering the print
@@ -465,7 +524,7 @@ public class ViewPanel extends JPanel {
             sb.append("<tr><td>Student ID:</td><td>").append(s.getId()).append("</td></tr>");
             sb.append("<tr><td>Gender:</td><td>").append(s.getGender()).append("</td></tr>");
             sb.append("<tr><td>Date of Birth:</td><td>").append(s.getDateOfBirth()).append("</td></tr>");
-            sb.append("<tr><td>Class:</td><td>").append(dataService.getClassName(s.getLevel())).append("</td></tr>");
+            sb.append("<tr><td>Class:</td><td>").append(currentClassName != null ? currentClassName : "").append("</td></tr>");
             sb.append("</table>");
 
             // Add payment history to PDF
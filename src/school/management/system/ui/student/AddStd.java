@@ -52,7 +52,7 @@ public class AddStd extends JDialog {
     private final JDateChooser dobChooser;
     /** The label for displaying the student's profile picture. */
     private final JLabel profilePicLabel;
-    /** The data for the student's profile picture. */
+    /** The newly chosen profile picture, or {@code null} to keep the stored one. */
     private byte[] profilePicData;
 
     //--- Dependencies ---
@@ -209,14 +209,21 @@ public class AddStd extends JDialog {
 
         // Select the correct class in the combo box
         for (int i = 0; i < classComboBox.getItemCount(); i++) {
-            if (classComboBox.getItemAt(i).getName().equals(dataService.getClassName(student.getLevel()))) {
+            if (classComboBox.getItemAt(i).getId() == student.getLevel()) {
                 classComboBox.setSelectedIndex(i);
                 break;
             }
         }
 
-        profilePicData = student.getProfilePic();
-        profilePicLabel.setIcon(IconUtils.getProfilePicture(profilePicData, 120, 120, true));
+        profilePicLabel.setIcon(IconUtils.getProfilePicture(student.getProfilePic(), 120, 120, true));
+        if (student.getProfilePic() == null) {
+            // List queries don't carry the image; show it once loaded. Saving keeps it unless a new one is chosen.
+            dataService.callAsync(() -> dataService.loadStudentProfilePicture(student.getId()), picture -> {
+                if (profilePicData == null) {
+                    profilePicLabel.setIcon(IconUtils.getProfilePicture(picture, 120, 120, true));
+                }
+            }, ex -> System.err.println("Could not load profile picture: " + ex.getMessage()));
+        }
     }
 
     /** 
@@ -266,8 +273,12 @@ public class AddStd extends JDialog {
 
             @Override
             protected void done() {
+                try {
+                    get(); // check for exceptions; the tables update from the change event
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(AddStd.this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
                 dispose();
-                dataService.refreshTableData();
             }
         };
         uiManager.startProgress(worker, isEdit ? "Updating..." : "Saving...", "Please wait");
@@ -63,7 +63,7 @@ public class AddTch {
     private final Teacher teacher;
     /** Flag indicating if the dialog is in edit mode. */
     private final boolean isEditMode;
-    /** The selected profile picture as a byte array. */
+    /** The newly chosen profile picture, or {@code null} to keep the stored one. */
     private byte[] selectedProfilePic;
     /** The UI manager for handling UI-related tasks. */
     private final UIManager uiManager;
@@ -203,8 +203,15 @@ public class AddTch {
         contactBox.setText(teacher.getContact());
         addressBox.setText(teacher.getAddress());
         mailBox.setText(teacher.getEmail());
-        this.selectedProfilePic = teacher.getProfilePic();
-        setProfilePic(this.selectedProfilePic, "libs/img/teacher_placeholder.png");
+        setProfilePic(teacher.getProfilePic(), "libs/img/teacher_placeholder.png");
+        if (teacher.getProfilePic() == null) {
+            // List queries don't carry the image; show it once loaded. Saving keeps it unless a new one is chosen.
+            dataService.callAsync(() -> dataService.loadTeacherProfilePicture(teacher.getId()), picture -> {
+                if (this.selectedProfilePic == null) {
+                    setProfilePic(picture, "libs/img/teacher_placeholder.png");
+                }
+            }, ex -> System.err.println("Could not load profile picture: " + ex.getMessage()));
+        }
         if ("male".equalsIgnoreCase(teacher.getGender())) {
             maleRadio.setSelected(true);
         } else {
@@ -264,8 +271,7 @@ public class AddTch {
             @Override
             protected void done() {
                 try {
-                    get(); // check for exceptions
-                    dataService.fetchData();
+                    get(); // check for exceptions; the tables update from the change event
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(tch, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -0,0 +1,349 @@
+package school.management.system.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A streaming CSV reader following RFC 4180: fields are separated by commas,
+ * records by CRLF or a bare LF or CR, and a field in double quotes may contain
+ * commas, line breaks and doubled quotes ({@code ""}).
+ * <p>
+ * The input is scanned a character at a time from one reusable buffer, so a
+ * file of any size is read in constant memory and no line is ever built up as
+ * a string first. An unquoted field becomes a string straight from the buffer;
+ * a quoted field, or one split across two buffer loads, is collected in a
+ * reusable builder. The array of fields is reused from record to record.
+ * </p>
+ * <p>
+ * Malformed input is read leniently, as spreadsheet programs do: a quote inside
+ * an unquoted field is kept as text, and text after a closing quote is appended
+ * to the field. Only a quoted field left open at the end of the input is an
+ * error. Blank lines are skipped and a leading UTF-8 byte order mark is
+ * dropped.
+ * </p>
+ *
+ * <pre>
+ * try (CsvReader csv = CsvReader.open(path)) {
+ *     csv.next(); // header
+ *     while (csv.next()) {
+ *         String name = csv.get(1);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Ibn Issah
+ */
+public final class CsvReader implements Closeable {
+
+    /** Characters read from the input at a time. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The input. */
+    private final Reader in;
+    /** The reusable input buffer. */
+    private final char[] buf = new char[BUFFER_SIZE];
+    /** Collects quoted fields and fields split across buffer loads. */
+    private final StringBuilder scratch = new StringBuilder(128);
+    /** Index of the next unread character in {@link #buf}. */
+    private int pos;
+    /** Number of valid characters in {@link #buf}. */
+    private int limit;
+    /** Whether the input is exhausted. */
+    private boolean eof;
+    /** Whether any input has been read yet. */
+    private boolean started;
+    /** The fields of the current record; reused. */
+    private String[] fields = new String[16];
+    /** Number of fields in the current record. */
+    private int count;
+    /** Line the next record starts on, counting from 1. */
+    private long line = 1;
+    /** Line the current record started on. */
+    private long recordLine;
+
+    /**
+     * Creates a reader over character input. The reader does its own
+     * buffering, so the input need not be buffered.
+     *
+     * @param in the input; closed by {@link #close()}
+     */
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Opens a UTF-8 CSV file.
+     *
+     * @param path the file
+     * @return the reader
+     * @throws IOException if the file cannot be opened
+     */
+    public static CsvReader open(Path path) throws IOException {
+        return new CsvReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return {@code true} if a record was read, {@code false} at the end of
+     *         the input
+     * @throws IOException if the input cannot be read or ends inside a quoted
+     *                     field
+     */
+    public boolean next() throws IOException {
+        count = 0;
+        // Skip blank lines; a record with an empty first field starts with a comma instead.
+        while (true) {
+            if (pos >= limit && !refill()) {
+                return false;
+            }
+            char c = buf[pos];
+            if (c != '\n' && c != '\r') {
+                break;
+            }
+            pos++;
+            endRecord(c);
+        }
+        recordLine = line;
+        while (!readField()) {
+            // Keep reading until the field that ends the record.
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of fields in the current record.
+     *
+     * @return the field count
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns a field of the current record.
+     *
+     * @param index the field index, from 0
+     * @return the field, never null
+     * @throws IndexOutOfBoundsException if the record has no such field
+     */
+    public String get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(
+                    "Line " + recordLine + " has " + count + " fields, no field " + (index + 1));
+        }
+        return fields[index];
+    }
+
+    /**
+     * Returns a copy of the fields of the current record, to keep after the
+     * next call to {@link #next()}.
+     *
+     * @return the fields
+     */
+    public String[] toArray() {
+        return Arrays.copyOf(fields, count);
+    }
+
+    /**
+     * Returns the line the current record starts on, for error messages.
+     *
+     * @return the line number, counting from 1
+     */
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    /**
+     * Closes the input.
+     *
+     * @throws IOException if the input cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads one field and the separator after it.
+     *
+     * @return {@code true} if the field ended the record
+     * @throws IOException if the input cannot be read
+     */
+    private boolean readField() throws IOException {
+        if (pos >= limit && !refill()) {
+            // The input ends right after a comma.
+            add("");
+            return true;
+        }
+        if (buf[pos] == '"') {
+            pos++;
+            return readQuoted();
+        }
+        int start = pos;
+        boolean split = false;
+        scratch.setLength(0);
+        while (true) {
+            if (pos >= limit) {
+                scratch.append(buf, start, pos - start);
+                split = true;
+                if (!refill()) {
+                    add(scratch.toString());
+                    return true;
+                }
+                start = pos;
+                continue;
+            }
+            char c = buf[pos];
+            if (c == ',' || c == '\n' || c == '\r') {
+                add(split ? scratch.append(buf, start, pos - start).toString() : new String(buf, start, pos - start));
+                pos++;
+                return c == ',' ? false : endRecord(c);
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Reads a quoted field, after its opening quote, and the separator after
+     * it.
+     *
+     * @return {@code true} if the field ended the record
+     * @throws IOException if the input cannot be read or ends inside the quotes
+     */
+    private boolean readQuoted() throws IOException {
+        scratch.setLength(0);
+        int start = pos;
+        while (true) {
+            if (pos >= limit) {
+                scratch.append(buf, start, pos - start);
+                if (!refill()) {
+                    throw new IOException("Line " + recordLine + ": quoted field is never closed");
+                }
+                start = pos;
+                continue;
+            }
+            char c = buf[pos];
+            if (c == '"') {
+                scratch.append(buf, start, pos - start);
+                pos++;
+                if (pos >= limit && !refill()) {
+                    add(scratch.toString());
+                    return true;
+                }
+                if (buf[pos] != '"') {
+                    return readAfterQuote();
+                }
+                // A doubled quote stands for one quote.
+                scratch.append('"');
+                pos++;
+                start = pos;
+                continue;
+            }
+            if (c == '\n' || (c == '\r' && (pos + 1 >= limit || buf[pos + 1] != '\n'))) {
+                line++;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Reads what follows the closing quote of a field up to the separator,
+     * appending any stray text to the field.
+     *
+     * @return {@code true} if the field ended the record
+     * @throws IOException if the input cannot be read
+     */
+    private boolean readAfterQuote() throws IOException {
+        while (true) {
+            if (pos >= limit && !refill()) {
+                add(scratch.toString());
+                return true;
+            }
+            char c = buf[pos++];
+            if (c == ',' || c == '\n' || c == '\r') {
+                add(scratch.toString());
+                return c == ',' ? false : endRecord(c);
+            }
+            scratch.append(c);
+        }
+    }
+
+    /**
+     * Finishes a record at a line break, consuming the LF of a CRLF.
+     *
+     * @param c the line break character just read
+     * @return always {@code true}
+     * @throws IOException if the input cannot be read
+     */
+    private boolean endRecord(char c) throws IOException {
+        if (c == '\r') {
+            skipLineFeed();
+        }
+        line++;
+        return true;
+    }
+
+    /**
+     * Consumes a LF if it is the next character.
+     *
+     * @return {@code true} if one was consumed
+     * @throws IOException if the input cannot be read
+     */
+    private boolean skipLineFeed() throws IOException {
+        if ((pos < limit || refill()) && buf[pos] == '\n') {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Appends a field to the current record.
+     *
+     * @param value the field
+     */
+    private void add(String value) {
+        if (count == fields.length) {
+            fields = Arrays.copyOf(fields, count * 2);
+        }
+        fields[count++] = value;
+    }
+
+    /**
+     * Loads the next block of input into the buffer, replacing its contents.
+     * Callers first copy out any characters they still need.
+     *
+     * @return {@code false} at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    private boolean refill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int n;
+        do {
+            n = in.read(buf, 0, buf.length);
+        } while (n == 0);
+        pos = 0;
+        if (n < 0) {
+            eof = true;
+            limit = 0;
+            return false;
+        }
+        limit = n;
+        if (!started) {
+            started = true;
+            if (buf[0] == '\uFEFF') {
+                pos = 1;
+            }
+        }
+        return true;
+    }
+}